@@ -1,5 +1,6 @@
 package com.company.search.config;
 
+import co.elastic.clients.elasticsearch.ElasticsearchAsyncClient;
 import co.elastic.clients.elasticsearch.ElasticsearchClient;
 import co.elastic.clients.json.jackson.JacksonJsonpMapper;
 import co.elastic.clients.transport.ElasticsearchTransport;
@@ -29,6 +30,13 @@ public class ElasticsearchConfig {
     @Value("${elasticsearch.scheme:http}")
     private String scheme;
 
+    // Avec le client asynchrone, ces limites bornent le nombre de recherches en vol
+    @Value("${elasticsearch.max-conn-per-route:10}")
+    private int maxConnPerRoute;
+
+    @Value("${elasticsearch.max-conn-total:30}")
+    private int maxConnTotal;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -50,8 +58,8 @@ public class ElasticsearchConfig {
         // Configuration du pool de connexions
         builder.setHttpClientConfigCallback(httpClientBuilder ->
                 httpClientBuilder
-                        .setMaxConnPerRoute(10)
-                        .setMaxConnTotal(30)
+                        .setMaxConnPerRoute(maxConnPerRoute)
+                        .setMaxConnTotal(maxConnTotal)
         );
 
         RestClient client = builder.build();
@@ -80,4 +88,13 @@ public class ElasticsearchConfig {
 
         return client;
     }
-}
\ No newline at end of file
+
+    /**
+     * Client non bloquant sur le même transport : les requêtes partagent le pool de connexions.
+     */
+    @Bean
+    public ElasticsearchAsyncClient elasticsearchAsyncClient(ElasticsearchTransport transport) {
+        logger.info("Creating Elasticsearch async client");
+        return new ElasticsearchAsyncClient(transport);
+    }
+}
@@ -20,6 +20,7 @@ public class ElasticsearchInitializer {
             try {
                 repository.createIndex();
                 repository.createIndexAlias();
+                repository.updateMapping();
                 logger.info("Elasticsearch initialization completed successfully");
             } catch (Exception e) {
                 logger.error("Failed to initialize Elasticsearch: {}", e.getMessage(), e);
@@ -1,6 +1,8 @@
 package com.company.search.config;
 
 import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.config.DefaultDriverOption;
+import com.datastax.oss.driver.api.core.config.DriverConfigLoader;
 import com.datastax.oss.driver.api.core.cql.SimpleStatement;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -29,6 +31,14 @@ public class ScyllaConfig {
     @Value("${scylla.replication-factor:1}")
     private int replicationFactor;
 
+    /**
+     * Cohérence par défaut des lectures et écritures. LOCAL_QUORUM des deux côtés : une lecture
+     * voit toute écriture acquittée, ce dont dépend le relais de l'outbox qui relit le document
+     * juste après son entrée document_changes.
+     */
+    @Value("${scylla.consistency:LOCAL_QUORUM}")
+    private String consistency;
+
     @Bean
     public CqlSession cqlSession() {
         logger.info("Initializing ScyllaDB connection...");
@@ -59,9 +69,12 @@ public class ScyllaConfig {
                     .addContactPoint(new InetSocketAddress(contactPoints, port))
                     .withLocalDatacenter(datacenter)
                     .withKeyspace(keyspace)
+                    .withConfigLoader(DriverConfigLoader.programmaticBuilder()
+                            .withString(DefaultDriverOption.REQUEST_CONSISTENCY, consistency)
+                            .build())
                     .build();
 
-            logger.info("Successfully connected to keyspace: {}", keyspace);
+            logger.info("Successfully connected to keyspace: {} (consistency {})", keyspace, consistency);
             return keyspaceSession;
 
         } catch (Exception e) {
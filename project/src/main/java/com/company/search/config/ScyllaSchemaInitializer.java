@@ -36,6 +36,7 @@ public class ScyllaSchemaInitializer {
 
         try {
             createTables();
+            migrateTables();
             createIndexes();
             logger.info("Schema initialization completed successfully");
         } catch (Exception e) {
@@ -82,6 +83,59 @@ public class ScyllaSchemaInitializer {
                 "    category TEXT," +
                 "    total_documents COUNTER," +
                 "    PRIMARY KEY (category)" +
+                ")",
+
+                // Outbox des modifications, partitionnée par heure, pour l'indexation incrémentale
+                "CREATE TABLE IF NOT EXISTS document_changes (" +
+                "    bucket TIMESTAMP," +
+                "    changed_at TIMESTAMP," +
+                "    id TEXT," +
+                "    operation TEXT," +
+                "    PRIMARY KEY ((bucket), changed_at, id)" +
+                ") WITH CLUSTERING ORDER BY (changed_at ASC, id ASC)" +
+                "  AND default_time_to_live = 604800",
+
+                // Pierres tombales des documents supprimés, rejouées par la réconciliation
+                "CREATE TABLE IF NOT EXISTS document_tombstones (" +
+                "    id TEXT PRIMARY KEY," +
+                "    deleted_at TIMESTAMP" +
+                ") WITH default_time_to_live = 2592000",
+
+                // Jobs d'indexation longs et leur progression par intervalles de tokens
+                "CREATE TABLE IF NOT EXISTS indexing_jobs (" +
+                "    id TEXT PRIMARY KEY," +
+                "    type TEXT," +
+                "    status TEXT," +
+                "    category TEXT," +
+                "    target_index TEXT," +
+                "    total_ranges INT," +
+                "    completed_ranges SET<INT>," +
+                "    source_documents BIGINT," +
+                "    documents_indexed BIGINT," +
+                "    documents_failed BIGINT," +
+                "    bytes_sent BIGINT," +
+                "    attempts INT," +
+                "    started_at TIMESTAMP," +
+                "    updated_at TIMESTAMP," +
+                "    finished_at TIMESTAMP," +
+                "    error TEXT," +
+                "    owner TEXT," +
+                "    heartbeat_at TIMESTAMP" +
+                ") WITH default_time_to_live = 2592000",
+
+                // Verrous des jobs exclusifs (une seule réindexation complète à la fois)
+                "CREATE TABLE IF NOT EXISTS indexing_locks (" +
+                "    name TEXT PRIMARY KEY," +
+                "    job_id TEXT," +
+                "    locked_at TIMESTAMP" +
+                ")",
+
+                // Positions des consommateurs du journal des modifications
+                "CREATE TABLE IF NOT EXISTS indexing_checkpoints (" +
+                "    name TEXT PRIMARY KEY," +
+                "    watermark TIMESTAMP," +
+                "    last_id TEXT," +
+                "    updated_at TIMESTAMP" +
                 ")"
         );
 
@@ -96,6 +150,27 @@ public class ScyllaSchemaInitializer {
         }
     }
 
+    /**
+     * Colonnes ajoutées après la création initiale d'une table ; CREATE TABLE IF NOT EXISTS
+     * ne modifie pas une table existante. Une colonne déjà présente fait échouer l'ALTER, ignoré.
+     */
+    private void migrateTables() {
+        List<String> migrationQueries = Arrays.asList(
+                "ALTER TABLE indexing_jobs ADD owner TEXT",
+                "ALTER TABLE indexing_jobs ADD heartbeat_at TIMESTAMP",
+                "ALTER TABLE indexing_jobs ADD source_documents BIGINT"
+        );
+
+        for (String query : migrationQueries) {
+            try {
+                cqlSession.execute(SimpleStatement.newInstance(query));
+                logger.info("Schema migration applied: {}", query);
+            } catch (Exception e) {
+                logger.debug("Schema migration skipped (column may already exist): {}", e.getMessage());
+            }
+        }
+    }
+
     private void createIndexes() {
         List<String> indexCreationQueries = Arrays.asList(
                 // Index sur la catégorie - CORRIGÉ: utilise la bonne table 'documents'
@@ -144,7 +219,12 @@ public class ScyllaSchemaInitializer {
                 "DROP TABLE IF EXISTS documents",
                 "DROP TABLE IF EXISTS search_history",
                 "DROP TABLE IF EXISTS inverted_index",
-                "DROP TABLE IF EXISTS document_stats"
+                "DROP TABLE IF EXISTS document_stats",
+                "DROP TABLE IF EXISTS document_changes",
+                "DROP TABLE IF EXISTS document_tombstones",
+                "DROP TABLE IF EXISTS indexing_jobs",
+                "DROP TABLE IF EXISTS indexing_locks",
+                "DROP TABLE IF EXISTS indexing_checkpoints"
         );
 
         for (String query : dropQueries) {
@@ -1,15 +1,21 @@
 package com.company.search.controller;
 
+import com.company.search.model.IndexingJob;
 import com.company.search.model.SearchDocument;
 import com.company.search.service.DataIndexingService;
+import com.company.search.service.IndexingJobService;
+import com.company.search.service.ReconciliationService;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/indexing")
@@ -19,9 +25,15 @@ public class DataIndexingController {
     private static final Logger logger = LoggerFactory.getLogger(DataIndexingController.class);
 
     private final DataIndexingService dataIndexingService;
+    private final ReconciliationService reconciliationService;
+    private final IndexingJobService indexingJobService;
 
-    public DataIndexingController(DataIndexingService dataIndexingService) {
+    public DataIndexingController(DataIndexingService dataIndexingService,
+                                  ReconciliationService reconciliationService,
+                                  IndexingJobService indexingJobService) {
         this.dataIndexingService = dataIndexingService;
+        this.reconciliationService = reconciliationService;
+        this.indexingJobService = indexingJobService;
     }
 
     /**
@@ -47,26 +59,30 @@ public class DataIndexingController {
     }
 
     /**
-     * Indexe tous les documents d'une catégorie spécifique de manière asynchrone
+     * Lance l'indexation des documents d'une catégorie ; la progression est suivie par /jobs/{id}
      */
     @PostMapping("/index-by-category")
-    public CompletableFuture<ResponseEntity<Map<String, String>>> indexDocumentsByCategory(
-            @RequestParam String category) {
+    public ResponseEntity<Map<String, String>> indexDocumentsByCategory(@RequestParam String category) {
 
         logger.info("Indexing requested for category: {}", category);
 
-        return dataIndexingService.indexDocumentsByCategory(category)
-                .thenApply(result -> ResponseEntity.ok(Map.of(
-                        "status", "success",
-                        "message", "Documents for category '" + category + "' indexed successfully"
-                )))
-                .exceptionally(ex -> {
-                    logger.error("Error indexing documents for category: {}", category, ex);
-                    return ResponseEntity.internalServerError().body(Map.of(
-                            "status", "error",
-                            "message", "Failed to index documents for category '" + category + "': " + ex.getMessage()
-                    ));
-                });
+        try {
+            IndexingJob job = dataIndexingService.indexDocumentsByCategory(category);
+            return ResponseEntity.accepted().body(Map.of(
+                    "status", "accepted",
+                    "jobId", job.getId(),
+                    "message", "Indexing of category '" + category + "' started"
+            ));
+        } catch (RejectedExecutionException e) {
+            // Pool des jobs saturé : 503 via GlobalExceptionHandler
+            throw e;
+        } catch (Exception e) {
+            logger.error("Error starting indexing for category: {}", category, e);
+            return ResponseEntity.internalServerError().body(Map.of(
+                    "status", "error",
+                    "message", "Failed to index documents for category '" + category + "': " + e.getMessage()
+            ));
+        }
     }
 
     /**
@@ -93,23 +109,75 @@ public class DataIndexingController {
     }
 
     /**
-     * Lance une réindexation complète de tous les documents de manière asynchrone
+     * Lance une réindexation complète de tous les documents ; la progression est suivie par /jobs/{id}.
+     * 409 si une réindexation est déjà en cours dans le cluster.
      */
     @PostMapping("/reindex-all")
-    public CompletableFuture<ResponseEntity<Map<String, String>>> reindexAllDocuments() {
+    public ResponseEntity<Map<String, String>> reindexAllDocuments() {
 
         logger.info("Full reindexing requested");
 
-        return dataIndexingService.reindexAllDocuments()
-                .thenApply(result -> ResponseEntity.ok(Map.of(
+        try {
+            IndexingJob job = dataIndexingService.reindexAllDocuments();
+            return ResponseEntity.accepted().body(Map.of(
+                    "status", "accepted",
+                    "jobId", job.getId(),
+                    "message", "Full reindexing into '" + job.getTargetIndex() + "' started"
+            ));
+        } catch (RejectedExecutionException e) {
+            // Pool des jobs saturé : 503 via GlobalExceptionHandler
+            throw e;
+        } catch (IllegalStateException e) {
+            logger.warn("Full reindexing rejected: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                    "status", "conflict",
+                    "message", e.getMessage()
+            ));
+        } catch (Exception e) {
+            logger.error("Error starting full reindexing", e);
+            return ResponseEntity.internalServerError().body(Map.of(
+                    "status", "error",
+                    "message", "Failed to start full reindexing: " + e.getMessage()
+            ));
+        }
+    }
+
+    /**
+     * Progression d'un job d'indexation : intervalles terminés, compteurs, débits et ETA
+     */
+    @GetMapping("/jobs/{id}")
+    public ResponseEntity<IndexingJob> getJob(@PathVariable String id) {
+        return indexingJobService.getJob(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Liste des jobs d'indexation des 30 derniers jours, du plus récent au plus ancien
+     */
+    @GetMapping("/jobs")
+    public ResponseEntity<List<IndexingJob>> listJobs() {
+        return ResponseEntity.ok(indexingJobService.listJobs());
+    }
+
+    /**
+     * Compare les identifiants de ScyllaDB et d'Elasticsearch et corrige les écarts
+     */
+    @PostMapping("/reconcile")
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> reconcile() {
+
+        logger.info("Reconciliation requested");
+
+        return reconciliationService.reconcileAsync()
+                .thenApply(result -> ResponseEntity.ok(Map.<String, Object>of(
                         "status", "success",
-                        "message", "Full reindexing completed successfully"
+                        "result", result
                 )))
                 .exceptionally(ex -> {
-                    logger.error("Error during full reindexing", ex);
+                    logger.error("Error during reconciliation", ex);
                     return ResponseEntity.internalServerError().body(Map.of(
                             "status", "error",
-                            "message", "Failed to complete full reindexing: " + ex.getMessage()
+                            "message", "Failed to reconcile indices: " + ex.getMessage()
                     ));
                 });
     }
@@ -13,10 +13,10 @@ import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 
 import java.time.Instant;
 import java.time.LocalDateTime;
-import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/api/documents")
@@ -86,9 +86,12 @@ public class DocumentManagementController {
     public ResponseEntity<Map<String, Object>> debugJackson() {
         try {
             // Récupérer un document de ScyllaDB
-            List<SearchDocument> documents = scyllaRepository.findAll();
-            if (!documents.isEmpty()) {
-                SearchDocument doc = documents.get(0);
+            Optional<SearchDocument> firstDocument;
+            try (Stream<SearchDocument> documents = scyllaRepository.streamAll()) {
+                firstDocument = documents.findFirst();
+            }
+            if (firstDocument.isPresent()) {
+                SearchDocument doc = firstDocument.get();
 
                 // Afficher le document
                 logger.info("Document retrieved: {}", doc);
@@ -1,16 +1,27 @@
 package com.company.search.controller;
 
+import com.company.search.model.SearchDocument;
+import com.company.search.model.dto.BatchSearchRequest;
+import com.company.search.model.dto.BatchSearchResponse;
 import com.company.search.model.dto.SearchRequest;
 import com.company.search.model.dto.SearchResponse;
 import com.company.search.model.dto.SearchResult;
+import com.company.search.model.dto.SuggestResponse;
+import com.company.search.service.SearchAsYouTypeService;
+import com.company.search.service.SearchExportService;
 import com.company.search.service.SearchService;
+import com.company.search.service.SuggestService;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/api/search")
@@ -20,8 +31,23 @@ public class SearchController {
     
     private final SearchService searchService;
     
-    public SearchController(SearchService searchService) {
+    private final SearchExportService searchExportService;
+    
+    private final SuggestService suggestService;
+    
+    private final SearchAsYouTypeService searchAsYouTypeService;
+    
+    /** Durée max d'un export, au lieu du délai par défaut des requêtes asynchrones. */
+    private final long exportTimeoutMs;
+    
+    public SearchController(SearchService searchService, SearchExportService searchExportService,
+                            SuggestService suggestService, SearchAsYouTypeService searchAsYouTypeService,
+                            @Value("${search.export.timeout-ms:3600000}") long exportTimeoutMs) {
         this.searchService = searchService;
+        this.searchExportService = searchExportService;
+        this.suggestService = suggestService;
+        this.searchAsYouTypeService = searchAsYouTypeService;
+        this.exportTimeoutMs = exportTimeoutMs;
     }
     
     @PostMapping(produces = MediaType.APPLICATION_JSON_VALUE)
@@ -38,23 +64,77 @@ public class SearchController {
     public CompletableFuture<ResponseEntity<SearchResponse<SearchResult>>> searchSimple(
             @RequestParam String query,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String profile) {
         
-        return searchService.searchSimple(query, page, size)
+        return searchService.searchSimple(query, page, size, cursor, profile)
             .thenApply(response -> ResponseEntity.ok()
                 .contentType(MediaType.APPLICATION_JSON)
                 .header("Content-Type", MediaType.APPLICATION_JSON_VALUE)
                 .body(response));
     }
     
+    /**
+     * Endpoint d'autocomplétion : titres commençant par le préfixe saisi.
+     * Conçu pour être appelé à chaque frappe ; la plupart des appels sont servis en mémoire.
+     *
+     * @param prefix Le début de titre saisi
+     * @param size Le nombre maximal de suggestions
+     * @return Une réponse contenant les titres suggérés
+     */
+    @GetMapping(value = "/suggest", produces = MediaType.APPLICATION_JSON_VALUE)
+    public CompletableFuture<ResponseEntity<SuggestResponse>> suggest(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "5") int size) {
+        
+        long startTime = System.currentTimeMillis();
+        return suggestService.suggest(prefix, size)
+            .thenApply(suggestions -> {
+                SuggestResponse response = new SuggestResponse(prefix, suggestions);
+                response.setSearchTime(System.currentTimeMillis() - startTime);
+                return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(response);
+            });
+    }
+    
+    /**
+     * Endpoint de recherche à la saisie, appelé à chaque frappe d'un même champ de recherche.
+     * Les frappes qui prolongent le texte précédent sont servies en affinant localement
+     * les candidats de la session.
+     *
+     * @param query Le texte saisi jusqu'ici
+     * @param session Identifiant choisi par le client pour le champ de saisie ; sans lui, pas d'affinage
+     * @param size Le nombre de résultats
+     * @return Une réponse contenant les meilleurs documents correspondants
+     */
+    @GetMapping(value = "/as-you-type", produces = MediaType.APPLICATION_JSON_VALUE)
+    public CompletableFuture<ResponseEntity<SearchResponse<SearchResult>>> searchAsYouType(
+            @RequestParam String query,
+            @RequestParam(required = false) String session,
+            @RequestParam(defaultValue = "10") int size) {
+        
+        long startTime = System.currentTimeMillis();
+        return searchAsYouTypeService.search(session, query, size)
+            .thenApply(response -> {
+                response.setSearchTime(System.currentTimeMillis() - startTime);
+                return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(response);
+            });
+    }
+    
     @GetMapping(value = "/fields", produces = MediaType.APPLICATION_JSON_VALUE)
     public CompletableFuture<ResponseEntity<SearchResponse<SearchResult>>> searchInFields(
             @RequestParam String query,
             @RequestParam List<String> fields,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String profile) {
         
-        return searchService.searchInFields(query, fields, page, size)
+        return searchService.searchInFields(query, fields, page, size, cursor, profile)
             .thenApply(response -> ResponseEntity.ok()
                 .contentType(MediaType.APPLICATION_JSON)
                 .header("Content-Type", MediaType.APPLICATION_JSON_VALUE)
@@ -100,6 +180,23 @@ public class SearchController {
                 .body(response));
     }
     
+    /**
+     * Endpoint exécutant plusieurs recherches en un seul appel à Elasticsearch.
+     * Chaque recherche a sa propre réponse ou sa propre erreur, et toutes partagent le même délai.
+     *
+     * @param batchRequest Les recherches du lot et leur délai optionnel
+     * @return Une réponse contenant un élément par recherche, dans l'ordre de la requête
+     */
+    @PostMapping(value = "/batch", produces = MediaType.APPLICATION_JSON_VALUE)
+    public CompletableFuture<ResponseEntity<BatchSearchResponse>> batchSearch(
+            @Valid @RequestBody BatchSearchRequest batchRequest) {
+        
+        return searchService.batchSearch(batchRequest)
+            .thenApply(response -> ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(response));
+    }
+    
     /**
      * Endpoint pour la recherche en texte intégral qui analyse le texte et trouve des correspondances
      * intelligentes en utilisant des techniques comme la recherche floue, les synonymes, etc.
@@ -109,6 +206,9 @@ public class SearchController {
      * @param matchType Le type de correspondance ("match", "match_phrase", "multi_match")
      * @param page La page à récupérer
      * @param size Le nombre d'éléments par page
+     * @param fuzziness "adaptive" (exacte puis floue si trop peu de résultats), "AUTO", 0, 1 ou 2 ;
+     *                  par défaut search.full-text.fuzziness
+     * @param cursor "*" pour ouvrir une pagination par curseur, puis le nextCursor de la réponse précédente
      * @return Une réponse contenant les documents correspondants
      */
     @GetMapping(value = "/full-text", produces = MediaType.APPLICATION_JSON_VALUE)
@@ -117,9 +217,11 @@ public class SearchController {
             @RequestParam List<String> fields,
             @RequestParam(defaultValue = "multi_match") String matchType,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String fuzziness,
+            @RequestParam(required = false) String cursor) {
         
-        return searchService.fullTextSearch(query, fields, matchType, page, size)
+        return searchService.fullTextSearch(query, fields, matchType, page, size, fuzziness, cursor)
             .thenApply(response -> ResponseEntity.ok()
                 .contentType(MediaType.APPLICATION_JSON)
                 .header("Content-Type", MediaType.APPLICATION_JSON_VALUE)
@@ -129,12 +231,15 @@ public class SearchController {
     /**
      * Endpoint pour la recherche par terme qui trouve des correspondances exactes sans analyse.
      * Idéal pour les identifiants, les codes, ou les champs de type keyword.
+     * Sur title et author, "term" vise le sous-champ keyword : la valeur doit être le titre ou
+     * l'auteur entier, casse comprise ("Kubernetes in Action", et non "kubernetes").
      *
      * @param field Le champ sur lequel effectuer la recherche
      * @param value La valeur exacte à rechercher
-     * @param type Le type de recherche par terme ("term", "prefix", "wildcard", "exists")
+     * @param type Le type de recherche par terme ("term", "prefix", "wildcard", "substring", "exists")
      * @param page La page à récupérer
      * @param size Le nombre d'éléments par page
+     * @param cursor "*" pour ouvrir une pagination par curseur, puis le nextCursor de la réponse précédente
      * @return Une réponse contenant les documents correspondants
      */
     @GetMapping(value = "/term", produces = MediaType.APPLICATION_JSON_VALUE)
@@ -143,12 +248,37 @@ public class SearchController {
             @RequestParam String value,
             @RequestParam(defaultValue = "term") String type,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor) {
         
-        return searchService.termLevelSearch(field, value, type, page, size)
+        return searchService.termLevelSearch(field, value, type, page, size, cursor)
             .thenApply(response -> ResponseEntity.ok()
                 .contentType(MediaType.APPLICATION_JSON)
                 .header("Content-Type", MediaType.APPLICATION_JSON_VALUE)
                 .body(response));
     }
+    
+    /**
+     * Exporte toutes les correspondances d'une recherche en NDJSON, un document par ligne,
+     * en une seule passe sur un point-in-time. page, size et cursor sont ignorés.
+     * 503 si trop d'exports sont en cours ; l'export est interrompu au bout de
+     * search.export.timeout-ms.
+     *
+     * @param searchRequest La requête, ses champs et ses filtres
+     * @return La tâche qui écrit les documents au rythme de lecture du client
+     */
+    @PostMapping(value = "/export", produces = "application/x-ndjson")
+    public WebAsyncTask<Void> export(@Valid @RequestBody SearchRequest searchRequest, HttpServletResponse response) {
+        // Ouvert avant la réponse : un refus peut encore être renvoyé en 503
+        Stream<SearchDocument> documents = searchExportService.open(searchRequest);
+        response.setContentType("application/x-ndjson");
+        
+        WebAsyncTask<Void> task = new WebAsyncTask<>(exportTimeoutMs, () -> {
+            searchExportService.write(documents, response.getOutputStream());
+            return null;
+        });
+        // Délai dépassé, erreur ou client parti : les lectures s'arrêtent et la place est rendue
+        task.onCompletion(documents::close);
+        return task;
+    }
 }
@@ -0,0 +1,26 @@
+package com.company.search.exception;
+
+/**
+ * Échec de l'indexation d'un document. {@link #isRetryable()} distingue les échecs
+ * transitoires (rejet 429, requête en erreur) des documents refusés par le mapping.
+ */
+public class IndexingException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final boolean retryable;
+
+    public IndexingException(String message, boolean retryable) {
+        super(message);
+        this.retryable = retryable;
+    }
+
+    public IndexingException(String message, boolean retryable, Throwable cause) {
+        super(message, cause);
+        this.retryable = retryable;
+    }
+
+    public boolean isRetryable() {
+        return retryable;
+    }
+}
@@ -0,0 +1,37 @@
+package com.company.search.model;
+
+import java.time.Instant;
+
+/**
+ * Entrée de l'outbox des modifications de documents (table document_changes).
+ * La position (changedAt, id) ordonne les modifications à l'intérieur d'un bucket.
+ */
+public class DocumentChange {
+
+    public enum Operation {
+        UPSERT,
+        DELETE
+    }
+
+    private String id;
+    private Instant changedAt;
+    private Operation operation;
+
+    public DocumentChange() {}
+
+    public DocumentChange(String id, Instant changedAt, Operation operation) {
+        this.id = id;
+        this.changedAt = changedAt;
+        this.operation = operation;
+    }
+
+    // Getters and Setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public Instant getChangedAt() { return changedAt; }
+    public void setChangedAt(Instant changedAt) { this.changedAt = changedAt; }
+
+    public Operation getOperation() { return operation; }
+    public void setOperation(Operation operation) { this.operation = operation; }
+}
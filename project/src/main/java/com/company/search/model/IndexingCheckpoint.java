@@ -0,0 +1,36 @@
+package com.company.search.model;
+
+import java.time.Instant;
+
+/**
+ * Position persistée d'un consommateur du journal des modifications :
+ * dernière modification indexée (watermark sur changedAt, départagé par id).
+ */
+public class IndexingCheckpoint {
+    private String name;
+    private Instant watermark;
+    private String lastId;
+    private Instant updatedAt;
+
+    public IndexingCheckpoint() {}
+
+    public IndexingCheckpoint(String name, Instant watermark, String lastId) {
+        this.name = name;
+        this.watermark = watermark;
+        this.lastId = lastId;
+        this.updatedAt = Instant.now();
+    }
+
+    // Getters and Setters
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public Instant getWatermark() { return watermark; }
+    public void setWatermark(Instant watermark) { this.watermark = watermark; }
+
+    public String getLastId() { return lastId; }
+    public void setLastId(String lastId) { this.lastId = lastId; }
+
+    public Instant getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(Instant updatedAt) { this.updatedAt = updatedAt; }
+}
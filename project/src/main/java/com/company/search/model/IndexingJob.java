@@ -0,0 +1,165 @@
+package com.company.search.model;
+
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Exécution d'une indexation longue (réindexation complète ou indexation d'une catégorie),
+ * persistée dans la table indexing_jobs.
+ *
+ * <p>La progression est suivie par intervalles de tokens : un intervalle n'est marqué
+ * terminé qu'une fois tous ses documents acceptés par Elasticsearch. Une exécution
+ * interrompue reprend avec les seuls intervalles restants. Les débits et l'ETA ne sont
+ * renseignés que pour un job en cours dans cette instance.</p>
+ *
+ * <p>Un job en cours appartient à une instance ({@code owner}) qui renouvelle régulièrement
+ * {@code heartbeatAt}. Une autre instance ne le reprend qu'une fois ce heartbeat périmé,
+ * en s'en emparant par une mise à jour conditionnelle sur le propriétaire.</p>
+ */
+public class IndexingJob {
+
+    public enum Type {
+        REINDEX_ALL,
+        INDEX_CATEGORY
+    }
+
+    public enum Status {
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    private String id;
+    private Type type;
+    private Status status;
+    private String category;
+    private String targetIndex;
+    private int totalRanges;
+    private Set<Integer> completedRanges = new HashSet<>();
+    private long sourceDocuments;
+    private long documentsIndexed;
+    private long documentsFailed;
+    private long bytesSent;
+    private int attempts;
+    private Instant startedAt;
+    private Instant updatedAt;
+    private Instant finishedAt;
+    private String error;
+    private String owner;
+    private Instant heartbeatAt;
+
+    // Progression en direct, non persistée
+    private Double documentsPerSecond;
+    private Double bytesPerSecond;
+    private Long etaSeconds;
+
+    public IndexingJob() {}
+
+    public IndexingJob(String id, Type type, String category, String targetIndex, int totalRanges) {
+        this.id = id;
+        this.type = type;
+        this.status = Status.RUNNING;
+        this.category = category;
+        this.targetIndex = targetIndex;
+        this.totalRanges = totalRanges;
+        this.startedAt = Instant.now();
+        this.updatedAt = this.startedAt;
+    }
+
+    public IndexingJob(IndexingJob other) {
+        this.id = other.id;
+        this.type = other.type;
+        this.status = other.status;
+        this.category = other.category;
+        this.targetIndex = other.targetIndex;
+        this.totalRanges = other.totalRanges;
+        this.completedRanges = new HashSet<>(other.completedRanges);
+        this.sourceDocuments = other.sourceDocuments;
+        this.documentsIndexed = other.documentsIndexed;
+        this.documentsFailed = other.documentsFailed;
+        this.bytesSent = other.bytesSent;
+        this.attempts = other.attempts;
+        this.startedAt = other.startedAt;
+        this.updatedAt = other.updatedAt;
+        this.finishedAt = other.finishedAt;
+        this.error = other.error;
+        this.owner = other.owner;
+        this.heartbeatAt = other.heartbeatAt;
+    }
+
+    // Getters and Setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public Type getType() { return type; }
+    public void setType(Type type) { this.type = type; }
+
+    public Status getStatus() { return status; }
+    public void setStatus(Status status) { this.status = status; }
+
+    public String getCategory() { return category; }
+    public void setCategory(String category) { this.category = category; }
+
+    public String getTargetIndex() { return targetIndex; }
+    public void setTargetIndex(String targetIndex) { this.targetIndex = targetIndex; }
+
+    public int getTotalRanges() { return totalRanges; }
+    public void setTotalRanges(int totalRanges) { this.totalRanges = totalRanges; }
+
+    public Set<Integer> getCompletedRanges() { return completedRanges; }
+    public void setCompletedRanges(Set<Integer> completedRanges) { this.completedRanges = completedRanges; }
+
+    /**
+     * Lignes lues dans Scylla pour les intervalles terminés, chacun compté une seule fois
+     * même après une reprise : nombre de documents attendus dans l'index cible.
+     */
+    public long getSourceDocuments() { return sourceDocuments; }
+    public void setSourceDocuments(long sourceDocuments) { this.sourceDocuments = sourceDocuments; }
+
+    /**
+     * Documents acceptés, toutes exécutions confondues. Après une reprise, les documents
+     * des intervalles interrompus peuvent être comptés deux fois.
+     */
+    public long getDocumentsIndexed() { return documentsIndexed; }
+    public void setDocumentsIndexed(long documentsIndexed) { this.documentsIndexed = documentsIndexed; }
+
+    public long getDocumentsFailed() { return documentsFailed; }
+    public void setDocumentsFailed(long documentsFailed) { this.documentsFailed = documentsFailed; }
+
+    public long getBytesSent() { return bytesSent; }
+    public void setBytesSent(long bytesSent) { this.bytesSent = bytesSent; }
+
+    /** Nombre d'exécutions, reprises comprises. */
+    public int getAttempts() { return attempts; }
+    public void setAttempts(int attempts) { this.attempts = attempts; }
+
+    public Instant getStartedAt() { return startedAt; }
+    public void setStartedAt(Instant startedAt) { this.startedAt = startedAt; }
+
+    public Instant getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(Instant updatedAt) { this.updatedAt = updatedAt; }
+
+    public Instant getFinishedAt() { return finishedAt; }
+    public void setFinishedAt(Instant finishedAt) { this.finishedAt = finishedAt; }
+
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+
+    /** Instance qui exécute le job, voir indexing.jobs.instance-id. */
+    public String getOwner() { return owner; }
+    public void setOwner(String owner) { this.owner = owner; }
+
+    /** Dernier signe de vie de l'instance propriétaire. */
+    public Instant getHeartbeatAt() { return heartbeatAt; }
+    public void setHeartbeatAt(Instant heartbeatAt) { this.heartbeatAt = heartbeatAt; }
+
+    public Double getDocumentsPerSecond() { return documentsPerSecond; }
+    public void setDocumentsPerSecond(Double documentsPerSecond) { this.documentsPerSecond = documentsPerSecond; }
+
+    public Double getBytesPerSecond() { return bytesPerSecond; }
+    public void setBytesPerSecond(Double bytesPerSecond) { this.bytesPerSecond = bytesPerSecond; }
+
+    public Long getEtaSeconds() { return etaSeconds; }
+    public void setEtaSeconds(Long etaSeconds) { this.etaSeconds = etaSeconds; }
+}
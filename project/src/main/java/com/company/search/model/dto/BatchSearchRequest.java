@@ -0,0 +1,33 @@
+package com.company.search.model.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+
+import java.util.List;
+
+/**
+ * Plusieurs recherches exécutées en un seul appel _msearch.
+ */
+public class BatchSearchRequest {
+    @NotEmpty(message = "At least one search is required")
+    @Valid
+    private List<SearchRequest> searches;
+    
+    /** Délai commun à toutes les recherches du lot ; null pour la valeur par défaut. */
+    @Min(value = 1, message = "Timeout must be >= 1")
+    private Long timeoutMs;
+    
+    public BatchSearchRequest() {}
+    
+    public BatchSearchRequest(List<SearchRequest> searches) {
+        this.searches = searches;
+    }
+    
+    // Getters and Setters
+    public List<SearchRequest> getSearches() { return searches; }
+    public void setSearches(List<SearchRequest> searches) { this.searches = searches; }
+    
+    public Long getTimeoutMs() { return timeoutMs; }
+    public void setTimeoutMs(Long timeoutMs) { this.timeoutMs = timeoutMs; }
+}
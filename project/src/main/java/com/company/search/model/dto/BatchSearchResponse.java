@@ -0,0 +1,72 @@
+package com.company.search.model.dto;
+
+import java.util.List;
+
+/**
+ * Réponse d'un lot de recherches : un élément par recherche, dans l'ordre de la requête.
+ */
+public class BatchSearchResponse {
+    private List<Item> responses;
+    private long searchTime;
+    
+    public BatchSearchResponse() {}
+    
+    public BatchSearchResponse(List<Item> responses) {
+        this.responses = responses;
+    }
+    
+    // Getters and Setters
+    public List<Item> getResponses() { return responses; }
+    public void setResponses(List<Item> responses) { this.responses = responses; }
+    
+    public long getSearchTime() { return searchTime; }
+    public void setSearchTime(long searchTime) { this.searchTime = searchTime; }
+    
+    /**
+     * Résultat d'une recherche du lot : la réponse, ou l'erreur qui lui est propre.
+     */
+    public static class Item {
+        private SearchResponse<SearchResult> response;
+        private String error;
+        private int status;
+        private boolean timedOut;
+        
+        public Item() {}
+        
+        public static Item success(SearchResponse<SearchResult> response, boolean timedOut) {
+            Item item = new Item();
+            item.response = response;
+            item.status = 200;
+            item.timedOut = timedOut;
+            return item;
+        }
+        
+        public static Item failure(int status, String error) {
+            Item item = new Item();
+            item.status = status;
+            item.error = error;
+            return item;
+        }
+        
+        /** Recherche sans réponse dans le délai du lot (504). */
+        public static Item timedOut(String error) {
+            Item item = failure(504, error);
+            item.timedOut = true;
+            return item;
+        }
+        
+        // Getters and Setters
+        public SearchResponse<SearchResult> getResponse() { return response; }
+        public void setResponse(SearchResponse<SearchResult> response) { this.response = response; }
+        
+        public String getError() { return error; }
+        public void setError(String error) { this.error = error; }
+        
+        public int getStatus() { return status; }
+        public void setStatus(int status) { this.status = status; }
+        
+        /** true si le délai du lot a été atteint : les résultats sont alors partiels, ou absents (504). */
+        public boolean isTimedOut() { return timedOut; }
+        public void setTimedOut(boolean timedOut) { this.timedOut = timedOut; }
+    }
+}
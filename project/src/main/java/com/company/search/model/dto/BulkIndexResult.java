@@ -0,0 +1,47 @@
+package com.company.search.model.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Résultat d'une requête _bulk : compteurs par élément et identifiants en échec.
+ */
+public class BulkIndexResult {
+    private int succeeded;
+    private int failed;
+    private int rejected;
+    private long tookMillis;
+    private List<String> failedIds = new ArrayList<>();
+    private List<String> rejectedIds = new ArrayList<>();
+
+    public BulkIndexResult() {}
+
+    public BulkIndexResult(int succeeded, int failed, int rejected, long tookMillis, List<String> failedIds) {
+        this.succeeded = succeeded;
+        this.failed = failed;
+        this.rejected = rejected;
+        this.tookMillis = tookMillis;
+        this.failedIds = failedIds;
+    }
+
+    // Getters and Setters
+    public int getSucceeded() { return succeeded; }
+    public void setSucceeded(int succeeded) { this.succeeded = succeeded; }
+
+    public int getFailed() { return failed; }
+    public void setFailed(int failed) { this.failed = failed; }
+
+    /** Nombre d'éléments refusés par Elasticsearch (HTTP 429), inclus dans {@link #getFailed()}. */
+    public int getRejected() { return rejected; }
+    public void setRejected(int rejected) { this.rejected = rejected; }
+
+    public long getTookMillis() { return tookMillis; }
+    public void setTookMillis(long tookMillis) { this.tookMillis = tookMillis; }
+
+    public List<String> getFailedIds() { return failedIds; }
+    public void setFailedIds(List<String> failedIds) { this.failedIds = failedIds; }
+
+    /** Identifiants refusés en 429, sous-ensemble de {@link #getFailedIds()}. */
+    public List<String> getRejectedIds() { return rejectedIds; }
+    public void setRejectedIds(List<String> rejectedIds) { this.rejectedIds = rejectedIds; }
+}
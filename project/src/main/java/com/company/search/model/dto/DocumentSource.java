@@ -0,0 +1,21 @@
+package com.company.search.model.dto;
+
+/**
+ * Source JSON d'un document déjà sérialisée, envoyée telle quelle dans une requête _bulk.
+ * La taille du lot est mesurée sur ces mêmes octets : le document n'est sérialisé qu'une fois.
+ */
+public class DocumentSource {
+    private final String id;
+    private final byte[] json;
+
+    public DocumentSource(String id, byte[] json) {
+        this.id = id;
+        this.json = json;
+    }
+
+    public String getId() { return id; }
+
+    public byte[] getJson() { return json; }
+
+    public int size() { return json.length; }
+}
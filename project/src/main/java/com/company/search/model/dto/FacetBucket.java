@@ -0,0 +1,23 @@
+package com.company.search.model.dto;
+
+/**
+ * Valeur d'une facette et nombre de documents correspondants.
+ */
+public class FacetBucket {
+    private String key;
+    private long count;
+    
+    public FacetBucket() {}
+    
+    public FacetBucket(String key, long count) {
+        this.key = key;
+        this.count = count;
+    }
+    
+    // Getters and Setters
+    public String getKey() { return key; }
+    public void setKey(String key) { this.key = key; }
+    
+    public long getCount() { return count; }
+    public void setCount(long count) { this.count = count; }
+}
@@ -0,0 +1,57 @@
+package com.company.search.model.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+
+/**
+ * Facette calculée dans la même requête que les résultats : décompte par valeur
+ * ("terms", ex. category ou author.keyword) ou par période ("date_histogram", ex. createdAt).
+ */
+public class FacetSpec {
+    public static final String TERMS = "terms";
+    public static final String DATE_HISTOGRAM = "date_histogram";
+    
+    /** Nom de la facette dans la réponse ; par défaut le champ. */
+    private String name;
+    
+    private String type = TERMS;
+    
+    @NotBlank(message = "Facet field is required")
+    private String field;
+    
+    /** Nombre de valeurs renvoyées, pour "terms". */
+    @Min(value = 1, message = "Facet size must be >= 1")
+    @Max(value = 100, message = "Facet size must be <= 100")
+    private int size = 10;
+    
+    /** Période calendaire (day, week, month, quarter, year), pour "date_histogram". */
+    private String interval = "month";
+    
+    public FacetSpec() {}
+    
+    public FacetSpec(String type, String field) {
+        this.type = type;
+        this.field = field;
+    }
+    
+    public String resolvedName() {
+        return name != null && !name.isEmpty() ? name : field;
+    }
+    
+    // Getters and Setters
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+    
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+    
+    public String getField() { return field; }
+    public void setField(String field) { this.field = field; }
+    
+    public int getSize() { return size; }
+    public void setSize(int size) { this.size = size; }
+    
+    public String getInterval() { return interval; }
+    public void setInterval(String interval) { this.interval = interval; }
+}
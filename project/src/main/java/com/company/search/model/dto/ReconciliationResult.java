@@ -0,0 +1,45 @@
+package com.company.search.model.dto;
+
+/**
+ * Bilan d'une réconciliation entre ScyllaDB et Elasticsearch.
+ */
+public class ReconciliationResult {
+    private long tombstonesChecked;
+    private long tombstonesDeleted;
+    private long databaseIdsChecked;
+    private long missingIndexed;
+    private long indexIdsChecked;
+    private long orphansDeleted;
+    private long failed;
+    private long tookMillis;
+
+    public ReconciliationResult() {}
+
+    // Getters and Setters
+    public long getTombstonesChecked() { return tombstonesChecked; }
+    public void setTombstonesChecked(long tombstonesChecked) { this.tombstonesChecked = tombstonesChecked; }
+
+    /** Documents supprimés de ScyllaDB encore présents dans l'index, retirés d'après leur pierre tombale. */
+    public long getTombstonesDeleted() { return tombstonesDeleted; }
+    public void setTombstonesDeleted(long tombstonesDeleted) { this.tombstonesDeleted = tombstonesDeleted; }
+
+    public long getDatabaseIdsChecked() { return databaseIdsChecked; }
+    public void setDatabaseIdsChecked(long databaseIdsChecked) { this.databaseIdsChecked = databaseIdsChecked; }
+
+    /** Documents présents dans ScyllaDB mais absents de l'index, réindexés. */
+    public long getMissingIndexed() { return missingIndexed; }
+    public void setMissingIndexed(long missingIndexed) { this.missingIndexed = missingIndexed; }
+
+    public long getIndexIdsChecked() { return indexIdsChecked; }
+    public void setIndexIdsChecked(long indexIdsChecked) { this.indexIdsChecked = indexIdsChecked; }
+
+    /** Documents de l'index absents de ScyllaDB, supprimés. */
+    public long getOrphansDeleted() { return orphansDeleted; }
+    public void setOrphansDeleted(long orphansDeleted) { this.orphansDeleted = orphansDeleted; }
+
+    public long getFailed() { return failed; }
+    public void setFailed(long failed) { this.failed = failed; }
+
+    public long getTookMillis() { return tookMillis; }
+    public void setTookMillis(long tookMillis) { this.tookMillis = tookMillis; }
+}
@@ -1,5 +1,6 @@
 package com.company.search.model.dto;
 
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
@@ -25,6 +26,27 @@ public class SearchRequest {
     private String sortBy;
     private String sortOrder = "desc";
     
+    /**
+     * Curseur de pagination profonde : "*" pour la première page, puis le nextCursor
+     * de la réponse précédente. Quand il est renseigné, page est ignoré.
+     */
+    private String cursor;
+    
+    /**
+     * Profil de champs renvoyés : "full" (document complet) ou "summary" (sans content ni metadata).
+     */
+    private String profile;
+    
+    /** Champs du document à renvoyer ; prioritaires sur le profil. */
+    private List<String> sourceIncludes;
+    
+    /** Champs du document à ne pas renvoyer ; prioritaires sur le profil. */
+    private List<String> sourceExcludes;
+    
+    /** Facettes à calculer avec les résultats, renvoyées dans SearchResponse.aggregations. */
+    @Valid
+    private List<FacetSpec> facets;
+    
     // Constructors
     public SearchRequest() {}
     
@@ -32,6 +54,24 @@ public class SearchRequest {
         this.query = query;
     }
     
+    /**
+     * Copie superficielle, pour dériver une variante de la requête.
+     */
+    public SearchRequest(SearchRequest other) {
+        this.query = other.query;
+        this.fields = other.fields;
+        this.filters = other.filters;
+        this.page = other.page;
+        this.size = other.size;
+        this.sortBy = other.sortBy;
+        this.sortOrder = other.sortOrder;
+        this.cursor = other.cursor;
+        this.profile = other.profile;
+        this.sourceIncludes = other.sourceIncludes;
+        this.sourceExcludes = other.sourceExcludes;
+        this.facets = other.facets;
+    }
+    
     // Getters and Setters
     public String getQuery() { return query; }
     public void setQuery(String query) { this.query = query; }
@@ -53,4 +93,19 @@ public class SearchRequest {
     
     public String getSortOrder() { return sortOrder; }
     public void setSortOrder(String sortOrder) { this.sortOrder = sortOrder; }
+    
+    public String getCursor() { return cursor; }
+    public void setCursor(String cursor) { this.cursor = cursor; }
+    
+    public String getProfile() { return profile; }
+    public void setProfile(String profile) { this.profile = profile; }
+    
+    public List<String> getSourceIncludes() { return sourceIncludes; }
+    public void setSourceIncludes(List<String> sourceIncludes) { this.sourceIncludes = sourceIncludes; }
+    
+    public List<String> getSourceExcludes() { return sourceExcludes; }
+    public void setSourceExcludes(List<String> sourceExcludes) { this.sourceExcludes = sourceExcludes; }
+    
+    public List<FacetSpec> getFacets() { return facets; }
+    public void setFacets(List<FacetSpec> facets) { this.facets = facets; }
 }
\ No newline at end of file
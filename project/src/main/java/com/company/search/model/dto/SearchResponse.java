@@ -7,10 +7,13 @@ import java.util.Map;
 public class SearchResponse<T> {
     private List<T> results;
     private long totalHits;
+    private String totalHitsRelation = "eq";
     private int page;
     private int size;
     private long searchTime;
     private Map<String, Object> aggregations;
+    private String nextCursor;
+    private Boolean fuzzy;
     private Instant timestamp;
     
     public SearchResponse() {
@@ -25,6 +28,22 @@ public class SearchResponse<T> {
         this.timestamp = Instant.now();
     }
     
+    /**
+     * Copie superficielle, utilisée pour ne pas exposer une réponse partagée du cache.
+     */
+    public SearchResponse(SearchResponse<T> other) {
+        this.results = other.results;
+        this.totalHits = other.totalHits;
+        this.totalHitsRelation = other.totalHitsRelation;
+        this.page = other.page;
+        this.size = other.size;
+        this.searchTime = other.searchTime;
+        this.aggregations = other.aggregations;
+        this.nextCursor = other.nextCursor;
+        this.fuzzy = other.fuzzy;
+        this.timestamp = other.timestamp;
+    }
+    
     // Getters and Setters
     public List<T> getResults() { return results; }
     public void setResults(List<T> results) { this.results = results; }
@@ -32,6 +51,13 @@ public class SearchResponse<T> {
     public long getTotalHits() { return totalHits; }
     public void setTotalHits(long totalHits) { this.totalHits = totalHits; }
     
+    /**
+     * "eq" si totalHits est exact, "gte" s'il s'agit d'une borne inférieure
+     * (seuil elasticsearch.search.track-total-hits atteint ou comptage désactivé).
+     */
+    public String getTotalHitsRelation() { return totalHitsRelation; }
+    public void setTotalHitsRelation(String totalHitsRelation) { this.totalHitsRelation = totalHitsRelation; }
+    
     public int getPage() { return page; }
     public void setPage(int page) { this.page = page; }
     
@@ -44,6 +70,19 @@ public class SearchResponse<T> {
     public Map<String, Object> getAggregations() { return aggregations; }
     public void setAggregations(Map<String, Object> aggregations) { this.aggregations = aggregations; }
     
+    /**
+     * Curseur de la page suivante en pagination par curseur, null sur la dernière page.
+     */
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+    
+    /**
+     * Recherche en texte intégral : vrai si les résultats viennent de la variante floue,
+     * faux s'ils viennent de la requête exacte ; null pour les autres recherches.
+     */
+    public Boolean getFuzzy() { return fuzzy; }
+    public void setFuzzy(Boolean fuzzy) { this.fuzzy = fuzzy; }
+    
     public Instant getTimestamp() { return timestamp; }
     public void setTimestamp(Instant timestamp) { this.timestamp = timestamp; }
 }
\ No newline at end of file
@@ -0,0 +1,29 @@
+package com.company.search.model.dto;
+
+import java.util.List;
+
+/**
+ * Suggestions d'autocomplétion pour un préfixe saisi.
+ */
+public class SuggestResponse {
+    private String prefix;
+    private List<String> suggestions;
+    private long searchTime;
+    
+    public SuggestResponse() {}
+    
+    public SuggestResponse(String prefix, List<String> suggestions) {
+        this.prefix = prefix;
+        this.suggestions = suggestions;
+    }
+    
+    // Getters and Setters
+    public String getPrefix() { return prefix; }
+    public void setPrefix(String prefix) { this.prefix = prefix; }
+    
+    public List<String> getSuggestions() { return suggestions; }
+    public void setSuggestions(List<String> suggestions) { this.suggestions = suggestions; }
+    
+    public long getSearchTime() { return searchTime; }
+    public void setSearchTime(long searchTime) { this.searchTime = searchTime; }
+}
@@ -2,12 +2,13 @@ package com.company.search.repository;
 
 import com.company.search.model.SearchDocument;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Repository
 public class AsyncDataScyllaRepository {
@@ -15,47 +16,42 @@ public class AsyncDataScyllaRepository {
     @Autowired
     private DataScyllaRepository dataScyllaRepository;
 
-    @Async
+    // Pool dédié à Scylla plutôt que le ForkJoinPool commun
+    @Autowired
+    private RepositoryExecutors executors;
+
     public CompletableFuture<List<SearchDocument>> getAllDocuments(int limit) {
         return CompletableFuture.supplyAsync(() -> {
-            List<SearchDocument> allDocs = dataScyllaRepository.findAll();
-            // Limiter le nombre de documents si nécessaire
-            if (limit > 0 && allDocs.size() > limit) {
-                return allDocs.subList(0, limit);
+            // Lecture paginée : on s'arrête dès que la limite est atteinte
+            try (Stream<SearchDocument> documents = dataScyllaRepository.streamAll()) {
+                Stream<SearchDocument> limited = limit > 0 ? documents.limit(limit) : documents;
+                return limited.collect(Collectors.toList());
             }
-            return allDocs;
-        });
+        }, executors.scylla());
     }
 
-    @Async
     public CompletableFuture<List<SearchDocument>> getDocumentsByCategory(String category, int limit) {
         return CompletableFuture.supplyAsync(() -> {
-            List<SearchDocument> categoryDocs = dataScyllaRepository.findByCategory(category);
-            // Limiter le nombre de documents si nécessaire
-            if (limit > 0 && categoryDocs.size() > limit) {
-                return categoryDocs.subList(0, limit);
+            try (Stream<SearchDocument> documents = dataScyllaRepository.streamByCategory(category)) {
+                Stream<SearchDocument> limited = limit > 0 ? documents.limit(limit) : documents;
+                return limited.collect(Collectors.toList());
             }
-            return categoryDocs;
-        });
+        }, executors.scylla());
     }
 
-    @Async
     public CompletableFuture<Optional<SearchDocument>> getDocumentById(String id) {
-        return CompletableFuture.supplyAsync(() -> dataScyllaRepository.findById(id));
+        return CompletableFuture.supplyAsync(() -> dataScyllaRepository.findById(id), executors.scylla());
     }
 
-    @Async
     public CompletableFuture<Void> saveDocument(SearchDocument document) {
-        return CompletableFuture.runAsync(() -> dataScyllaRepository.save(document));
+        return CompletableFuture.runAsync(() -> dataScyllaRepository.save(document), executors.scylla());
     }
 
-    @Async
     public CompletableFuture<Void> updateDocument(SearchDocument document) {
-        return CompletableFuture.runAsync(() -> dataScyllaRepository.update(document));
+        return CompletableFuture.runAsync(() -> dataScyllaRepository.update(document), executors.scylla());
     }
 
-    @Async
     public CompletableFuture<Void> deleteDocument(String id) {
-        return CompletableFuture.runAsync(() -> dataScyllaRepository.deleteById(id));
+        return CompletableFuture.runAsync(() -> dataScyllaRepository.deleteById(id), executors.scylla());
     }
 }
\ No newline at end of file
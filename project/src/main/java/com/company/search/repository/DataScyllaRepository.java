@@ -1,7 +1,11 @@
 package com.company.search.repository;
 
+import com.company.search.model.DocumentChange.Operation;
 import com.company.search.model.SearchDocument;
 import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.BatchStatement;
+import com.datastax.oss.driver.api.core.cql.BoundStatement;
+import com.datastax.oss.driver.api.core.cql.DefaultBatchType;
 import com.datastax.oss.driver.api.core.cql.PreparedStatement;
 import com.datastax.oss.driver.api.core.cql.ResultSet;
 import com.datastax.oss.driver.api.core.cql.Row;
@@ -12,11 +16,14 @@ import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.DependsOn;
 import org.springframework.stereotype.Repository;
 
 import java.time.Instant;
 import java.util.*;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 
 @Repository
@@ -31,8 +38,20 @@ public class DataScyllaRepository {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private DocumentChangeRepository changeRepository;
+
+    @Autowired
+    private DocumentTombstoneRepository tombstoneRepository;
+
+    @Value("${scylla.scan.page-size:500}")
+    private int scanPageSize;
+
     private PreparedStatement insertStatement;
     private PreparedStatement selectByIdStatement;
+    private PreparedStatement selectByIdsStatement;
+    private PreparedStatement selectIdsStatement;
+    private PreparedStatement selectExistingIdsStatement;
     private PreparedStatement selectAllStatement;
     private PreparedStatement selectByCategoryStatement;
     private PreparedStatement updateStatement;
@@ -51,6 +70,18 @@ public class DataScyllaRepository {
                 "SELECT * FROM documents WHERE id = ?"
         );
 
+        this.selectByIdsStatement = cqlSession.prepare(
+                "SELECT * FROM documents WHERE id IN ?"
+        );
+
+        this.selectIdsStatement = cqlSession.prepare(
+                "SELECT id FROM documents"
+        );
+
+        this.selectExistingIdsStatement = cqlSession.prepare(
+                "SELECT id FROM documents WHERE id IN ?"
+        );
+
         this.selectAllStatement = cqlSession.prepare(
                 "SELECT * FROM documents"
         );
@@ -75,7 +106,7 @@ public class DataScyllaRepository {
         try {
             Map<String, String> metadataAsString = convertMetadataToStringMap(document.getMetadata());
 
-            cqlSession.execute(insertStatement.bind(
+            executeWithChange(insertStatement.bind(
                     document.getId(),
                     document.getTitle(),
                     document.getContent(),
@@ -84,7 +115,7 @@ public class DataScyllaRepository {
                     metadataAsString,
                     document.getCreatedAt(),
                     document.getUpdatedAt()
-            ));
+            ), document.getId(), Operation.UPSERT);
             logger.debug("Document saved successfully: {}", document.getId());
             return document; // AJOUTER cette ligne
         } catch (Exception e) {
@@ -123,6 +154,51 @@ public class DataScyllaRepository {
         }
     }
 
+    /**
+     * Lecture groupée par clé de partition ; les identifiants absents sont ignorés.
+     * Destinée à des lots de taille raisonnable (quelques centaines d'identifiants).
+     */
+    public List<SearchDocument> findByIds(Collection<String> ids) {
+        List<SearchDocument> documents = new ArrayList<>();
+        if (ids.isEmpty()) {
+            return documents;
+        }
+        try {
+            ResultSet resultSet = cqlSession.execute(selectByIdsStatement.bind(new ArrayList<>(ids)));
+
+            for (Row row : resultSet) {
+                documents.add(mapRowToDocument(row));
+            }
+            return documents;
+        } catch (Exception e) {
+            logger.error("Error finding documents by ids: {}", e.getMessage());
+            throw new RuntimeException("Failed to find documents", e);
+        }
+    }
+
+    /**
+     * Parmi les identifiants donnés, ceux qui existent dans la table, sans lire les documents.
+     */
+    public Set<String> findExistingIds(Collection<String> ids) {
+        Set<String> existing = new HashSet<>();
+        if (ids.isEmpty()) {
+            return existing;
+        }
+        try {
+            for (Row row : cqlSession.execute(selectExistingIdsStatement.bind(new ArrayList<>(ids)))) {
+                existing.add(row.getString("id"));
+            }
+            return existing;
+        } catch (Exception e) {
+            logger.error("Error checking document ids: {}", e.getMessage());
+            throw new RuntimeException("Failed to check document ids", e);
+        }
+    }
+
+    /**
+     * Charge toute la table en mémoire. Réservé aux petits volumes :
+     * pour les parcours complets, utiliser {@link #streamAll()}.
+     */
     public List<SearchDocument> findAll() {
         List<SearchDocument> documents = new ArrayList<>();
         try {
@@ -153,11 +229,56 @@ public class DataScyllaRepository {
         }
     }
 
+    /**
+     * Parcourt toute la table page par page (scylla.scan.page-size lignes à la fois).
+     * Le driver ne charge la page suivante que lorsque la précédente a été consommée :
+     * la mémoire utilisée ne dépend pas de la taille de la table.
+     *
+     * <p>Le Stream doit être consommé par un seul thread et fermé après usage
+     * (try-with-resources).</p>
+     */
+    public Stream<SearchDocument> streamAll() {
+        return stream(selectAllStatement.bind(), "all documents");
+    }
+
+    /**
+     * Parcours paginé des documents d'une catégorie, voir {@link #streamAll()}.
+     */
+    public Stream<SearchDocument> streamByCategory(String category) {
+        return stream(selectByCategoryStatement.bind(category), "documents by category");
+    }
+
+    /**
+     * Parcours paginé des seuls identifiants, voir {@link #streamAll()}.
+     */
+    public Stream<String> streamIds() {
+        try {
+            ResultSet resultSet = cqlSession.execute(selectIdsStatement.bind().setPageSize(scanPageSize));
+            return StreamSupport.stream(resultSet.spliterator(), false)
+                    .map(row -> row.getString("id"));
+        } catch (Exception e) {
+            logger.error("Error streaming document ids: {}", e.getMessage());
+            throw new RuntimeException("Failed to stream document ids", e);
+        }
+    }
+
+    private Stream<SearchDocument> stream(BoundStatement statement, String description) {
+        try {
+            ResultSet resultSet = cqlSession.execute(statement.setPageSize(scanPageSize));
+            logger.debug("Streaming {} with page size {}", description, scanPageSize);
+            return StreamSupport.stream(resultSet.spliterator(), false)
+                    .map(this::mapRowToDocument);
+        } catch (Exception e) {
+            logger.error("Error streaming {}: {}", description, e.getMessage());
+            throw new RuntimeException("Failed to stream documents", e);
+        }
+    }
+
     public void update(SearchDocument document) {
         try {
             Map<String, String> metadataAsString = convertMetadataToStringMap(document.getMetadata());
 
-            cqlSession.execute(updateStatement.bind(
+            executeWithChange(updateStatement.bind(
                     document.getTitle(),
                     document.getContent(),
                     document.getCategory(),
@@ -165,7 +286,7 @@ public class DataScyllaRepository {
                     metadataAsString,
                     document.getUpdatedAt(),
                     document.getId()
-            ));
+            ), document.getId(), Operation.UPSERT);
             logger.debug("Document updated successfully: {}", document.getId());
         } catch (Exception e) {
             logger.error("Error updating document: {}", e.getMessage());
@@ -175,7 +296,7 @@ public class DataScyllaRepository {
 
     public void deleteById(String id) {
         try {
-            cqlSession.execute(deleteStatement.bind(id));
+            executeWithChange(deleteStatement.bind(id), id, Operation.DELETE);
             logger.debug("Document deleted successfully: {}", id);
         } catch (Exception e) {
             logger.error("Error deleting document: {}", e.getMessage());
@@ -183,7 +304,25 @@ public class DataScyllaRepository {
         }
     }
 
-    private SearchDocument mapRowToDocument(Row row) {
+    /**
+     * Écrit le document et son entrée d'outbox dans un batch logged, plus sa pierre tombale
+     * pour une suppression.
+     * L'entrée est horodatée à l'écriture et non avec updatedAt, fourni par le client,
+     * qui pourrait tomber derrière la position du relais et ne jamais être relu.
+     */
+    private void executeWithChange(BoundStatement write, String id, Operation operation) {
+        Instant now = Instant.now();
+        BatchStatement batch = BatchStatement.newInstance(DefaultBatchType.LOGGED,
+                write,
+                changeRepository.bindRecordChange(id, operation, now));
+        if (operation == Operation.DELETE) {
+            batch = batch.add(tombstoneRepository.bindRecordTombstone(id, now));
+        }
+
+        cqlSession.execute(batch);
+    }
+
+    SearchDocument mapRowToDocument(Row row) {
         SearchDocument document = new SearchDocument();
         document.setId(row.getString("id"));
         document.setTitle(row.getString("title"));
@@ -0,0 +1,92 @@
+package com.company.search.repository;
+
+import com.company.search.model.DocumentChange;
+import com.company.search.model.DocumentChange.Operation;
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.BoundStatement;
+import com.datastax.oss.driver.api.core.cql.PreparedStatement;
+import com.datastax.oss.driver.api.core.cql.ResultSet;
+import com.datastax.oss.driver.api.core.cql.Row;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outbox des modifications de documents, partitionnée par bucket d'une heure.
+ *
+ * <p>Chaque écriture dans documents ajoute une ligne (bucket, changed_at, id, operation)
+ * dans le même batch logged que le document : si l'une des deux écritures est
+ * appliquée, l'autre le sera aussi. Un consommateur lit un bucket à partir de sa dernière position
+ * (changed_at, id) par une simple lecture de partition ordonnée, sans index secondaire
+ * ni parcours de la table documents.</p>
+ */
+@Repository
+@DependsOn("scyllaSchemaInitializer")
+public class DocumentChangeRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(DocumentChangeRepository.class);
+
+    public static final Duration BUCKET_SIZE = Duration.ofHours(1);
+
+    /** Durée de rétention des lignes (default_time_to_live de la table). */
+    public static final Duration RETENTION = Duration.ofDays(7);
+
+    @Autowired
+    private CqlSession cqlSession;
+
+    private PreparedStatement insertStatement;
+    private PreparedStatement selectAfterStatement;
+
+    @PostConstruct
+    public void init() {
+        this.insertStatement = cqlSession.prepare(
+                "INSERT INTO document_changes (bucket, changed_at, id, operation) VALUES (?, ?, ?, ?)"
+        );
+
+        this.selectAfterStatement = cqlSession.prepare(
+                "SELECT changed_at, id, operation FROM document_changes " +
+                        "WHERE bucket = ? AND (changed_at, id) > (?, ?) LIMIT ?"
+        );
+    }
+
+    public static Instant bucketOf(Instant instant) {
+        return instant.truncatedTo(ChronoUnit.HOURS);
+    }
+
+    /**
+     * Prépare l'entrée d'outbox d'une modification, à exécuter dans le même batch
+     * que l'écriture du document.
+     */
+    public BoundStatement bindRecordChange(String id, Operation operation, Instant changedAt) {
+        return insertStatement.bind(bucketOf(changedAt), changedAt, id, operation.name());
+    }
+
+    /**
+     * Lit les modifications d'un bucket strictement postérieures à la position (changedAt, id).
+     * Passer une chaîne vide comme id pour lire à partir de changedAt inclus.
+     */
+    public List<DocumentChange> findChangesAfter(Instant bucket, Instant changedAt, String id, int limit) {
+        List<DocumentChange> changes = new ArrayList<>();
+        try {
+            ResultSet resultSet = cqlSession.execute(selectAfterStatement.bind(bucket, changedAt, id, limit));
+            for (Row row : resultSet) {
+                String operation = row.getString("operation");
+                changes.add(new DocumentChange(row.getString("id"), row.getInstant("changed_at"),
+                        operation != null ? Operation.valueOf(operation) : Operation.UPSERT));
+            }
+            return changes;
+        } catch (Exception e) {
+            logger.error("Error reading changes of bucket {}: {}", bucket, e.getMessage());
+            throw new RuntimeException("Failed to read document changes", e);
+        }
+    }
+}
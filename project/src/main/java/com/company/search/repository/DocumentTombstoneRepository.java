@@ -0,0 +1,105 @@
+package com.company.search.repository;
+
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.BoundStatement;
+import com.datastax.oss.driver.api.core.cql.PreparedStatement;
+import com.datastax.oss.driver.api.core.cql.ResultSet;
+import com.datastax.oss.driver.api.core.cql.Row;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Pierres tombales des documents supprimés (table document_tombstones).
+ *
+ * <p>Une ligne est écrite dans le batch de la suppression, et seulement là : les écritures
+ * ordinaires n'y touchent pas, pour ne pas créer une pierre tombale Scylla par insertion
+ * que le parcours de {@link #streamIds()} devrait ensuite sauter. Un document recréé garde
+ * sa ligne jusqu'à expiration ; la réconciliation l'ignore car il existe dans la table
+ * documents. Les lignes expirent après {@link #RETENTION}, plus longtemps que l'outbox :
+ * la réconciliation peut ainsi rattraper une suppression que le relais n'a jamais vue.</p>
+ */
+@Repository
+@DependsOn("scyllaSchemaInitializer")
+public class DocumentTombstoneRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(DocumentTombstoneRepository.class);
+
+    /** Durée de rétention des lignes (default_time_to_live de la table). */
+    public static final Duration RETENTION = Duration.ofDays(30);
+
+    @Autowired
+    private CqlSession cqlSession;
+
+    @Value("${scylla.scan.page-size:500}")
+    private int scanPageSize;
+
+    private PreparedStatement insertStatement;
+    private PreparedStatement selectAllStatement;
+    private PreparedStatement selectByIdsStatement;
+
+    @PostConstruct
+    public void init() {
+        this.insertStatement = cqlSession.prepare(
+                "INSERT INTO document_tombstones (id, deleted_at) VALUES (?, ?) USING TTL " + RETENTION.toSeconds()
+        );
+
+        this.selectAllStatement = cqlSession.prepare(
+                "SELECT id FROM document_tombstones"
+        );
+
+        this.selectByIdsStatement = cqlSession.prepare(
+                "SELECT id FROM document_tombstones WHERE id IN ?"
+        );
+    }
+
+    public BoundStatement bindRecordTombstone(String id, Instant deletedAt) {
+        return insertStatement.bind(id, deletedAt);
+    }
+
+    /**
+     * Parcourt les identifiants supprimés page par page. Le Stream doit être fermé après usage.
+     */
+    public Stream<String> streamIds() {
+        try {
+            ResultSet resultSet = cqlSession.execute(selectAllStatement.bind().setPageSize(scanPageSize));
+            return StreamSupport.stream(resultSet.spliterator(), false)
+                    .map(row -> row.getString("id"));
+        } catch (Exception e) {
+            logger.error("Error streaming tombstones: {}", e.getMessage());
+            throw new RuntimeException("Failed to stream tombstones", e);
+        }
+    }
+
+    /**
+     * Parmi les identifiants donnés, ceux qui ont une pierre tombale.
+     */
+    public Set<String> findTombstonedIds(Collection<String> ids) {
+        Set<String> tombstoned = new HashSet<>();
+        if (ids.isEmpty()) {
+            return tombstoned;
+        }
+        try {
+            for (Row row : cqlSession.execute(selectByIdsStatement.bind(new ArrayList<>(ids)))) {
+                tombstoned.add(row.getString("id"));
+            }
+            return tombstoned;
+        } catch (Exception e) {
+            logger.error("Error reading tombstones: {}", e.getMessage());
+            throw new RuntimeException("Failed to read tombstones", e);
+        }
+    }
+}
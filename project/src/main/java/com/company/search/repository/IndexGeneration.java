@@ -0,0 +1,56 @@
+package com.company.search.repository;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Compteur de génération de l'index servi par l'alias "documents".
+ *
+ * <p>{@link SearchElasticsearchRepository} l'incrémente à chaque écriture visible par les
+ * recherches (indexation, suppression, bascule d'alias). Les caches de résultats l'incluent
+ * dans leurs clés : une écriture rend les entrées précédentes inaccessibles.</p>
+ *
+ * <p>Le compteur est propre à l'instance. Pour voir les écritures des autres instances,
+ * {@link SearchElasticsearchRepository#pollIndexGeneration()} relève toutes les
+ * search.cache.generation-poll-ms l'état de l'index derrière l'alias (nom, opérations
+ * d'indexation et de suppression) et le passe à {@link #observe(String)} ; une écriture
+ * faite ailleurs invalide les caches au plus tard au relevé suivant.</p>
+ */
+@Component
+public class IndexGeneration {
+
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicReference<String> observedState = new AtomicReference<>();
+    private volatile long lastBumpMillis;
+
+    public long current() {
+        return generation.get();
+    }
+
+    public void bump() {
+        lastBumpMillis = System.currentTimeMillis();
+        generation.incrementAndGet();
+    }
+
+    /**
+     * Enregistre l'état relevé de l'index et incrémente la génération s'il a changé
+     * depuis le relevé précédent.
+     *
+     * @return true si la génération a été incrémentée
+     */
+    public boolean observe(String state) {
+        String previous = observedState.getAndSet(state);
+        if (previous != null && !previous.equals(state)) {
+            bump();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Instant de la dernière écriture ; elle n'est visible qu'après le prochain refresh.
+     */
+    public long getLastBumpMillis() { return lastBumpMillis; }
+}
@@ -0,0 +1,118 @@
+package com.company.search.repository;
+
+import com.company.search.model.IndexingCheckpoint;
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.PreparedStatement;
+import com.datastax.oss.driver.api.core.cql.Row;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+/**
+ * Positions des consommateurs du journal des modifications (table indexing_checkpoints).
+ *
+ * <p>Une position n'est jamais écrasée à l'aveugle : elle est créée par
+ * {@code INSERT ... IF NOT EXISTS} puis déplacée par une LWT conditionnée à la position lue.
+ * Un relais dont la position a été déplacée entre-temps (retour en arrière après une bascule
+ * d'index, autre instance) voit son écriture refusée au lieu d'annuler ce déplacement.</p>
+ */
+@Repository
+@DependsOn("scyllaSchemaInitializer")
+public class IndexingCheckpointRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(IndexingCheckpointRepository.class);
+
+    @Autowired
+    private CqlSession cqlSession;
+
+    private PreparedStatement selectStatement;
+    private PreparedStatement insertStatement;
+    private PreparedStatement updateIfStatement;
+
+    @PostConstruct
+    public void init() {
+        this.selectStatement = cqlSession.prepare(
+                "SELECT name, watermark, last_id, updated_at FROM indexing_checkpoints WHERE name = ?"
+        );
+
+        this.insertStatement = cqlSession.prepare(
+                "INSERT INTO indexing_checkpoints (name, watermark, last_id, updated_at) VALUES (?, ?, ?, ?) " +
+                        "IF NOT EXISTS"
+        );
+
+        this.updateIfStatement = cqlSession.prepare(
+                "UPDATE indexing_checkpoints SET watermark = ?, last_id = ?, updated_at = ? " +
+                        "WHERE name = ? IF watermark = ? AND last_id = ?"
+        );
+    }
+
+    public Optional<IndexingCheckpoint> findByName(String name) {
+        try {
+            Row row = cqlSession.execute(selectStatement.bind(name)).one();
+            if (row == null) {
+                return Optional.empty();
+            }
+
+            IndexingCheckpoint checkpoint = new IndexingCheckpoint();
+            checkpoint.setName(row.getString("name"));
+            checkpoint.setWatermark(row.getInstant("watermark"));
+            checkpoint.setLastId(row.getString("last_id"));
+            checkpoint.setUpdatedAt(row.getInstant("updated_at"));
+            return Optional.of(checkpoint);
+        } catch (Exception e) {
+            logger.error("Error reading checkpoint {}: {}", name, e.getMessage());
+            throw new RuntimeException("Failed to read indexing checkpoint", e);
+        }
+    }
+
+    /**
+     * Crée la position d'un consommateur qui n'en a pas encore.
+     *
+     * @return false si une position existe déjà
+     */
+    public boolean create(IndexingCheckpoint checkpoint) {
+        try {
+            boolean applied = cqlSession.execute(insertStatement.bind(
+                    checkpoint.getName(),
+                    checkpoint.getWatermark(),
+                    checkpoint.getLastId(),
+                    checkpoint.getUpdatedAt()
+            )).wasApplied();
+            logger.debug("Checkpoint {} created at ({}, {}): {}",
+                    checkpoint.getName(), checkpoint.getWatermark(), checkpoint.getLastId(), applied);
+            return applied;
+        } catch (Exception e) {
+            logger.error("Error saving checkpoint {}: {}", checkpoint.getName(), e.getMessage());
+            throw new RuntimeException("Failed to save indexing checkpoint", e);
+        }
+    }
+
+    /**
+     * Déplace la position si elle est toujours celle de {@code expected}.
+     *
+     * @return false si la position a été déplacée par un autre écrivain depuis sa lecture
+     */
+    public boolean saveIf(IndexingCheckpoint checkpoint, IndexingCheckpoint expected) {
+        try {
+            boolean applied = cqlSession.execute(updateIfStatement.bind(
+                    checkpoint.getWatermark(),
+                    checkpoint.getLastId(),
+                    checkpoint.getUpdatedAt(),
+                    checkpoint.getName(),
+                    expected.getWatermark(),
+                    expected.getLastId()
+            )).wasApplied();
+            logger.debug("Checkpoint {} saved at ({}, {}): {}",
+                    checkpoint.getName(), checkpoint.getWatermark(), checkpoint.getLastId(), applied);
+            return applied;
+        } catch (Exception e) {
+            logger.error("Error saving checkpoint {}: {}", checkpoint.getName(), e.getMessage());
+            throw new RuntimeException("Failed to save indexing checkpoint", e);
+        }
+    }
+}
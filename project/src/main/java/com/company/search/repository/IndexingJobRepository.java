@@ -0,0 +1,277 @@
+package com.company.search.repository;
+
+import com.company.search.model.IndexingJob;
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.PreparedStatement;
+import com.datastax.oss.driver.api.core.cql.Row;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Jobs d'indexation (table indexing_jobs). La table reste petite : les lignes
+ * expirent après 30 jours (default_time_to_live).
+ *
+ * <p>Une fois créé, un job n'est modifié que par des mises à jour conditionnelles
+ * (LWT {@code IF owner = ?}) : une instance qui a perdu le job ne peut plus écraser
+ * l'état écrit par celle qui l'a repris.</p>
+ *
+ * <p>La table indexing_locks réserve un type de job exclusif au job qui l'a verrouillé,
+ * par {@code INSERT ... IF NOT EXISTS} ; le verrou est rendu à la fin du job.</p>
+ */
+@Repository
+@DependsOn("scyllaSchemaInitializer")
+public class IndexingJobRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(IndexingJobRepository.class);
+
+    @Autowired
+    private CqlSession cqlSession;
+
+    private PreparedStatement upsertStatement;
+    private PreparedStatement updateIfOwnerStatement;
+    private PreparedStatement heartbeatStatement;
+    private PreparedStatement selectByIdStatement;
+    private PreparedStatement selectAllStatement;
+    private PreparedStatement lockStatement;
+    private PreparedStatement replaceLockStatement;
+    private PreparedStatement unlockStatement;
+
+    @PostConstruct
+    public void init() {
+        this.upsertStatement = cqlSession.prepare(
+                "INSERT INTO indexing_jobs (id, type, status, category, target_index, total_ranges, " +
+                        "completed_ranges, source_documents, documents_indexed, documents_failed, bytes_sent, attempts, " +
+                        "started_at, updated_at, finished_at, error, owner, heartbeat_at) " +
+                        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)"
+        );
+
+        this.updateIfOwnerStatement = cqlSession.prepare(
+                "UPDATE indexing_jobs SET type = ?, status = ?, category = ?, target_index = ?, total_ranges = ?, " +
+                        "completed_ranges = ?, source_documents = ?, documents_indexed = ?, documents_failed = ?, " +
+                        "bytes_sent = ?, attempts = ?, started_at = ?, updated_at = ?, finished_at = ?, error = ?, " +
+                        "owner = ?, heartbeat_at = ? WHERE id = ? IF owner = ?"
+        );
+
+        this.heartbeatStatement = cqlSession.prepare(
+                "UPDATE indexing_jobs SET heartbeat_at = ? WHERE id = ? IF owner = ?"
+        );
+
+        this.selectByIdStatement = cqlSession.prepare(
+                "SELECT * FROM indexing_jobs WHERE id = ?"
+        );
+
+        this.selectAllStatement = cqlSession.prepare(
+                "SELECT * FROM indexing_jobs"
+        );
+
+        this.lockStatement = cqlSession.prepare(
+                "INSERT INTO indexing_locks (name, job_id, locked_at) VALUES (?, ?, ?) IF NOT EXISTS"
+        );
+
+        this.replaceLockStatement = cqlSession.prepare(
+                "UPDATE indexing_locks SET job_id = ?, locked_at = ? WHERE name = ? IF job_id = ?"
+        );
+
+        this.unlockStatement = cqlSession.prepare(
+                "DELETE FROM indexing_locks WHERE name = ? IF job_id = ?"
+        );
+    }
+
+    /**
+     * Écriture inconditionnelle, réservée à la création d'un job.
+     */
+    public void save(IndexingJob job) {
+        try {
+            cqlSession.execute(upsertStatement.bind(
+                    job.getId(),
+                    job.getType().name(),
+                    job.getStatus().name(),
+                    job.getCategory(),
+                    job.getTargetIndex(),
+                    job.getTotalRanges(),
+                    job.getCompletedRanges(),
+                    job.getSourceDocuments(),
+                    job.getDocumentsIndexed(),
+                    job.getDocumentsFailed(),
+                    job.getBytesSent(),
+                    job.getAttempts(),
+                    job.getStartedAt(),
+                    job.getUpdatedAt(),
+                    job.getFinishedAt(),
+                    job.getError(),
+                    job.getOwner(),
+                    job.getHeartbeatAt()
+            ));
+        } catch (Exception e) {
+            logger.error("Error saving indexing job {}: {}", job.getId(), e.getMessage());
+            throw new RuntimeException("Failed to save indexing job", e);
+        }
+    }
+
+    /**
+     * Enregistre le job s'il appartient toujours à {@code expectedOwner} (null pour un job
+     * antérieur au suivi des propriétaires). Sert aussi à s'emparer d'un job : {@code job}
+     * porte alors le nouveau propriétaire.
+     *
+     * @return false si un autre propriétaire est enregistré
+     */
+    public boolean saveIfOwner(IndexingJob job, String expectedOwner) {
+        try {
+            return cqlSession.execute(updateIfOwnerStatement.bind(
+                    job.getType().name(),
+                    job.getStatus().name(),
+                    job.getCategory(),
+                    job.getTargetIndex(),
+                    job.getTotalRanges(),
+                    job.getCompletedRanges(),
+                    job.getSourceDocuments(),
+                    job.getDocumentsIndexed(),
+                    job.getDocumentsFailed(),
+                    job.getBytesSent(),
+                    job.getAttempts(),
+                    job.getStartedAt(),
+                    job.getUpdatedAt(),
+                    job.getFinishedAt(),
+                    job.getError(),
+                    job.getOwner(),
+                    job.getHeartbeatAt(),
+                    job.getId(),
+                    expectedOwner
+            )).wasApplied();
+        } catch (Exception e) {
+            logger.error("Error saving indexing job {}: {}", job.getId(), e.getMessage());
+            throw new RuntimeException("Failed to save indexing job", e);
+        }
+    }
+
+    /**
+     * Renouvelle le heartbeat d'un job.
+     *
+     * @return false si le job appartient désormais à une autre instance
+     */
+    public boolean heartbeat(String id, String owner, Instant at) {
+        try {
+            return cqlSession.execute(heartbeatStatement.bind(at, id, owner)).wasApplied();
+        } catch (Exception e) {
+            logger.error("Error renewing heartbeat of indexing job {}: {}", id, e.getMessage());
+            throw new RuntimeException("Failed to renew indexing job heartbeat", e);
+        }
+    }
+
+    /**
+     * Verrouille {@code name} pour le job {@code jobId} s'il est libre.
+     *
+     * @return Le verrou en place : celui de {@code jobId} s'il a été posé, sinon celui du job détenteur
+     */
+    public Lock lock(String name, String jobId, Instant at) {
+        try {
+            Row row = cqlSession.execute(lockStatement.bind(name, jobId, at)).one();
+            if (row == null || row.getBoolean("[applied]")) {
+                return new Lock(jobId, at);
+            }
+            return new Lock(row.getString("job_id"), row.getInstant("locked_at"));
+        } catch (Exception e) {
+            logger.error("Error locking {} for indexing job {}: {}", name, jobId, e.getMessage());
+            throw new RuntimeException("Failed to lock " + name, e);
+        }
+    }
+
+    /**
+     * Transfère à {@code jobId} un verrou abandonné par {@code previousJobId}.
+     *
+     * @return false si le verrou a changé de détenteur entre-temps
+     */
+    public boolean replaceLock(String name, String previousJobId, String jobId, Instant at) {
+        try {
+            return cqlSession.execute(replaceLockStatement.bind(jobId, at, name, previousJobId)).wasApplied();
+        } catch (Exception e) {
+            logger.error("Error locking {} for indexing job {}: {}", name, jobId, e.getMessage());
+            throw new RuntimeException("Failed to lock " + name, e);
+        }
+    }
+
+    /**
+     * Libère le verrou s'il appartient toujours à {@code jobId}.
+     */
+    public void unlock(String name, String jobId) {
+        try {
+            cqlSession.execute(unlockStatement.bind(name, jobId));
+        } catch (Exception e) {
+            logger.error("Error unlocking {} for indexing job {}: {}", name, jobId, e.getMessage());
+            throw new RuntimeException("Failed to unlock " + name, e);
+        }
+    }
+
+    public Optional<IndexingJob> findById(String id) {
+        try {
+            Row row = cqlSession.execute(selectByIdStatement.bind(id)).one();
+            return Optional.ofNullable(row).map(this::mapRowToJob);
+        } catch (Exception e) {
+            logger.error("Error reading indexing job {}: {}", id, e.getMessage());
+            throw new RuntimeException("Failed to read indexing job", e);
+        }
+    }
+
+    public List<IndexingJob> findAll() {
+        List<IndexingJob> jobs = new ArrayList<>();
+        try {
+            for (Row row : cqlSession.execute(selectAllStatement.bind())) {
+                jobs.add(mapRowToJob(row));
+            }
+            return jobs;
+        } catch (Exception e) {
+            logger.error("Error reading indexing jobs: {}", e.getMessage());
+            throw new RuntimeException("Failed to read indexing jobs", e);
+        }
+    }
+
+    private IndexingJob mapRowToJob(Row row) {
+        IndexingJob job = new IndexingJob();
+        job.setId(row.getString("id"));
+        job.setType(IndexingJob.Type.valueOf(row.getString("type")));
+        job.setStatus(IndexingJob.Status.valueOf(row.getString("status")));
+        job.setCategory(row.getString("category"));
+        job.setTargetIndex(row.getString("target_index"));
+        job.setTotalRanges(row.getInt("total_ranges"));
+        job.setCompletedRanges(new HashSet<>(row.getSet("completed_ranges", Integer.class)));
+        job.setSourceDocuments(row.getLong("source_documents"));
+        job.setDocumentsIndexed(row.getLong("documents_indexed"));
+        job.setDocumentsFailed(row.getLong("documents_failed"));
+        job.setBytesSent(row.getLong("bytes_sent"));
+        job.setAttempts(row.getInt("attempts"));
+        job.setStartedAt(row.getInstant("started_at"));
+        job.setUpdatedAt(row.getInstant("updated_at"));
+        job.setFinishedAt(row.getInstant("finished_at"));
+        job.setError(row.getString("error"));
+        job.setOwner(row.getString("owner"));
+        job.setHeartbeatAt(row.getInstant("heartbeat_at"));
+        return job;
+    }
+
+    /**
+     * Détenteur d'un verrou de indexing_locks.
+     */
+    public static class Lock {
+        private final String jobId;
+        private final Instant lockedAt;
+
+        public Lock(String jobId, Instant lockedAt) {
+            this.jobId = jobId;
+            this.lockedAt = lockedAt;
+        }
+
+        public String getJobId() { return jobId; }
+
+        public Instant getLockedAt() { return lockedAt; }
+    }
+}
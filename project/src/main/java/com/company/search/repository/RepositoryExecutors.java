@@ -0,0 +1,129 @@
+package com.company.search.repository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Pools de threads dédiés aux appels bloquants des repositories, un par backend.
+ *
+ * <p>Les appels Scylla et la conversion des réponses Elasticsearch (le client asynchrone
+ * n'occupe pas de thread pendant l'aller-retour réseau) ne passent plus par le ForkJoinPool
+ * commun, dimensionné sur le nombre de CPU et partagé avec les parallel streams. Chaque pool
+ * a un nombre de threads et une file bornés : quand la file est pleine, la tâche est refusée
+ * ({@link RejectedExecutionException}, réponse 503) au lieu d'attendre sans limite.
+ * Métriques : executor.* (tag name = repository.elasticsearch, repository.scylla,
+ * scylla.scan, search.export ou indexing.jobs) et executor.rejected.</p>
+ *
+ * <p>Les lectures parallèles longues ont leur pool : les intervalles de tokens d'un parcours
+ * Scylla ({@link TokenRangeScanner}) et les tranches d'un export
+ * ({@link SearchRepository#streamMatches}). Un parcours ou un export y soumet au plus son
+ * parallélisme en tâches, quel que soit le nombre d'intervalles ou de tranches.</p>
+ *
+ * <p>Les jobs d'indexation (réindexation complète, indexation d'une catégorie), qui durent
+ * des heures, ont leur propre petit pool. Ses threads, comme ceux des parcours Scylla qu'ils
+ * consomment, sont des démons et ces pools ne sont pas arrêtés avec le contexte : un job coupé
+ * par l'arrêt de l'application reste RUNNING et sera repris, au lieu d'être interrompu puis
+ * marqué FAILED.</p>
+ *
+ * <p>Les pools ne sont pas exposés comme beans {@link Executor} pour ne pas remplacer
+ * l'executor par défaut de Spring Boot.</p>
+ */
+@Component
+public class RepositoryExecutors {
+
+    private static final Logger logger = LoggerFactory.getLogger(RepositoryExecutors.class);
+
+    private final ThreadPoolTaskExecutor elasticsearch;
+    private final ThreadPoolTaskExecutor scylla;
+    private final ThreadPoolTaskExecutor scan;
+    private final ThreadPoolTaskExecutor export;
+    private final ThreadPoolTaskExecutor jobs;
+
+    @Autowired
+    public RepositoryExecutors(MeterRegistry meterRegistry,
+                               @Value("${executors.elasticsearch.threads:16}") int elasticsearchThreads,
+                               @Value("${executors.elasticsearch.queue-capacity:200}") int elasticsearchQueueCapacity,
+                               @Value("${executors.scylla.threads:8}") int scyllaThreads,
+                               @Value("${executors.scylla.queue-capacity:200}") int scyllaQueueCapacity,
+                               @Value("${executors.scan.threads:8}") int scanThreads,
+                               @Value("${executors.scan.queue-capacity:32}") int scanQueueCapacity,
+                               @Value("${executors.export.threads:16}") int exportThreads,
+                               @Value("${executors.export.queue-capacity:16}") int exportQueueCapacity,
+                               @Value("${executors.jobs.threads:2}") int jobsThreads,
+                               @Value("${executors.jobs.queue-capacity:8}") int jobsQueueCapacity) {
+        this.elasticsearch = create("repository.elasticsearch", "EsSearch-",
+                elasticsearchThreads, elasticsearchQueueCapacity, false, meterRegistry);
+        this.scylla = create("repository.scylla", "Scylla-",
+                scyllaThreads, scyllaQueueCapacity, false, meterRegistry);
+        this.scan = create("scylla.scan", "ScyllaScan-",
+                scanThreads, scanQueueCapacity, true, meterRegistry);
+        this.export = create("search.export", "SearchExport-",
+                exportThreads, exportQueueCapacity, false, meterRegistry);
+        this.jobs = create("indexing.jobs", "IndexingJob-",
+                jobsThreads, jobsQueueCapacity, true, meterRegistry);
+
+        logger.info("Repository executors configured: elasticsearch={} threads/{} queued, scylla={} threads/{} queued, " +
+                        "scan={} threads/{} queued, export={} threads/{} queued, jobs={} threads/{} queued",
+                elasticsearchThreads, elasticsearchQueueCapacity, scyllaThreads, scyllaQueueCapacity,
+                scanThreads, scanQueueCapacity, exportThreads, exportQueueCapacity,
+                jobsThreads, jobsQueueCapacity);
+    }
+
+    private static ThreadPoolTaskExecutor create(String name, String threadPrefix, int threads, int queueCapacity,
+                                                 boolean daemon, MeterRegistry meterRegistry) {
+        Counter rejected = Counter.builder("executor.rejected")
+                .tag("name", name)
+                .description("Tâches refusées, file pleine")
+                .register(meterRegistry);
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix(threadPrefix);
+        executor.setDaemon(daemon);
+        executor.setRejectedExecutionHandler((task, pool) -> {
+            rejected.increment();
+            throw new RejectedExecutionException(name + " executor saturated: " + pool.getQueue().size()
+                    + " tasks queued, " + pool.getActiveCount() + " active");
+        });
+        executor.initialize();
+
+        // executor.queued, executor.active, executor.pool.size, executor.completed...
+        ExecutorServiceMetrics.monitor(meterRegistry, executor.getThreadPoolExecutor(), name);
+        return executor;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        elasticsearch.shutdown();
+        scylla.shutdown();
+        export.shutdown();
+    }
+
+    /** Conversion des réponses de recherche Elasticsearch. */
+    public Executor elasticsearch() { return elasticsearch; }
+
+    /** Lectures et écritures Scylla. */
+    public Executor scylla() { return scylla; }
+
+    /** Lecture des intervalles de tokens d'un parcours complet de Scylla. */
+    public Executor scan() { return scan; }
+
+    /** Lecture des tranches d'un export Elasticsearch. */
+    public Executor export() { return export; }
+
+    /** Jobs d'indexation longs, voir la description de la classe. */
+    public Executor jobs() { return jobs; }
+}
@@ -1,25 +1,39 @@
 package com.company.search.repository;
 
 import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.Conflicts;
+import co.elastic.clients.elasticsearch._types.FieldValue;
 import co.elastic.clients.elasticsearch._types.Result;
+import co.elastic.clients.elasticsearch._types.mapping.Property;
 import co.elastic.clients.elasticsearch.core.*;
+import co.elastic.clients.elasticsearch.core.bulk.BulkResponseItem;
+import co.elastic.clients.elasticsearch.core.mget.MultiGetResponseItem;
 import co.elastic.clients.elasticsearch.core.search.Hit;
 import co.elastic.clients.elasticsearch.indices.CreateIndexRequest;
 import co.elastic.clients.elasticsearch.indices.DeleteIndexRequest;
 import co.elastic.clients.elasticsearch.indices.ExistsRequest;
+import co.elastic.clients.elasticsearch.indices.IndicesStatsResponse;
+import co.elastic.clients.elasticsearch.indices.get_mapping.IndexMappingRecord;
+import co.elastic.clients.elasticsearch.indices.stats.IndexStats;
+import co.elastic.clients.util.BinaryData;
+import co.elastic.clients.util.ContentType;
+import co.elastic.clients.util.ObjectBuilder;
 import com.company.search.model.SearchDocument;
+import com.company.search.model.dto.BulkIndexResult;
+import com.company.search.model.dto.DocumentSource;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Repository;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
-import java.util.Optional;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 @Repository
 public class SearchElasticsearchRepository {
@@ -32,53 +46,78 @@ public class SearchElasticsearchRepository {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private IndexGeneration indexGeneration;
+
+    /**
+     * Alias de lecture et d'écriture. Il pointe toujours vers un seul index physique :
+     * soit l'index historique {@code indexName}, soit une version {@code indexName_v{n}}.
+     */
+    public static final String ALIAS_NAME = "documents";
+
+    private static final String VERSION_SEPARATOR = "_v";
+
+    private static final String POINT_IN_TIME_KEEP_ALIVE = "1m";
+
     @Value("${elasticsearch.index.name:search_documents}")
     private String indexName;
 
-    public void createIndex() {
+    @Value("${elasticsearch.index.shards:1}")
+    private String numberOfShards;
+
+    @Value("${elasticsearch.index.replicas:0}")
+    private String numberOfReplicas;
+
+    @Value("${elasticsearch.index.retained-versions:1}")
+    private int retainedVersions;
+
+    /**
+     * Relève l'état de l'index servi par l'alias pour {@link IndexGeneration} : nom de l'index
+     * physique et nombre d'indexations et de suppressions sur les shards primaires, qui
+     * changent à chaque écriture, quelle que soit l'instance qui l'a faite.
+     */
+    @Scheduled(fixedDelayString = "${search.cache.generation-poll-ms:1000}")
+    public void pollIndexGeneration() {
         try {
-            boolean exists = elasticsearchClient.indices()
-                    .exists(ExistsRequest.of(e -> e.index(indexName)))
-                    .value();
+            IndicesStatsResponse stats = elasticsearchClient.indices().stats(s -> s
+                    .index(ALIAS_NAME)
+                    .metric("indexing"));
+
+            StringBuilder state = new StringBuilder();
+            new TreeMap<>(stats.indices()).forEach((index, indexStats) -> {
+                IndexStats primaries = indexStats.primaries();
+                state.append(index).append(':');
+                if (primaries != null && primaries.indexing() != null) {
+                    state.append(primaries.indexing().indexTotal()).append(':')
+                            .append(primaries.indexing().deleteTotal());
+                }
+                state.append(';');
+            });
 
-            if (!exists) {
-                CreateIndexRequest request = CreateIndexRequest.of(i -> i
-                        .index(indexName)
-                        .mappings(m -> m
-                                .properties("title", p -> p
-                                        .text(t -> t
-                                                .analyzer("standard")
-                                                .fields("keyword", f -> f.keyword(k -> k.ignoreAbove(256)))
-                                        )
-                                )
-                                .properties("content", p -> p
-                                        .text(t -> t.analyzer("standard"))
-                                )
-                                .properties("category", p -> p
-                                        .keyword(k -> k.ignoreAbove(256))
-                                )
-                                .properties("author", p -> p
-                                        .text(t -> t
-                                                .fields("keyword", f -> f.keyword(k -> k.ignoreAbove(256)))
-                                        )
-                                )
-                                .properties("createdAt", p -> p
-                                        .date(d -> d.format("strict_date_optional_time||epoch_millis"))
-                                )
-                                .properties("updatedAt", p -> p
-                                        .date(d -> d.format("strict_date_optional_time||epoch_millis"))
-                                )
-                        )
-                        .settings(s -> s
-                                .numberOfShards("1")
-                                .numberOfReplicas("0")
-                        )
-                );
+            if (indexGeneration.observe(state.toString())) {
+                logger.debug("Index '{}' changed ({}), cached results invalidated", ALIAS_NAME, state);
+            }
+        } catch (Exception e) {
+            logger.warn("Could not read stats of index '{}': {}", ALIAS_NAME, e.getMessage());
+        }
+    }
+
+    /**
+     * S'assure qu'un index physique existe derrière l'alias. Un déploiement existant
+     * garde son index historique {@code indexName} ; sinon la version 1 est créée.
+     */
+    public void createIndex() {
+        try {
+            if (aliasExists() || concreteIndexExists(indexName)) {
+                logger.info("Index for alias '{}' already exists", ALIAS_NAME);
+                return;
+            }
 
-                elasticsearchClient.indices().create(request);
-                logger.info("Index '{}' created successfully", indexName);
+            List<String> versions = listVersionedIndices();
+            if (versions.isEmpty()) {
+                createPhysicalIndex(versionedName(1), false);
             } else {
-                logger.info("Index '{}' already exists", indexName);
+                logger.info("Index '{}' already exists", versions.get(versions.size() - 1));
             }
         } catch (IOException e) {
             logger.error("Error creating index: {}", e.getMessage());
@@ -86,6 +125,274 @@ public class SearchElasticsearchRepository {
         }
     }
 
+    /**
+     * Crée la version suivante de l'index, non reliée à l'alias.
+     * Elle est configurée pour le chargement massif (pas de refresh, pas de réplica)
+     * jusqu'à l'appel de {@link #finalizeBulkLoad(String)}.
+     *
+     * @return Le nom de l'index physique créé
+     */
+    public String createNextIndexVersion() {
+        try {
+            List<String> versions = listVersionedIndices();
+            int nextVersion = versions.isEmpty() ? 1 : versionOf(versions.get(versions.size() - 1)) + 1;
+            String name = versionedName(nextVersion);
+            createPhysicalIndex(name, true);
+            return name;
+        } catch (IOException e) {
+            logger.error("Error creating next index version: {}", e.getMessage());
+            throw new RuntimeException("Failed to create index version", e);
+        }
+    }
+
+    /**
+     * Rétablit les réglages de service d'un index chargé en masse puis le rafraîchit.
+     */
+    public void finalizeBulkLoad(String physicalIndex) {
+        try {
+            elasticsearchClient.indices().putSettings(p -> p
+                    .index(physicalIndex)
+                    .settings(s -> s
+                            .refreshInterval(t -> t.time("1s"))
+                            .numberOfReplicas(numberOfReplicas)
+                    )
+            );
+            elasticsearchClient.indices().refresh(r -> r.index(physicalIndex));
+            logger.info("Index '{}' switched back to serving settings", physicalIndex);
+        } catch (IOException e) {
+            logger.error("Error finalizing index {}: {}", physicalIndex, e.getMessage());
+            throw new RuntimeException("Failed to finalize index", e);
+        }
+    }
+
+    public boolean indexExists(String physicalIndex) {
+        try {
+            return concreteIndexExists(physicalIndex);
+        } catch (IOException e) {
+            logger.error("Error checking index {}: {}", physicalIndex, e.getMessage());
+            throw new RuntimeException("Failed to check index", e);
+        }
+    }
+
+    public long countDocuments(String physicalIndex) {
+        try {
+            return elasticsearchClient.count(c -> c.index(physicalIndex)).count();
+        } catch (IOException e) {
+            logger.error("Error counting documents of {}: {}", physicalIndex, e.getMessage());
+            throw new RuntimeException("Failed to count documents", e);
+        }
+    }
+
+    /**
+     * Bascule atomiquement l'alias vers l'index donné : les recherches passent
+     * de l'ancien au nouvel index sans instant où l'alias est vide.
+     */
+    public void swapAlias(String physicalIndex) {
+        try {
+            Set<String> currentTargets = aliasTargets();
+
+            elasticsearchClient.indices().updateAliases(u -> {
+                for (String target : currentTargets) {
+                    if (!target.equals(physicalIndex)) {
+                        u.actions(a -> a.remove(r -> r.index(target).alias(ALIAS_NAME)));
+                    }
+                }
+                return u.actions(a -> a.add(ad -> ad.index(physicalIndex).alias(ALIAS_NAME)));
+            });
+            indexGeneration.bump();
+
+            logger.info("Alias '{}' moved from {} to '{}'", ALIAS_NAME, currentTargets, physicalIndex);
+        } catch (IOException e) {
+            logger.error("Error swapping alias to {}: {}", physicalIndex, e.getMessage());
+            throw new RuntimeException("Failed to swap index alias", e);
+        }
+    }
+
+    /**
+     * Supprime les anciennes versions non reliées à l'alias en gardant les
+     * {@code elasticsearch.index.retained-versions} plus récentes pour un éventuel retour arrière.
+     * L'index historique compte comme la version 0.
+     */
+    public void deleteOldIndexVersions() {
+        try {
+            Set<String> live = aliasTargets();
+            List<String> candidates = new ArrayList<>();
+            if (concreteIndexExists(indexName)) {
+                candidates.add(indexName);
+            }
+            candidates.addAll(listVersionedIndices());
+            candidates.removeAll(live);
+
+            int toDelete = candidates.size() - retainedVersions;
+            for (int i = 0; i < toDelete; i++) {
+                deleteIndex(candidates.get(i));
+            }
+        } catch (IOException e) {
+            logger.error("Error deleting old index versions: {}", e.getMessage());
+            throw new RuntimeException("Failed to delete old index versions", e);
+        }
+    }
+
+    public void deleteIndex(String physicalIndex) {
+        try {
+            if (aliasTargets().contains(physicalIndex)) {
+                throw new IllegalStateException("Refusing to delete index '" + physicalIndex
+                        + "' which is behind alias '" + ALIAS_NAME + "'");
+            }
+            elasticsearchClient.indices().delete(DeleteIndexRequest.of(d -> d.index(physicalIndex)));
+            logger.info("Index '{}' deleted successfully", physicalIndex);
+        } catch (IOException e) {
+            logger.error("Error deleting index {}: {}", physicalIndex, e.getMessage());
+            throw new RuntimeException("Failed to delete index", e);
+        }
+    }
+
+    private void createPhysicalIndex(String name, boolean bulkLoad) throws IOException {
+        CreateIndexRequest request = CreateIndexRequest.of(i -> i
+                .index(name)
+                .mappings(m -> m
+                        .properties("title", SearchElasticsearchRepository::titleMapping)
+                        .properties("content", p -> p
+                                .text(t -> t.analyzer("standard"))
+                        )
+                        .properties("category", p -> p
+                                .keyword(k -> k.ignoreAbove(256))
+                        )
+                        .properties("author", SearchElasticsearchRepository::authorMapping)
+                        .properties("createdAt", p -> p
+                                .date(d -> d.format("strict_date_optional_time||epoch_millis"))
+                        )
+                        .properties("updatedAt", p -> p
+                                .date(d -> d.format("strict_date_optional_time||epoch_millis"))
+                        )
+                )
+                .settings(s -> {
+                    s.numberOfShards(numberOfShards);
+                    if (bulkLoad) {
+                        // Chargement massif : ni refresh ni réplication avant la fin du remplissage
+                        s.numberOfReplicas("0").refreshInterval(t -> t.time("-1"));
+                    } else {
+                        s.numberOfReplicas(numberOfReplicas);
+                    }
+                    return s;
+                })
+        );
+
+        elasticsearchClient.indices().create(request);
+        logger.info("Index '{}' created successfully", name);
+    }
+
+    private static ObjectBuilder<Property> titleMapping(Property.Builder p) {
+        return p.text(t -> t
+                .analyzer("standard")
+                .fields("keyword", f -> f.keyword(k -> k.ignoreAbove(256)))
+                // Autocomplétion (completion suggester), voir SuggestService
+                .fields("suggest", f -> f.completion(c -> c))
+                // Recherche de sous-chaîne (*terme*), voir QueryRewriter
+                .fields("substring", f -> f.wildcard(w -> w))
+        );
+    }
+
+    private static ObjectBuilder<Property> authorMapping(Property.Builder p) {
+        return p.text(t -> t
+                .fields("keyword", f -> f.keyword(k -> k.ignoreAbove(256)))
+                .fields("substring", f -> f.wildcard(w -> w))
+        );
+    }
+
+    /**
+     * Ajoute à l'index derrière l'alias les sous-champs apparus après sa création
+     * (title.suggest, title.substring, author.substring). Un index créé avant eux ferait
+     * échouer l'autocomplétion. Les documents existants ne les alimentent qu'une fois
+     * réécrits : une mise à jour par requête est lancée en tâche de fond.
+     */
+    public void updateMapping() {
+        try {
+            for (Map.Entry<String, IndexMappingRecord> entry : elasticsearchClient.indices()
+                    .getMapping(g -> g.index(ALIAS_NAME))
+                    .result()
+                    .entrySet()) {
+                String physicalIndex = entry.getKey();
+                Map<String, Property> properties = entry.getValue().mappings().properties();
+                if (hasSubFields(properties.get("title"), "suggest", "substring")
+                        && hasSubFields(properties.get("author"), "substring")) {
+                    logger.info("Mapping of index '{}' is up to date", physicalIndex);
+                    continue;
+                }
+
+                elasticsearchClient.indices().putMapping(m -> m
+                        .index(physicalIndex)
+                        .properties("title", SearchElasticsearchRepository::titleMapping)
+                        .properties("author", SearchElasticsearchRepository::authorMapping)
+                );
+                // Réécrit chaque document en place pour alimenter les nouveaux sous-champs
+                UpdateByQueryResponse response = elasticsearchClient.updateByQuery(u -> u
+                        .index(physicalIndex)
+                        .conflicts(Conflicts.Proceed)
+                        .waitForCompletion(false)
+                );
+                logger.info("Added missing sub-fields to index '{}', backfill running as task {}",
+                        physicalIndex, response.task());
+            }
+        } catch (IOException e) {
+            logger.error("Error updating index mapping: {}", e.getMessage());
+            throw new RuntimeException("Failed to update index mapping", e);
+        }
+    }
+
+    private static boolean hasSubFields(Property property, String... names) {
+        if (property == null || !property.isText()) {
+            return false;
+        }
+        return property.text().fields().keySet().containsAll(Arrays.asList(names));
+    }
+
+    private boolean aliasExists() throws IOException {
+        return elasticsearchClient.indices()
+                .existsAlias(e -> e.name(ALIAS_NAME))
+                .value();
+    }
+
+    private Set<String> aliasTargets() throws IOException {
+        if (!aliasExists()) {
+            return Collections.emptySet();
+        }
+        return new HashSet<>(elasticsearchClient.indices()
+                .getAlias(a -> a.name(ALIAS_NAME))
+                .result()
+                .keySet());
+    }
+
+    private boolean concreteIndexExists(String name) throws IOException {
+        return elasticsearchClient.indices()
+                .get(g -> g.index(name).ignoreUnavailable(true).allowNoIndices(true))
+                .result()
+                .containsKey(name);
+    }
+
+    /**
+     * Versions existantes triées par numéro croissant.
+     */
+    private List<String> listVersionedIndices() throws IOException {
+        String prefix = indexName + VERSION_SEPARATOR;
+        return elasticsearchClient.indices()
+                .get(g -> g.index(prefix + "*").allowNoIndices(true))
+                .result()
+                .keySet()
+                .stream()
+                .filter(name -> name.substring(prefix.length()).matches("\\d+"))
+                .sorted(Comparator.comparingInt(this::versionOf))
+                .collect(Collectors.toList());
+    }
+
+    private String versionedName(int version) {
+        return indexName + VERSION_SEPARATOR + version;
+    }
+
+    private int versionOf(String physicalIndex) {
+        return Integer.parseInt(physicalIndex.substring(physicalIndex.lastIndexOf(VERSION_SEPARATOR) + 2));
+    }
+
     public void deleteIndex() {
         try {
             boolean exists = elasticsearchClient.indices()
@@ -111,12 +418,13 @@ public class SearchElasticsearchRepository {
                       document.getId(), document.getCreatedAt(), document.getUpdatedAt());
             
             IndexRequest<SearchDocument> request = IndexRequest.of(i -> i
-                    .index(indexName)
+                    .index(ALIAS_NAME)
                     .id(document.getId())
                     .document(document)
             );
 
             IndexResponse response = elasticsearchClient.index(request);
+            indexGeneration.bump();
 
             if (response.result() == Result.Created || response.result() == Result.Updated) {
                 logger.debug("Document {} indexed successfully", document.getId());
@@ -130,10 +438,208 @@ public class SearchElasticsearchRepository {
         }
     }
 
+    /**
+     * Indexe et supprime un lot de documents en une seule requête _bulk.
+     * Les sources sont déjà sérialisées et envoyées sans nouvelle conversion.
+     * Le succès ou l'échec est compté par élément : une requête acceptée peut
+     * contenir des éléments rejetés (429) ou invalides. La suppression d'un document
+     * absent de l'index compte comme un succès.
+     */
+    public BulkIndexResult bulkIndex(String targetIndex, List<DocumentSource> sources, List<String> deleteIds) {
+        int items = sources.size() + deleteIds.size();
+        if (items == 0) {
+            return new BulkIndexResult();
+        }
+
+        try {
+            BulkRequest.Builder builder = new BulkRequest.Builder();
+            for (DocumentSource source : sources) {
+                BinaryData json = BinaryData.of(source.getJson(), ContentType.APPLICATION_JSON);
+                builder.operations(op -> op
+                        .index(i -> i
+                                .index(targetIndex)
+                                .id(source.getId())
+                                .document(json)
+                        )
+                );
+            }
+            for (String id : deleteIds) {
+                builder.operations(op -> op
+                        .delete(d -> d
+                                .index(targetIndex)
+                                .id(id)
+                        )
+                );
+            }
+
+            BulkResponse response = elasticsearchClient.bulk(builder.build());
+            if (ALIAS_NAME.equals(targetIndex)) {
+                // Les chargements vers un nouvel index ne deviennent visibles qu'à la bascule d'alias
+                indexGeneration.bump();
+            }
+
+            int succeeded = 0;
+            int failed = 0;
+            int rejected = 0;
+            List<String> failedIds = new ArrayList<>();
+            List<String> rejectedIds = new ArrayList<>();
+
+            for (BulkResponseItem item : response.items()) {
+                if (item.error() == null) {
+                    succeeded++;
+                } else {
+                    failed++;
+                    failedIds.add(item.id());
+                    if (item.status() == 429) {
+                        rejected++;
+                        rejectedIds.add(item.id());
+                    }
+                    logger.debug("Bulk item {} failed with status {}: {}",
+                            item.id(), item.status(), item.error().reason());
+                }
+            }
+
+            if (failed > 0) {
+                logger.warn("Bulk request to '{}' completed with {} failures out of {} items ({} rejected)",
+                        targetIndex, failed, items, rejected);
+            } else {
+                logger.debug("Bulk request to '{}' applied {} operations in {}ms",
+                        targetIndex, succeeded, response.took());
+            }
+
+            BulkIndexResult result = new BulkIndexResult(succeeded, failed, rejected, response.took(), failedIds);
+            result.setRejectedIds(rejectedIds);
+            return result;
+
+        } catch (IOException e) {
+            logger.error("Error executing bulk request of {} operations: {}", items, e.getMessage());
+            throw new RuntimeException("Failed to execute bulk request", e);
+        }
+    }
+
+    /**
+     * Parmi les identifiants donnés, ceux qui sont présents dans l'index, sans lire les sources.
+     */
+    public Set<String> findExistingIds(Collection<String> ids) {
+        Set<String> existing = new HashSet<>();
+        if (ids.isEmpty()) {
+            return existing;
+        }
+        try {
+            MgetResponse<SearchDocument> response = elasticsearchClient.mget(m -> m
+                    .index(ALIAS_NAME)
+                    .ids(new ArrayList<>(ids))
+                    .source(s -> s.fetch(false)),
+                    SearchDocument.class);
+
+            for (MultiGetResponseItem<SearchDocument> item : response.docs()) {
+                if (item.isResult() && item.result().found()) {
+                    existing.add(item.result().id());
+                }
+            }
+            return existing;
+        } catch (IOException e) {
+            logger.error("Error checking indexed ids: {}", e.getMessage());
+            throw new RuntimeException("Failed to check indexed ids", e);
+        }
+    }
+
+    /**
+     * Parcourt tous les identifiants de l'index par pages de {@code pageSize}, à travers
+     * un point-in-time et search_after : la vue est figée au début du parcours et seule
+     * la page courante est en mémoire. Le Stream doit être fermé pour libérer le point-in-time.
+     */
+    public Stream<String> streamIds(int pageSize) {
+        try {
+            String pitId = elasticsearchClient.openPointInTime(o -> o
+                    .index(ALIAS_NAME)
+                    .keepAlive(t -> t.time(POINT_IN_TIME_KEEP_ALIVE))
+            ).id();
+
+            IdPageIterator iterator = new IdPageIterator(pitId, pageSize);
+            return StreamSupport.stream(
+                            Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL),
+                            false)
+                    .onClose(iterator::close);
+        } catch (IOException e) {
+            logger.error("Error opening point in time on {}: {}", ALIAS_NAME, e.getMessage());
+            throw new RuntimeException("Failed to stream indexed ids", e);
+        }
+    }
+
+    private class IdPageIterator implements Iterator<String> {
+        private final int pageSize;
+        private String pitId;
+        private List<FieldValue> searchAfter;
+        private Iterator<String> page = Collections.emptyIterator();
+        private boolean exhausted;
+
+        IdPageIterator(String pitId, int pageSize) {
+            this.pitId = pitId;
+            this.pageSize = pageSize;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (!page.hasNext() && !exhausted) {
+                fetchNextPage();
+            }
+            return page.hasNext();
+        }
+
+        @Override
+        public String next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return page.next();
+        }
+
+        private void fetchNextPage() {
+            try {
+                SearchResponse<Void> response = elasticsearchClient.search(s -> {
+                    s.pit(p -> p.id(pitId).keepAlive(t -> t.time(POINT_IN_TIME_KEEP_ALIVE)))
+                            .size(pageSize)
+                            .source(src -> src.fetch(false))
+                            .trackTotalHits(t -> t.enabled(false))
+                            .sort(so -> so.field(f -> f.field("_shard_doc")));
+                    if (searchAfter != null) {
+                        s.searchAfter(searchAfter);
+                    }
+                    return s;
+                }, Void.class);
+
+                if (response.pitId() != null) {
+                    pitId = response.pitId();
+                }
+
+                List<Hit<Void>> hits = response.hits().hits();
+                if (hits.size() < pageSize) {
+                    exhausted = true;
+                }
+                if (!hits.isEmpty()) {
+                    searchAfter = hits.get(hits.size() - 1).sort();
+                }
+                page = hits.stream().map(Hit::id).iterator();
+            } catch (IOException e) {
+                logger.error("Error reading indexed ids page: {}", e.getMessage());
+                throw new RuntimeException("Failed to stream indexed ids", e);
+            }
+        }
+
+        void close() {
+            try {
+                elasticsearchClient.closePointInTime(c -> c.id(pitId));
+            } catch (IOException e) {
+                logger.warn("Could not close point in time: {}", e.getMessage());
+            }
+        }
+    }
+
     public Optional<SearchDocument> getDocumentById(String id) {
         try {
             GetRequest request = GetRequest.of(g -> g
-                    .index(indexName)
+                    .index(ALIAS_NAME)
                     .id(id)
             );
 
@@ -152,11 +658,12 @@ public class SearchElasticsearchRepository {
     public void deleteDocument(String id) {
         try {
             DeleteRequest request = DeleteRequest.of(d -> d
-                    .index(indexName)
+                    .index(ALIAS_NAME)
                     .id(id)
             );
 
             DeleteResponse response = elasticsearchClient.delete(request);
+            indexGeneration.bump();
 
             if (response.result() == Result.Deleted) {
                 logger.debug("Document {} deleted successfully", id);
@@ -172,7 +679,7 @@ public class SearchElasticsearchRepository {
     public List<SearchDocument> search(String query, int size) {
         try {
             SearchRequest request = SearchRequest.of(s -> s
-                    .index(indexName)
+                    .index(ALIAS_NAME)
                     .query(q -> q
                             .multiMatch(m -> m
                                     .query(query)
@@ -204,7 +711,7 @@ public class SearchElasticsearchRepository {
     public List<SearchDocument> searchByCategory(String category, int size) {
         try {
             SearchRequest request = SearchRequest.of(s -> s
-                    .index(indexName)
+                    .index(ALIAS_NAME)
                     .query(q -> q
                             .term(t -> t
                                     .field("category")
@@ -235,7 +742,7 @@ public class SearchElasticsearchRepository {
     public List<SearchDocument> advancedSearch(Map<String, String> criteria, int size) {
         try {
             SearchRequest.Builder requestBuilder = new SearchRequest.Builder()
-                    .index(indexName)
+                    .index(ALIAS_NAME)
                     .size(size);
 
             // Construction de la requête bool
@@ -305,29 +812,27 @@ public class SearchElasticsearchRepository {
     }
 
     /**
-     * Creates an alias from the hardcoded index name to the configured index name.
-     * This ensures that the search repository can continue using the hardcoded name
-     * while the actual data is stored in the configured index.
+     * Creates the "documents" alias used by the search repository if it does not exist yet.
+     * It points to the legacy index when there is one, otherwise to the latest index version.
      */
     public void createIndexAlias() {
         try {
-            // First, ensure the configured index exists
+            // First, ensure a physical index exists
             createIndex();
-            
-            // Check if the alias already exists
-            boolean aliasExists = elasticsearchClient.indices()
-                .existsAlias(e -> e.name("documents"))
-                .value();
-                
-            if (!aliasExists) {
-                // Create the alias from "documents" to the configured index name
+
+            if (!aliasExists()) {
+                List<String> versions = listVersionedIndices();
+                String target = concreteIndexExists(indexName) || versions.isEmpty()
+                        ? indexName
+                        : versions.get(versions.size() - 1);
+
                 elasticsearchClient.indices().putAlias(a -> a
-                    .index(indexName)
-                    .name("documents")
+                    .index(target)
+                    .name(ALIAS_NAME)
                 );
-                logger.info("Created alias 'documents' pointing to index '{}'", indexName);
+                logger.info("Created alias '{}' pointing to index '{}'", ALIAS_NAME, target);
             } else {
-                logger.info("Alias 'documents' already exists");
+                logger.info("Alias '{}' already exists", ALIAS_NAME);
             }
         } catch (IOException e) {
             logger.error("Error creating index alias: {}", e.getMessage());
@@ -1,25 +1,72 @@
 package com.company.search.repository;
 
+import co.elastic.clients.elasticsearch.ElasticsearchAsyncClient;
 import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.ErrorResponse;
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import co.elastic.clients.elasticsearch._types.SortOptions;
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregate;
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregation;
+import co.elastic.clients.elasticsearch._types.aggregations.CalendarInterval;
 import co.elastic.clients.elasticsearch.core.*;
+import co.elastic.clients.elasticsearch.core.msearch.MultiSearchResponseItem;
+import co.elastic.clients.elasticsearch.core.msearch.MultisearchBody;
+import co.elastic.clients.elasticsearch.core.search.Highlight;
+import co.elastic.clients.elasticsearch.core.search.CompletionSuggestOption;
 import co.elastic.clients.elasticsearch.core.search.Hit;
+import co.elastic.clients.elasticsearch.core.search.ResponseBody;
+import co.elastic.clients.elasticsearch.core.search.SourceConfig;
+import co.elastic.clients.elasticsearch.core.search.Suggestion;
+import co.elastic.clients.elasticsearch.core.search.TotalHits;
+import co.elastic.clients.elasticsearch.core.search.TotalHitsRelation;
+import co.elastic.clients.elasticsearch.core.search.TrackHits;
 import co.elastic.clients.elasticsearch._types.query_dsl.Query;
 import co.elastic.clients.json.JsonData;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.company.search.model.SearchDocument;
+import com.company.search.model.dto.BatchSearchResponse;
+import com.company.search.model.dto.FacetBucket;
+import com.company.search.model.dto.FacetSpec;
 import com.company.search.model.dto.SearchRequest;
+import com.company.search.model.dto.SearchResponse;
 import com.company.search.model.dto.SearchResult;
+import com.company.search.util.QueryRewriter;
+import com.company.search.util.SearchUtil;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.convert.DurationStyle;
 import org.springframework.stereotype.Repository;
 
 import java.io.IOException;
 import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.ArrayList;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 @Repository
 public class SearchRepository {
@@ -27,212 +74,382 @@ public class SearchRepository {
     private static final Logger logger = LoggerFactory.getLogger(SearchRepository.class);
     private final ElasticsearchClient client;
     
-    public SearchRepository(ElasticsearchClient client) {
+    /**
+     * Client non bloquant des recherches : une requête en vol occupe une connexion HTTP,
+     * pas un thread. Le client bloquant ne sert plus qu'à l'export, dont les lecteurs
+     * attendent le consommateur.
+     */
+    private final ElasticsearchAsyncClient asyncClient;
+    
+    /** Les réponses sont converties sur ce pool plutôt que sur les threads I/O du client HTTP. */
+    private final RepositoryExecutors executors;
+    
+    /**
+     * Politique de comptage des résultats : "true" (total exact), "false" (pas de total)
+     * ou un seuil au-delà duquel le total est une borne inférieure.
+     */
+    @Value("${elasticsearch.search.track-total-hits:10000}")
+    private String trackTotalHitsSetting;
+    
+    private TrackHits trackTotalHits;
+    
+    /** Durée de vie du point-in-time d'un curseur entre deux pages. */
+    @Value("${elasticsearch.search.cursor-keep-alive:2m}")
+    private String cursorKeepAlive;
+    
+    /** Champs renvoyés par le profil "summary". */
+    @Value("${elasticsearch.search.source.summary-fields:id,title,author,category,createdAt,updatedAt}")
+    private String summaryFieldsSetting;
+    
+    private List<String> summaryFields;
+    
+    /** Champs sur lesquels une facette "terms" est autorisée (type keyword). */
+    @Value("${elasticsearch.search.facets.terms-fields:category,author.keyword}")
+    private String facetTermsFieldsSetting;
+    
+    /** Champs sur lesquels une facette "date_histogram" est autorisée. */
+    @Value("${elasticsearch.search.facets.date-fields:createdAt,updatedAt}")
+    private String facetDateFieldsSetting;
+    
+    private List<String> facetTermsFields;
+    
+    private List<String> facetDateFields;
+    
+    /** Champs texte ayant un sous-champ "keyword", cible des requêtes term/terms sur ces champs. */
+    @Value("${elasticsearch.search.keyword-subfields:title,author}")
+    private String keywordSubfieldsSetting;
+    
+    /**
+     * Champs texte ayant un sous-champ "substring" de type wildcard, cible des recherches *terme*.
+     * Vide par défaut : sur un index créé avant ce sous-champ, la recherche y trouverait 0 résultat.
+     */
+    @Value("${elasticsearch.search.substring-subfields:}")
+    private String substringSubfieldsSetting;
+    
+    private List<String> substringFields;
+    
+    /**
+     * Marge accordée à un lot au-delà de son délai avant de l'abandonner côté client : le
+     * timeout d'Elasticsearch n'est vérifié que pendant la collecte des shards et ne borne ni
+     * la file d'attente, ni le réseau, ni la fusion des résultats.
+     */
+    @Value("${elasticsearch.search.batch-timeout-grace-ms:500}")
+    private long batchTimeoutGraceMs;
+    
+    private QueryRewriter queryRewriter;
+    
+    /** Profil appliqué quand la requête n'en précise pas. */
+    @Value("${elasticsearch.search.source.default-profile:full}")
+    private String defaultProfile;
+    
+    public static final String PROFILE_FULL = "full";
+    public static final String PROFILE_SUMMARY = "summary";
+    
+    /** Champs interrogés par {@link #prefixSearch(String, int)}. */
+    public static final List<String> PREFIX_SEARCH_FIELDS = List.of("title", "author");
+    
+    /** Valeur de curseur qui ouvre un nouveau point-in-time pour la première page. */
+    public static final String START_CURSOR = "*";
+    
+    private static final ObjectMapper CURSOR_MAPPER = new ObjectMapper();
+    
+    private static final Object END_OF_EXPORT = new Object();
+    
+    public SearchRepository(ElasticsearchClient client, ElasticsearchAsyncClient asyncClient,
+                            RepositoryExecutors executors) {
         this.client = client;
+        this.asyncClient = asyncClient;
+        this.executors = executors;
     }
     
-    public CompletableFuture<List<SearchResult>> search(SearchRequest searchRequest) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                int from = searchRequest.getPage() * searchRequest.getSize();
-                
-                co.elastic.clients.elasticsearch.core.SearchRequest.Builder requestBuilder = 
-                    new co.elastic.clients.elasticsearch.core.SearchRequest.Builder()
-                        .index("documents")
-                        .from(from)
-                        .size(searchRequest.getSize());
-                
-                // Construction de la requête
-                if (searchRequest.getFields() != null && !searchRequest.getFields().isEmpty()) {
-                    requestBuilder.query(q -> q
-                        .multiMatch(m -> m
-                            .query(searchRequest.getQuery())
-                            .fields(searchRequest.getFields())
-                        )
-                    );
-                } else {
-                    requestBuilder.query(q -> q
-                        .queryString(qs -> qs
-                            .query(searchRequest.getQuery())
-                        )
-                    );
-                }
-                
-                // Ajout du tri si spécifié
-                if (searchRequest.getSortBy() != null) {
-                    requestBuilder.sort(s -> s
-                        .field(f -> f
-                            .field(searchRequest.getSortBy())
-                            .order("asc".equalsIgnoreCase(searchRequest.getSortOrder()) ? 
-                                co.elastic.clients.elasticsearch._types.SortOrder.Asc : 
-                                co.elastic.clients.elasticsearch._types.SortOrder.Desc)
-                        )
-                    );
-                }
-                
-                // Ajout du highlighting
-                requestBuilder.highlight(h -> h
-                    .fields("title", hf -> hf)
-                    .fields("content", hf -> hf)
-                    .preTags("<strong>")
-                    .postTags("</strong>")
-                );
-                
-                co.elastic.clients.elasticsearch.core.SearchResponse<SearchDocument> response = 
-                    client.search(requestBuilder.build(), SearchDocument.class);
-                
-                return response.hits().hits().stream()
-                    .map(this::mapHitToSearchResult)
-                    .collect(Collectors.toList());
-                    
-            } catch (IOException e) {
-                throw new RuntimeException("Failed to search documents", e);
-            }
-        });
+    @PostConstruct
+    public void init() {
+        this.trackTotalHits = parseTrackTotalHits(trackTotalHitsSetting);
+        this.summaryFields = splitFields(summaryFieldsSetting);
+        this.facetTermsFields = splitFields(facetTermsFieldsSetting);
+        this.facetDateFields = splitFields(facetDateFieldsSetting);
+        this.substringFields = splitFields(substringSubfieldsSetting);
+        this.queryRewriter = QueryRewriter.withSubfields(splitFields(keywordSubfieldsSetting), substringFields);
+        logger.info("Search track_total_hits policy: {}", trackTotalHitsSetting);
     }
     
-    public CompletableFuture<Long> count(String query) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                CountRequest request = CountRequest.of(c -> c
-                    .index("documents")
-                    .query(q -> q
-                        .queryString(qs -> qs.query(query))
-                    )
-                );
-                
-                CountResponse response = client.count(request);
-                return response.count();
-            } catch (IOException e) {
-                throw new RuntimeException("Failed to count documents", e);
+    private static TrackHits parseTrackTotalHits(String setting) {
+        String value = setting == null ? "" : setting.trim();
+        if ("true".equalsIgnoreCase(value) || "false".equalsIgnoreCase(value)) {
+            boolean enabled = Boolean.parseBoolean(value);
+            return TrackHits.of(t -> t.enabled(enabled));
+        }
+        try {
+            int threshold = Integer.parseInt(value);
+            if (threshold < 0) {
+                throw new IllegalArgumentException("track-total-hits must be >= 0: " + setting);
             }
-        });
+            return TrackHits.of(t -> t.count(threshold));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid elasticsearch.search.track-total-hits: " + setting, e);
+        }
     }
     
-    public CompletableFuture<List<SearchResult>> searchWithFilters(SearchRequest searchRequest) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                int from = searchRequest.getPage() * searchRequest.getSize();
-                
-                co.elastic.clients.elasticsearch.core.SearchRequest.Builder requestBuilder = 
-                    new co.elastic.clients.elasticsearch.core.SearchRequest.Builder()
-                        .index("documents")
-                        .from(from)
-                        .size(searchRequest.getSize());
-                
-                // Construction de la requête avec filtres
-                requestBuilder.query(q -> q
-                    .bool(b -> {
-                        // Requête principale
-                        b.must(m -> m
-                            .queryString(qs -> qs.query(searchRequest.getQuery()))
-                        );
-                        
-                        // Ajout des filtres
-                        if (searchRequest.getFilters() != null) {
-                            searchRequest.getFilters().forEach((field, value) -> {
-                                b.filter(f -> f
-                                    .term(t -> t.field(field).value(value.toString()))
-                                );
-                            });
-                        }
-                        
-                        return b;
-                    })
-                );
-                
-                co.elastic.clients.elasticsearch.core.SearchResponse<SearchDocument> response = 
-                    client.search(requestBuilder.build(), SearchDocument.class);
-                
-                return response.hits().hits().stream()
-                    .map(this::mapHitToSearchResult)
-                    .collect(Collectors.toList());
-                    
-            } catch (IOException e) {
-                throw new RuntimeException("Failed to search documents with filters", e);
+    private static List<String> splitFields(String setting) {
+        return Arrays.stream(setting.split(","))
+            .map(String::trim)
+            .filter(field -> !field.isEmpty())
+            .collect(Collectors.toList());
+    }
+    
+    public CompletableFuture<SearchResponse<SearchResult>> search(SearchRequest searchRequest) {
+        return wrapFailure(openCursor(searchRequest.getCursor()).thenCompose(cursorState -> {
+            co.elastic.clients.elasticsearch.core.SearchRequest.Builder requestBuilder = 
+                new co.elastic.clients.elasticsearch.core.SearchRequest.Builder();
+            applyPaging(requestBuilder, searchRequest.getPage(), searchRequest.getSize(), cursorState, searchRequest.getSortBy() != null);
+            applySourceFilter(requestBuilder, searchRequest);
+            applyFacets(requestBuilder, searchRequest);
+            
+            requestBuilder.query(buildQuery(searchRequest));
+            
+            // Ajout du tri si spécifié
+            List<SortOptions> sort = buildSort(searchRequest);
+            if (!sort.isEmpty()) {
+                requestBuilder.sort(sort);
             }
-        });
+            
+            requestBuilder.highlight(searchHighlight());
+            
+            return asyncClient.search(requestBuilder.build(), SearchDocument.class)
+                .thenApplyAsync(response -> toSearchResponse(response, searchRequest.getPage(),
+                    searchRequest.getSize(), cursorState), executors.elasticsearch());
+        }), "Failed to search documents");
+    }
+    
+    public CompletableFuture<SearchResponse<SearchResult>> searchWithFilters(SearchRequest searchRequest) {
+        return wrapFailure(openCursor(searchRequest.getCursor()).thenCompose(cursorState -> {
+            co.elastic.clients.elasticsearch.core.SearchRequest.Builder requestBuilder = 
+                new co.elastic.clients.elasticsearch.core.SearchRequest.Builder();
+            applyPaging(requestBuilder, searchRequest.getPage(), searchRequest.getSize(), cursorState, false);
+            applySourceFilter(requestBuilder, searchRequest);
+            applyFacets(requestBuilder, searchRequest);
+            
+            // Requête principale et filtres exacts en contexte de filtre
+            requestBuilder.query(buildQuery(searchRequest));
+            
+            return asyncClient.search(requestBuilder.build(), SearchDocument.class)
+                .thenApplyAsync(response -> toSearchResponse(response, searchRequest.getPage(),
+                    searchRequest.getSize(), cursorState), executors.elasticsearch());
+        }), "Failed to search documents with filters");
     }
 
     /**
-     * Recherche des documents ayant un contenu similaire à celui du texte fourni
-     * en utilisant un "more like this query" d'Elasticsearch.
+     * Exécute plusieurs recherches en un seul appel _msearch. Chaque recherche a sa propre
+     * réponse ou sa propre erreur ; une recherche invalide (profil inconnu, curseur) est
+     * refusée sans empêcher les autres.
      *
-     * @param text Le texte pour lequel trouver des documents similaires
-     * @param page Page de résultats à récupérer
-     * @param size Nombre de résultats par page
-     * @return Une liste de documents similaires
+     * @param searchRequests Les recherches, avec la même sémantique que {@link #search(SearchRequest)}
+     * @param timeoutMs Délai commun : une recherche qui l'atteint renvoie des résultats partiels.
+     *                  Sans réponse d'Elasticsearch après ce délai (plus batch-timeout-grace-ms),
+     *                  le lot est abandonné : les recherches déjà refusées gardent leur erreur,
+     *                  les autres sont renvoyées en 504 avec timedOut=true
+     * @return Un élément par recherche, dans l'ordre de la requête
      */
-    public CompletableFuture<List<SearchResult>> searchSimilarContent(String text, int page, int size) {
-        return CompletableFuture.supplyAsync(() -> {
+    public CompletableFuture<List<BatchSearchResponse.Item>> multiSearch(List<SearchRequest> searchRequests,
+                                                                        long timeoutMs) {
+        List<BatchSearchResponse.Item> items = new ArrayList<>(Collections.nCopies(searchRequests.size(), null));
+        List<Integer> positions = new ArrayList<>();
+        MsearchRequest.Builder requestBuilder = new MsearchRequest.Builder();
+        
+        for (int i = 0; i < searchRequests.size(); i++) {
             try {
-                int from = page * size;
-                
-                co.elastic.clients.elasticsearch.core.SearchRequest.Builder requestBuilder = 
-                    new co.elastic.clients.elasticsearch.core.SearchRequest.Builder()
-                        .index("documents")
-                        .from(from)
-                        .size(size)
-                        .query(q -> q
-                            .moreLikeThis(m -> m
-                                .fields("content")
-                                .like(l -> l.text(text))
-                                .minTermFreq(1)
-                                .maxQueryTerms(12)
-                                .minDocFreq(1)
-                            )
-                        )
-                        .highlight(h -> h
-                            .fields("content", hf -> hf)
-                            .preTags("<strong>")
-                            .postTags("</strong>")
-                            .fragmentSize(150)
-                            .numberOfFragments(3)
-                        );
-                
-                co.elastic.clients.elasticsearch.core.SearchResponse<SearchDocument> response = 
-                    client.search(requestBuilder.build(), SearchDocument.class);
+                MultisearchBody body = buildMultisearchBody(searchRequests.get(i), timeoutMs);
+                requestBuilder.searches(item -> item
+                    .header(h -> h.index("documents"))
+                    .body(body)
+                );
+                positions.add(i);
+            } catch (IllegalArgumentException e) {
+                items.set(i, BatchSearchResponse.Item.failure(400, e.getMessage()));
+            }
+        }
+        
+        if (positions.isEmpty()) {
+            return CompletableFuture.completedFuture(items);
+        }
+        
+        CompletableFuture<MsearchResponse<SearchDocument>> msearch =
+            asyncClient.msearch(requestBuilder.build(), SearchDocument.class);
+        CompletableFuture<List<BatchSearchResponse.Item>> results = msearch.thenApplyAsync(response -> {
+            List<BatchSearchResponse.Item> completed = new ArrayList<>(items);
+            for (int j = 0; j < positions.size(); j++) {
+                int position = positions.get(j);
+                SearchRequest searchRequest = searchRequests.get(position);
+                MultiSearchResponseItem<SearchDocument> item = response.responses().get(j);
                 
-                return response.hits().hits().stream()
-                    .map(this::mapHitToSearchResult)
-                    .collect(Collectors.toList());
-                    
-            } catch (IOException e) {
-                logger.error("Failed to search similar content: {}", e.getMessage(), e);
-                throw new RuntimeException("Failed to search similar content", e);
+                if (item.isResult()) {
+                    completed.set(position, BatchSearchResponse.Item.success(
+                        toSearchResponse(item.result(), searchRequest.getPage(), searchRequest.getSize()),
+                        item.result().timedOut()));
+                } else {
+                    ErrorResponse failure = item.failure();
+                    logger.warn("Search {} of batch failed: {}", position, failure.error().reason());
+                    completed.set(position, BatchSearchResponse.Item.failure(failure.status(), failure.error().reason()));
+                }
+            }
+            return completed;
+        }, executors.elasticsearch());
+        
+        // Le _msearch répond en une fois : à l'échéance, seules les recherches refusées sont connues
+        return wrapFailure(results.orTimeout(timeoutMs + batchTimeoutGraceMs, TimeUnit.MILLISECONDS).exceptionally(error -> {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null
+                ? error.getCause() : error;
+            if (!(cause instanceof TimeoutException)) {
+                throw error instanceof CompletionException ? (CompletionException) error : new CompletionException(error);
+            }
+            msearch.cancel(true);
+            logger.warn("Batch of {} searches timed out after {}ms", positions.size(), timeoutMs);
+            List<BatchSearchResponse.Item> partial = new ArrayList<>(items);
+            for (int position : positions) {
+                partial.set(position, BatchSearchResponse.Item.timedOut("Délai du lot dépassé (" + timeoutMs + "ms)"));
             }
+            return partial;
+        }), "Failed to execute multi search");
+    }
+    
+    private MultisearchBody buildMultisearchBody(SearchRequest searchRequest, long timeoutMs) {
+        if (searchRequest.getCursor() != null && !searchRequest.getCursor().isEmpty()) {
+            throw new IllegalArgumentException("La pagination par curseur n'est pas supportée dans un lot");
+        }
+        
+        Query query = buildQuery(searchRequest);
+        List<SortOptions> sort = buildSort(searchRequest);
+        SourceConfig source = sourceConfig(searchRequest);
+        Map<String, Aggregation> aggregations = buildAggregations(searchRequest.getFacets());
+        
+        return MultisearchBody.of(b -> {
+            b.query(query)
+                .from(searchRequest.getPage() * searchRequest.getSize())
+                .size(searchRequest.getSize())
+                .trackTotalHits(trackTotalHits)
+                .highlight(searchHighlight())
+                .timeout(timeoutMs + "ms");
+            if (!sort.isEmpty()) {
+                b.sort(sort);
+            }
+            if (source != null) {
+                b.source(source);
+            }
+            if (!aggregations.isEmpty()) {
+                b.aggregations(aggregations);
+            }
+            return b;
         });
     }
     
     /**
-     * Compte le nombre de documents ayant un contenu similaire à celui du texte fourni.
+     * Recherche à la saisie : tous les mots doivent figurer dans un même champ, titre ou auteur,
+     * le dernier pouvant être incomplet (multi_match bool_prefix, opérateur AND appliqué champ
+     * par champ). Les documents sont renvoyés avec les
+     * champs du profil "summary" et les champs interrogés, sans highlighting.
      *
-     * @param text Le texte pour lequel compter les documents similaires
-     * @return Le nombre de documents similaires
+     * @param text Texte saisi
+     * @param size Nombre de candidats renvoyés
+     * @return Les meilleurs candidats et leur nombre total
      */
-    public CompletableFuture<Long> countSimilarContent(String text) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                CountRequest request = CountRequest.of(c -> c
-                    .index("documents")
-                    .query(q -> q
-                        .moreLikeThis(m -> m
-                            .fields("content")
-                            .like(l -> l.text(text))
-                            .minTermFreq(1)
-                            .maxQueryTerms(12)
-                            .minDocFreq(1)
+    public CompletableFuture<SearchResponse<SearchResult>> prefixSearch(String text, int size) {
+        List<String> includes = new ArrayList<>(summaryFields);
+        PREFIX_SEARCH_FIELDS.stream().filter(field -> !includes.contains(field)).forEach(includes::add);
+        
+        co.elastic.clients.elasticsearch.core.SearchRequest request = 
+            co.elastic.clients.elasticsearch.core.SearchRequest.of(s -> s
+                .index("documents")
+                .size(size)
+                .trackTotalHits(trackTotalHits)
+                .source(sc -> sc.filter(f -> f.includes(includes)))
+                .query(q -> q
+                    .multiMatch(m -> m
+                        .query(text)
+                        .fields(PREFIX_SEARCH_FIELDS)
+                        .type(co.elastic.clients.elasticsearch._types.query_dsl.TextQueryType.BoolPrefix)
+                        .operator(co.elastic.clients.elasticsearch._types.query_dsl.Operator.And)
+                    )
+                )
+            );
+        
+        return wrapFailure(asyncClient.search(request, SearchDocument.class)
+            .thenApplyAsync(response -> toSearchResponse(response, 0, size), executors.elasticsearch()),
+            "Failed to execute prefix search");
+    }
+    
+    /**
+     * Titres commençant par le préfixe donné, via le completion suggester sur title.suggest.
+     * Aucun document n'est lu : seule la structure de suggestion en mémoire d'Elasticsearch est sollicitée.
+     *
+     * @param prefix Début du titre saisi
+     * @param size Nombre maximal de suggestions, sans doublons
+     * @return Les titres suggérés, par poids décroissant
+     */
+    public CompletableFuture<List<String>> suggestTitles(String prefix, int size) {
+        co.elastic.clients.elasticsearch.core.SearchRequest request = 
+            co.elastic.clients.elasticsearch.core.SearchRequest.of(s -> s
+                .index("documents")
+                .size(0)
+                .source(sc -> sc.fetch(false))
+                .suggest(su -> su
+                    .suggesters("title", fs -> fs
+                        .prefix(prefix)
+                        .completion(c -> c
+                            .field("title.suggest")
+                            .size(size)
+                            .skipDuplicates(true)
                         )
                     )
+                )
+            );
+        
+        return wrapFailure(asyncClient.search(request, SearchDocument.class).thenApplyAsync(response ->
+            response.suggest().getOrDefault("title", Collections.emptyList()).stream()
+                .filter(Suggestion::isCompletion)
+                .flatMap(suggestion -> suggestion.completion().options().stream())
+                .map(CompletionSuggestOption::text)
+                .collect(Collectors.toList()),
+            executors.elasticsearch()), "Failed to suggest titles");
+    }
+    
+    /**
+     * Recherche des documents ayant un contenu similaire à celui du texte fourni
+     * en utilisant un "more like this query" d'Elasticsearch.
+     *
+     * @param text Le texte pour lequel trouver des documents similaires
+     * @param page Page de résultats à récupérer
+     * @param size Nombre de résultats par page
+     * @return Les documents similaires et leur nombre total
+     */
+    public CompletableFuture<SearchResponse<SearchResult>> searchSimilarContent(String text, int page, int size) {
+        int from = page * size;
+        
+        co.elastic.clients.elasticsearch.core.SearchRequest.Builder requestBuilder = 
+            new co.elastic.clients.elasticsearch.core.SearchRequest.Builder()
+                .index("documents")
+                .from(from)
+                .size(size)
+                .trackTotalHits(trackTotalHits)
+                .query(q -> q
+                    .moreLikeThis(m -> m
+                        .fields("content")
+                        .like(l -> l.text(text))
+                        .minTermFreq(1)
+                        .maxQueryTerms(12)
+                        .minDocFreq(1)
+                    )
+                )
+                .highlight(h -> h
+                    .fields("content", hf -> hf)
+                    .preTags("<strong>")
+                    .postTags("</strong>")
+                    .fragmentSize(150)
+                    .numberOfFragments(3)
                 );
-                
-                CountResponse response = client.count(request);
-                return response.count();
-            } catch (IOException e) {
-                logger.error("Failed to count similar content: {}", e.getMessage(), e);
-                throw new RuntimeException("Failed to count similar content", e);
-            }
-        });
+        
+        return wrapFailure(asyncClient.search(requestBuilder.build(), SearchDocument.class)
+            .thenApplyAsync(response -> toSearchResponse(response, page, size), executors.elasticsearch()),
+            "Failed to search similar content");
     }
     
     /**
@@ -242,37 +459,33 @@ public class SearchRepository {
      * @param query La requête JSON DSL Elasticsearch sous forme de Map
      * @param page La page à récupérer
      * @param size Le nombre d'éléments par page
-     * @return Une liste de résultats de recherche
+     * @return Les résultats de la page et leur nombre total
      */
-    public CompletableFuture<List<SearchResult>> searchWithDSL(Map<String, Object> query, int page, int size) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                int from = page * size;
-                
-                // Conversion de la Map en JSON pour Elasticsearch
-                String queryJson = new ObjectMapper().writeValueAsString(query);
-                
-                // Création de la requête de recherche
-                co.elastic.clients.elasticsearch.core.SearchRequest searchRequest = 
-                    co.elastic.clients.elasticsearch.core.SearchRequest.of(s -> s
-                        .index("documents")
-                        .from(from)
-                        .size(size)
-                        .withJson(new StringReader(queryJson))
-                    );
-                
-                co.elastic.clients.elasticsearch.core.SearchResponse<SearchDocument> response = 
-                    client.search(searchRequest, SearchDocument.class);
-                
-                return response.hits().hits().stream()
-                    .map(this::mapHitToSearchResult)
-                    .collect(Collectors.toList());
-                    
-            } catch (IOException e) {
-                logger.error("Failed to execute DSL search: {}", e.getMessage(), e);
-                throw new RuntimeException("Failed to execute DSL search", e);
-            }
-        });
+    public CompletableFuture<SearchResponse<SearchResult>> searchWithDSL(Map<String, Object> query, int page, int size) {
+        int from = page * size;
+        
+        // Conversion de la Map en JSON pour Elasticsearch
+        String queryJson;
+        try {
+            queryJson = new ObjectMapper().writeValueAsString(query);
+        } catch (JsonProcessingException e) {
+            logger.error("Failed to execute DSL search: {}", e.getMessage(), e);
+            return CompletableFuture.failedFuture(new RuntimeException("Failed to execute DSL search", e));
+        }
+        
+        // Création de la requête de recherche
+        co.elastic.clients.elasticsearch.core.SearchRequest searchRequest = 
+            co.elastic.clients.elasticsearch.core.SearchRequest.of(s -> s
+                .index("documents")
+                .from(from)
+                .size(size)
+                .trackTotalHits(trackTotalHits)
+                .withJson(new StringReader(queryJson))
+            );
+        
+        return wrapFailure(asyncClient.search(searchRequest, SearchDocument.class)
+            .thenApplyAsync(response -> toSearchResponse(response, page, size), executors.elasticsearch()),
+            "Failed to execute DSL search");
     }
     
     /**
@@ -285,78 +498,66 @@ public class SearchRepository {
      * @param page La page à récupérer
      * @param size Le nombre d'éléments par page
      * @param fuzziness Niveau de tolérance aux fautes de frappe (0, 1, 2 ou "AUTO")
-     * @return Une liste de résultats de recherche
+     * @param cursor Curseur de pagination profonde, voir {@link #applyPaging}, ou null
+     * @return Les résultats de la page et leur nombre total
      */
-    public CompletableFuture<List<SearchResult>> fullTextSearch(String text, List<String> fields, 
+    public CompletableFuture<SearchResponse<SearchResult>> fullTextSearch(String text, List<String> fields, 
                                                              String matchType, int page, int size, 
-                                                             String fuzziness) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                int from = page * size;
-                
-                co.elastic.clients.elasticsearch.core.SearchRequest.Builder requestBuilder = 
-                    new co.elastic.clients.elasticsearch.core.SearchRequest.Builder()
-                        .index("documents")
-                        .from(from)
-                        .size(size);
+                                                             String fuzziness, String cursor) {
+        return wrapFailure(openCursor(cursor).thenCompose(cursorState -> {
+            co.elastic.clients.elasticsearch.core.SearchRequest.Builder requestBuilder = 
+                new co.elastic.clients.elasticsearch.core.SearchRequest.Builder();
+            applyPaging(requestBuilder, page, size, cursorState, false);
+            
+            // Construction de la requête selon le type de correspondance
+            switch(matchType.toLowerCase()) {
+                case "match":
+                    requestBuilder.query(q -> q
+                        .match(m -> m
+                            .field(fields.get(0))
+                            .query(text)
+                            .fuzziness(fuzziness)
+                        )
+                    );
+                    break;
+                case "match_phrase":
+                    requestBuilder.query(q -> q
+                        .matchPhrase(m -> m
+                            .field(fields.get(0))
+                            .query(text)
+                        )
+                    );
+                    break;
+                case "multi_match":
+                default:
+                    requestBuilder.query(q -> q
+                        .multiMatch(m -> m
+                            .fields(fields)
+                            .query(text)
+                            .fuzziness(fuzziness)
+                            .type(co.elastic.clients.elasticsearch._types.query_dsl.TextQueryType.BestFields)
+                        )
+                    );
+                    break;
+            }
+            
+            // Ajout du highlighting
+            requestBuilder.highlight(h -> {
+                h.preTags("<strong>");
+                h.postTags("</strong>");
+                h.fragmentSize(150);
+                h.numberOfFragments(3);
                 
-                // Construction de la requête selon le type de correspondance
-                switch(matchType.toLowerCase()) {
-                    case "match":
-                        requestBuilder.query(q -> q
-                            .match(m -> m
-                                .field(fields.get(0))
-                                .query(text)
-                                .fuzziness(fuzziness)
-                            )
-                        );
-                        break;
-                    case "match_phrase":
-                        requestBuilder.query(q -> q
-                            .matchPhrase(m -> m
-                                .field(fields.get(0))
-                                .query(text)
-                            )
-                        );
-                        break;
-                    case "multi_match":
-                    default:
-                        requestBuilder.query(q -> q
-                            .multiMatch(m -> m
-                                .fields(fields)
-                                .query(text)
-                                .fuzziness(fuzziness)
-                                .type(co.elastic.clients.elasticsearch._types.query_dsl.TextQueryType.BestFields)
-                            )
-                        );
-                        break;
+                for (String field : fields) {
+                    h.fields(field, hf -> hf);
                 }
-                
-                // Ajout du highlighting
-                requestBuilder.highlight(h -> {
-                    h.preTags("<strong>");
-                    h.postTags("</strong>");
-                    h.fragmentSize(150);
-                    h.numberOfFragments(3);
-                    
-                    for (String field : fields) {
-                        h.fields(field, hf -> hf);
-                    }
-                    return h;
-                });
-                
-                co.elastic.clients.elasticsearch.core.SearchResponse<SearchDocument> response = 
-                    client.search(requestBuilder.build(), SearchDocument.class);
-                
-                return response.hits().hits().stream()
-                    .map(this::mapHitToSearchResult)
-                    .collect(Collectors.toList());
-                    
-            } catch (IOException e) {
-                logger.error("Failed to execute full text search: {}", e.getMessage(), e);
-                throw new RuntimeException("Failed to execute full text search", e);
-            }
-        });
+                return h;
+            });
+            
+            return asyncClient.search(requestBuilder.build(), SearchDocument.class)
+                .thenApplyAsync(response -> toSearchResponse(response, page, size, cursorState),
+                    executors.elasticsearch());
+        }), "Failed to execute full text search");
     }
     
     /**
@@ -365,253 +566,655 @@ public class SearchRepository {
      * 
      * @param field Le champ sur lequel effectuer la recherche
      * @param value La valeur exacte à rechercher
-     * @param type Le type de recherche par terme ("term", "terms", "prefix", "wildcard", "exists")
+     * @param type Le type de recherche par terme ("term", "terms", "prefix", "wildcard", "substring", "exists") ;
+     *             "substring" cherche la valeur telle quelle n'importe où dans le champ, sans distinction de casse
      * @param page La page à récupérer
      * @param size Le nombre d'éléments par page
-     * @return Une liste de résultats de recherche
+     * @param cursor Curseur de pagination profonde, voir {@link #applyPaging}, ou null
+     * @return Les résultats de la page et leur nombre total
      */
-    public CompletableFuture<List<SearchResult>> termLevelSearch(String field, Object value, 
-                                                              String type, int page, int size) {
-        return CompletableFuture.supplyAsync(() -> {
+    public CompletableFuture<SearchResponse<SearchResult>> termLevelSearch(String field, Object value, 
+                                                              String type, int page, int size, String cursor) {
+        return wrapFailure(openCursor(cursor).thenCompose(cursorState -> {
+            co.elastic.clients.elasticsearch.core.SearchRequest.Builder requestBuilder = 
+                new co.elastic.clients.elasticsearch.core.SearchRequest.Builder();
+            applyPaging(requestBuilder, page, size, cursorState, false);
+            
+            // Construction de la requête selon le type de recherche par terme
+            Query query;
+            switch(type.toLowerCase()) {
+                case "term":
+                    query = Query.of(q -> q
+                        .term(t -> t
+                            .field(field)
+                            .value(value.toString())
+                        )
+                    );
+                    break;
+                case "terms":
+                    List<?> values = value instanceof List ? (List<?>) value : List.of(value);
+                    List<FieldValue> termValues = values.stream()
+                        .map(val -> FieldValue.of(val.toString()))
+                        .collect(Collectors.toList());
+                    
+                    query = Query.of(q -> q
+                        .terms(t -> t
+                            .field(field)
+                            .terms(tf -> tf.value(termValues))
+                        )
+                    );
+                    break;
+                case "prefix":
+                    query = Query.of(q -> q
+                        .prefix(p -> p
+                            .field(field)
+                            .value(value.toString())
+                        )
+                    );
+                    break;
+                case "wildcard":
+                    query = Query.of(q -> q
+                        .wildcard(w -> w
+                            .field(field)
+                            .value(value.toString())
+                        )
+                    );
+                    break;
+                case "substring":
+                    // Sous-champ wildcard quand le champ en a un, y compris pour une valeur à plusieurs mots
+                    String substringField = substringFields.contains(field) ? field + ".substring" : field;
+                    query = Query.of(q -> q
+                        .wildcard(w -> w
+                            .field(substringField)
+                            .value(SearchUtil.buildWildcardQuery(SearchUtil.escapeWildcard(value.toString())))
+                            .caseInsensitive(true)
+                        )
+                    );
+                    break;
+                case "exists":
+                    query = Query.of(q -> q
+                        .exists(e -> e
+                            .field(field)
+                        )
+                    );
+                    break;
+                default:
+                    throw new IllegalArgumentException("Type de recherche par terme non supporté: " + type);
+            }
+            requestBuilder.query(queryRewriter.rewrite(query));
+            
+            return asyncClient.search(requestBuilder.build(), SearchDocument.class)
+                .thenApplyAsync(response -> toSearchResponse(response, page, size, cursorState),
+                    executors.elasticsearch());
+        }), "Failed to execute term level search");
+    }
+    
+    /**
+     * Parcourt toutes les correspondances d'une requête (requête, champs et filtres de
+     * {@code searchRequest}, sans pagination ni highlighting) pour un export.
+     *
+     * <p>La lecture se fait sur un point-in-time découpé en {@code slices} tranches lues en
+     * parallèle par search_after sur _shard_doc. Les pages sont fusionnées dans une file
+     * bornée : si le consommateur ralentit, les lecteurs attendent, et la mémoire reste
+     * limitée à quelques pages quelle que soit la taille du résultat. Tant qu'un lecteur
+     * attend le consommateur, le point-in-time est prolongé à mi-parcours de sa durée de vie
+     * ({@code cursor-keep-alive}) par une recherche vide. Le Stream doit être fermé pour
+     * arrêter les lectures et libérer le point-in-time.</p>
+     *
+     * @throws RejectedExecutionException si le pool des exports ne peut pas prendre toutes les tranches
+     */
+    public Stream<SearchDocument> streamMatches(SearchRequest searchRequest, int slices, int pageSize) {
+        Query query = buildQuery(searchRequest);
+        SourceConfig source = sourceConfig(searchRequest);
+        String pitId;
+        try {
+            pitId = client.openPointInTime(o -> o
+                .index("documents")
+                .keepAlive(t -> t.time(cursorKeepAlive))
+            ).id();
+        } catch (IOException e) {
+            logger.error("Failed to open point in time for export: {}", e.getMessage(), e);
+            throw new RuntimeException("Failed to open point in time for export", e);
+        }
+        
+        int sliceCount = Math.max(1, slices);
+        BlockingQueue<Object> queue = new ArrayBlockingQueue<>(Math.max(pageSize * sliceCount, 1));
+        AtomicBoolean cancelled = new AtomicBoolean(false);
+        AtomicInteger remaining = new AtomicInteger(sliceCount);
+        Runnable keepAlive = pointInTimeKeepAlive(pitId);
+        
+        // Une tâche par tranche sur le pool partagé des exports ; si le pool est saturé, l'export
+        // est refusé (503) plutôt que lu avec une partie seulement des tranches
+        int submitted = 0;
+        try {
+            for (; submitted < sliceCount; submitted++) {
+                int slice = submitted;
+                executors.export().execute(() -> {
+                    try {
+                        readSlice(pitId, query, source, slice, sliceCount, pageSize, queue, cancelled, keepAlive);
+                    } catch (Exception e) {
+                        logger.error("Export slice {} failed: {}", slice, e.getMessage());
+                        put(queue, new RuntimeException("Failed to export documents", e), cancelled, keepAlive);
+                    }
+                    if (remaining.decrementAndGet() == 0) {
+                        put(queue, END_OF_EXPORT, cancelled, keepAlive);
+                    }
+                });
+            }
+        } catch (RejectedExecutionException e) {
+            cancelled.set(true);
+            closePointInTime(pitId);
+            throw e;
+        }
+        
+        Iterator<SearchDocument> iterator = new ExportIterator(queue, cancelled);
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL),
+                false)
+            .onClose(() -> {
+                cancelled.set(true);
+                closePointInTime(pitId);
+            });
+    }
+    
+    private void readSlice(String pitId, Query query, SourceConfig source, int slice, int sliceCount, int pageSize,
+                           BlockingQueue<Object> queue, AtomicBoolean cancelled, Runnable keepAlive)
+            throws IOException {
+        List<FieldValue> searchAfter = null;
+        while (!cancelled.get()) {
+            co.elastic.clients.elasticsearch.core.SearchRequest.Builder requestBuilder = 
+                new co.elastic.clients.elasticsearch.core.SearchRequest.Builder()
+                    .pit(p -> p.id(pitId).keepAlive(t -> t.time(cursorKeepAlive)))
+                    .query(query)
+                    .size(pageSize)
+                    .trackTotalHits(t -> t.enabled(false))
+                    .sort(so -> so.field(f -> f.field("_shard_doc")));
+            // Une seule tranche : Elasticsearch refuse un découpage avec max = 1
+            if (sliceCount > 1) {
+                requestBuilder.slice(sl -> sl.id(Integer.toString(slice)).max(sliceCount));
+            }
+            if (source != null) {
+                requestBuilder.source(source);
+            }
+            if (searchAfter != null) {
+                requestBuilder.searchAfter(searchAfter);
+            }
+            
+            co.elastic.clients.elasticsearch.core.SearchResponse<SearchDocument> response = 
+                client.search(requestBuilder.build(), SearchDocument.class);
+            
+            List<Hit<SearchDocument>> hits = response.hits().hits();
+            for (Hit<SearchDocument> hit : hits) {
+                if (hit.source() != null) {
+                    put(queue, hit.source(), cancelled, keepAlive);
+                }
+            }
+            if (hits.size() < pageSize) {
+                return;
+            }
+            searchAfter = hits.get(hits.size() - 1).sort();
+        }
+    }
+    
+    /**
+     * Dépose un élément dans la file ; {@code whileWaiting} est appelé tant que la file est pleine.
+     */
+    private static void put(BlockingQueue<Object> queue, Object element, AtomicBoolean cancelled,
+                            Runnable whileWaiting) {
+        try {
+            while (!cancelled.get()) {
+                if (queue.offer(element, 100, TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+                whileWaiting.run();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * Prolonge le point-in-time d'un export au plus une fois par demi-durée de vie, quel que
+     * soit le nombre de lecteurs qui attendent.
+     */
+    private Runnable pointInTimeKeepAlive(String pitId) {
+        long intervalMillis = DurationStyle.detectAndParse(cursorKeepAlive).toMillis() / 2;
+        AtomicLong lastRenewal = new AtomicLong(System.currentTimeMillis());
+        return () -> {
+            long last = lastRenewal.get();
+            long now = System.currentTimeMillis();
+            if (now - last < intervalMillis || !lastRenewal.compareAndSet(last, now)) {
+                return;
+            }
             try {
-                int from = page * size;
-                
-                co.elastic.clients.elasticsearch.core.SearchRequest.Builder requestBuilder = 
-                    new co.elastic.clients.elasticsearch.core.SearchRequest.Builder()
-                        .index("documents")
-                        .from(from)
-                        .size(size);
-                
-                // Construction de la requête selon le type de recherche par terme
-                switch(type.toLowerCase()) {
-                    case "term":
-                        requestBuilder.query(q -> q
-                            .term(t -> t
-                                .field(field)
-                                .value(value.toString())
-                            )
-                        );
-                        break;
-                    case "terms":
-                        if (value instanceof List) {
-                            List<?> values = (List<?>) value;
-                            List<String> stringValues = values.stream()
-                                .map(Object::toString)
-                                .collect(Collectors.toList());
-                            
-                            // Create a list of term queries, one for each value
-                            List<Query> termQueries = stringValues.stream()
-                                .map(val -> Query.of(tq -> tq
-                                    .term(t -> t
-                                        .field(field)
-                                        .value(val)
-                                    )
-                                ))
-                                .collect(Collectors.toList());
-                            
-                            // Add the terms query as a bool should query
-                            requestBuilder.query(q -> q
-                                .bool(b -> b
-                                    .should(termQueries)
-                                )
-                            );
-                        }
-                        break;
-                    case "prefix":
-                        requestBuilder.query(q -> q
-                            .prefix(p -> p
-                                .field(field)
-                                .value(value.toString())
-                            )
-                        );
-                        break;
-                    case "wildcard":
-                        requestBuilder.query(q -> q
-                            .wildcard(w -> w
-                                .field(field)
-                                .value(value.toString())
-                            )
-                        );
-                        break;
-                    case "exists":
-                        requestBuilder.query(q -> q
-                            .exists(e -> e
-                                .field(field)
-                            )
-                        );
-                        break;
-                    default:
-                        throw new IllegalArgumentException("Type de recherche par terme non supporté: " + type);
+                client.search(s -> s
+                    .pit(p -> p.id(pitId).keepAlive(t -> t.time(cursorKeepAlive)))
+                    .size(0)
+                    .trackTotalHits(t -> t.enabled(false)), SearchDocument.class);
+                logger.debug("Export point in time renewed while waiting for the consumer");
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Could not renew export point in time: {}", e.getMessage());
+            }
+        };
+    }
+    
+    /**
+     * Lit la file commune aux tranches et propage la première erreur de lecture. Un export
+     * fermé depuis un autre thread (délai de la requête dépassé) s'arrête en erreur.
+     */
+    private static class ExportIterator implements Iterator<SearchDocument> {
+        private final BlockingQueue<Object> queue;
+        private final AtomicBoolean cancelled;
+        private SearchDocument next;
+        private boolean finished;
+        
+        ExportIterator(BlockingQueue<Object> queue, AtomicBoolean cancelled) {
+            this.queue = queue;
+            this.cancelled = cancelled;
+        }
+        
+        @Override
+        public boolean hasNext() {
+            while (next == null && !finished) {
+                Object element;
+                try {
+                    element = queue.poll(100, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Interrupted while exporting documents", e);
                 }
                 
-                co.elastic.clients.elasticsearch.core.SearchResponse<SearchDocument> response = 
-                    client.search(requestBuilder.build(), SearchDocument.class);
-                
-                return response.hits().hits().stream()
-                    .map(this::mapHitToSearchResult)
+                if (element == null) {
+                    if (cancelled.get()) {
+                        finished = true;
+                        throw new RuntimeException("Export cancelled");
+                    }
+                } else if (element == END_OF_EXPORT) {
+                    finished = true;
+                } else if (element instanceof RuntimeException) {
+                    finished = true;
+                    throw (RuntimeException) element;
+                } else {
+                    next = (SearchDocument) element;
+                }
+            }
+            return next != null;
+        }
+        
+        @Override
+        public SearchDocument next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            SearchDocument document = next;
+            next = null;
+            return document;
+        }
+    }
+    
+    /**
+     * Requête principale d'une SearchRequest : multi_match sur les champs demandés ou
+     * query_string, combinée aux filtres exacts, puis normalisée par le {@link QueryRewriter}.
+     */
+    private Query buildQuery(SearchRequest searchRequest) {
+        Query main;
+        if (searchRequest.getFields() != null && !searchRequest.getFields().isEmpty()) {
+            main = Query.of(q -> q
+                .multiMatch(m -> m
+                    .query(searchRequest.getQuery())
+                    .fields(searchRequest.getFields())
+                )
+            );
+        } else {
+            main = Query.of(q -> q
+                .queryString(qs -> qs
+                    .query(searchRequest.getQuery())
+                )
+            );
+        }
+        
+        if (searchRequest.getFilters() == null || searchRequest.getFilters().isEmpty()) {
+            return queryRewriter.rewrite(main);
+        }
+        return queryRewriter.rewrite(Query.of(q -> q
+            .bool(b -> {
+                b.must(main);
+                searchRequest.getFilters().forEach((field, value) -> b.filter(f -> f
+                    .term(t -> t.field(field).value(value.toString()))
+                ));
+                return b;
+            })
+        ));
+    }
+    
+    /**
+     * Restreint le _source renvoyé par Elasticsearch : listes explicites de la requête,
+     * sinon profil nommé ("full" : document complet, "summary" : champs légers sans
+     * content ni metadata). Les champs exclus sont absents des documents renvoyés.
+     */
+    private void applySourceFilter(co.elastic.clients.elasticsearch.core.SearchRequest.Builder builder,
+                                   SearchRequest searchRequest) {
+        SourceConfig source = sourceConfig(searchRequest);
+        if (source != null) {
+            builder.source(source);
+        }
+    }
+    
+    private SourceConfig sourceConfig(SearchRequest searchRequest) {
+        List<String> includes = searchRequest.getSourceIncludes();
+        List<String> excludes = searchRequest.getSourceExcludes();
+        
+        if ((includes == null || includes.isEmpty()) && (excludes == null || excludes.isEmpty())) {
+            String profile = searchRequest.getProfile() != null ? searchRequest.getProfile() : defaultProfile;
+            switch (profile.toLowerCase()) {
+                case PROFILE_FULL:
+                    return null;
+                case PROFILE_SUMMARY:
+                    includes = summaryFields;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Profil de source non supporté: " + profile);
+            }
+        }
+        
+        List<String> sourceIncludes = includes;
+        return SourceConfig.of(sc -> sc.filter(f -> {
+            if (sourceIncludes != null && !sourceIncludes.isEmpty()) {
+                f.includes(sourceIncludes);
+            }
+            if (excludes != null && !excludes.isEmpty()) {
+                f.excludes(excludes);
+            }
+            return f;
+        }));
+    }
+    
+    /**
+     * Ajoute les facettes demandées à la requête : elles sont calculées par Elasticsearch
+     * sur les mêmes correspondances que les résultats, sans requête supplémentaire.
+     */
+    private void applyFacets(co.elastic.clients.elasticsearch.core.SearchRequest.Builder builder,
+                             SearchRequest searchRequest) {
+        Map<String, Aggregation> aggregations = buildAggregations(searchRequest.getFacets());
+        if (!aggregations.isEmpty()) {
+            builder.aggregations(aggregations);
+        }
+    }
+    
+    private Map<String, Aggregation> buildAggregations(List<FacetSpec> facets) {
+        if (facets == null || facets.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        
+        Map<String, Aggregation> aggregations = new HashMap<>();
+        for (FacetSpec facet : facets) {
+            String type = facet.getType() != null ? facet.getType().toLowerCase() : FacetSpec.TERMS;
+            String field = facet.getField();
+            Aggregation aggregation;
+            switch (type) {
+                case FacetSpec.TERMS:
+                    if (!facetTermsFields.contains(field)) {
+                        throw new IllegalArgumentException("Facette terms non autorisée sur le champ: " + field);
+                    }
+                    aggregation = Aggregation.of(a -> a.terms(t -> t.field(field).size(facet.getSize())));
+                    break;
+                case FacetSpec.DATE_HISTOGRAM:
+                    if (!facetDateFields.contains(field)) {
+                        throw new IllegalArgumentException("Facette date_histogram non autorisée sur le champ: " + field);
+                    }
+                    CalendarInterval interval = calendarInterval(facet.getInterval());
+                    aggregation = Aggregation.of(a -> a.dateHistogram(d -> d.field(field).calendarInterval(interval)));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Type de facette non supporté: " + facet.getType());
+            }
+            if (aggregations.put(facet.resolvedName(), aggregation) != null) {
+                throw new IllegalArgumentException("Facette en double: " + facet.resolvedName());
+            }
+        }
+        return aggregations;
+    }
+    
+    private static CalendarInterval calendarInterval(String interval) {
+        for (CalendarInterval candidate : CalendarInterval.values()) {
+            if (candidate.jsonValue().equalsIgnoreCase(interval)
+                    || (candidate.aliases() != null && Arrays.asList(candidate.aliases()).contains(interval))) {
+                return candidate;
+            }
+        }
+        throw new IllegalArgumentException("Intervalle de facette non supporté: " + interval);
+    }
+    
+    /**
+     * Convertit les agrégations de la réponse en facettes : liste de valeurs et de décomptes par nom.
+     */
+    private static Map<String, Object> toFacets(Map<String, Aggregate> aggregations) {
+        Map<String, Object> facets = new HashMap<>();
+        aggregations.forEach((name, aggregate) -> {
+            List<FacetBucket> buckets;
+            if (aggregate.isSterms()) {
+                buckets = aggregate.sterms().buckets().array().stream()
+                    .map(bucket -> new FacetBucket(bucket.key().stringValue(), bucket.docCount()))
                     .collect(Collectors.toList());
-                    
-            } catch (IOException e) {
-                logger.error("Failed to execute term level search: {}", e.getMessage(), e);
-                throw new RuntimeException("Failed to execute term level search", e);
+            } else if (aggregate.isDateHistogram()) {
+                buckets = aggregate.dateHistogram().buckets().array().stream()
+                    .map(bucket -> new FacetBucket(
+                        bucket.keyAsString() != null ? bucket.keyAsString() : Long.toString(bucket.key()),
+                        bucket.docCount()))
+                    .collect(Collectors.toList());
+            } else {
+                buckets = Collections.emptyList();
             }
+            facets.put(name, Collections.unmodifiableList(buckets));
         });
+        return Collections.unmodifiableMap(facets);
+    }
+    
+    private List<SortOptions> buildSort(SearchRequest searchRequest) {
+        if (searchRequest.getSortBy() == null) {
+            return Collections.emptyList();
+        }
+        return List.of(SortOptions.of(s -> s
+            .field(f -> f
+                .field(searchRequest.getSortBy())
+                .order("asc".equalsIgnoreCase(searchRequest.getSortOrder()) ? 
+                    co.elastic.clients.elasticsearch._types.SortOrder.Asc : 
+                    co.elastic.clients.elasticsearch._types.SortOrder.Desc)
+            )
+        ));
+    }
+    
+    private static Highlight searchHighlight() {
+        return Highlight.of(h -> h
+            .fields("title", hf -> hf)
+            .fields("content", hf -> hf)
+            .preTags("<strong>")
+            .postTags("</strong>")
+        );
     }
     
     /**
-     * Compte le nombre de résultats pour une recherche par DSL.
-     * 
-     * @param query La requête JSON DSL Elasticsearch sous forme de Map
-     * @return Le nombre de documents correspondants
+     * Applique la pagination à la requête.
+     *
+     * <p>Sans curseur : from/size sur l'alias, dont le coût croît avec la profondeur.
+     * Avec un curseur : la requête porte sur un point-in-time et reprend après les valeurs
+     * de tri de la dernière page (search_after), à coût constant et sur une vue figée
+     * de l'index. {@link #START_CURSOR} ouvre le point-in-time ; chaque réponse
+     * renvoie ensuite le curseur de la page suivante.</p>
+     *
+     * @param cursorState État du curseur obtenu par {@link #openCursor(String)}, ou null
+     * @param sorted true si un tri a déjà été ajouté, sinon le tri se fait par score
+     */
+    private void applyPaging(co.elastic.clients.elasticsearch.core.SearchRequest.Builder builder,
+                             int page, int size, Map<String, Object> cursorState, boolean sorted) {
+        builder.size(size).trackTotalHits(trackTotalHits);
+        
+        if (cursorState == null) {
+            builder.index("documents").from(page * size);
+            return;
+        }
+        
+        String pitId = (String) cursorState.get("pit");
+        builder.pit(p -> p.id(pitId).keepAlive(t -> t.time(cursorKeepAlive)));
+        
+        // Le point-in-time ajoute implicitement _shard_doc comme départage
+        if (!sorted) {
+            builder.sort(so -> so.score(sc -> sc.order(co.elastic.clients.elasticsearch._types.SortOrder.Desc)));
+        }
+        
+        Object searchAfter = cursorState.get("after");
+        if (searchAfter instanceof List) {
+            builder.searchAfter(((List<?>) searchAfter).stream()
+                .map(SearchRepository::toFieldValue)
+                .collect(Collectors.toList()));
+        }
+    }
+    
+    /**
+     * Décode le curseur, ou ouvre un point-in-time pour {@link #START_CURSOR}.
+     *
+     * @return L'état du curseur, ou null en pagination classique
      */
-    public CompletableFuture<Long> countWithDSL(Map<String, Object> query) {
-        return CompletableFuture.supplyAsync(() -> {
+    private CompletableFuture<Map<String, Object>> openCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        if (!START_CURSOR.equals(cursor)) {
             try {
-                // Conversion de la Map en JSON pour Elasticsearch
-                String queryJson = new ObjectMapper().writeValueAsString(query);
-                
-                // Création de la requête de comptage
-                CountRequest countRequest = CountRequest.of(c -> c
-                    .index("documents")
-                    .withJson(new StringReader(queryJson))
-                );
-                
-                CountResponse response = client.count(countRequest);
-                return response.count();
-            } catch (IOException e) {
-                logger.error("Failed to count with DSL: {}", e.getMessage(), e);
-                throw new RuntimeException("Failed to count with DSL", e);
+                return CompletableFuture.completedFuture(decodeCursor(cursor));
+            } catch (IllegalArgumentException e) {
+                return CompletableFuture.failedFuture(e);
             }
+        }
+        
+        return asyncClient.openPointInTime(o -> o
+            .index("documents")
+            .keepAlive(t -> t.time(cursorKeepAlive))
+        ).thenApply(response -> {
+            Map<String, Object> cursorState = new HashMap<>();
+            cursorState.put("pit", response.id());
+            return cursorState;
         });
     }
     
     /**
-     * Compte le nombre de résultats pour une recherche en texte intégral.
+     * Abandonne une pagination par curseur avant sa dernière page en fermant son point-in-time,
+     * sans attendre sa durée de vie. Sans effet pour un curseur absent ou {@link #START_CURSOR}.
+     *
+     * @param cursor Le nextCursor d'une réponse
      */
-    public CompletableFuture<Long> countFullTextSearch(String text, List<String> fields, String matchType, String fuzziness) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                CountRequest.Builder requestBuilder = new CountRequest.Builder()
-                    .index("documents");
-                
-                // Construction de la requête selon le type de correspondance
-                switch(matchType.toLowerCase()) {
-                    case "match":
-                        requestBuilder.query(q -> q
-                            .match(m -> m
-                                .field(fields.get(0))
-                                .query(text)
-                                .fuzziness(fuzziness)
-                            )
-                        );
-                        break;
-                    case "match_phrase":
-                        requestBuilder.query(q -> q
-                            .matchPhrase(m -> m
-                                .field(fields.get(0))
-                                .query(text)
-                            )
-                        );
-                        break;
-                    case "multi_match":
-                    default:
-                        requestBuilder.query(q -> q
-                            .multiMatch(m -> m
-                                .fields(fields)
-                                .query(text)
-                                .fuzziness(fuzziness)
-                            )
-                        );
-                        break;
-                }
-                
-                CountResponse response = client.count(requestBuilder.build());
-                return response.count();
-            } catch (IOException e) {
-                logger.error("Failed to count full text search: {}", e.getMessage(), e);
-                throw new RuntimeException("Failed to count full text search", e);
+    public void closeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty() || START_CURSOR.equals(cursor)) {
+            return;
+        }
+        closePointInTime((String) decodeCursor(cursor).get("pit"));
+    }
+    
+    /**
+     * Enveloppe les erreurs de transport comme le faisait le client bloquant ; les autres
+     * erreurs (requête invalide, erreur Elasticsearch) sont propagées telles quelles.
+     */
+    private <T> CompletableFuture<T> wrapFailure(CompletableFuture<T> future, String message) {
+        return future.exceptionally(error -> {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null
+                ? error.getCause() : error;
+            if (cause instanceof IOException) {
+                logger.error("{}: {}", message, cause.getMessage(), cause);
+                throw new RuntimeException(message, cause);
+            }
+            throw cause instanceof RuntimeException ? (RuntimeException) cause : new CompletionException(cause);
+        });
+    }
+    
+    private static Map<String, Object> decodeCursor(String cursor) {
+        try {
+            byte[] json = Base64.getUrlDecoder().decode(cursor);
+            Map<String, Object> state = CURSOR_MAPPER.readValue(json, new TypeReference<Map<String, Object>>() {});
+            if (!(state.get("pit") instanceof String)) {
+                throw new IllegalArgumentException("Invalid search cursor");
+            }
+            return state;
+        } catch (IllegalArgumentException | IOException e) {
+            throw new IllegalArgumentException("Invalid search cursor", e);
+        }
+    }
+    
+    private static String encodeCursor(String pitId, List<FieldValue> sortValues) {
+        Map<String, Object> state = new HashMap<>();
+        state.put("pit", pitId);
+        state.put("after", sortValues.stream().map(FieldValue::_get).collect(Collectors.toList()));
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(CURSOR_MAPPER.writeValueAsBytes(state));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to encode search cursor", e);
+        }
+    }
+    
+    private static FieldValue toFieldValue(Object value) {
+        if (value == null) {
+            return FieldValue.NULL;
+        } else if (value instanceof Double || value instanceof Float) {
+            return FieldValue.of(((Number) value).doubleValue());
+        } else if (value instanceof Number) {
+            return FieldValue.of(((Number) value).longValue());
+        } else if (value instanceof Boolean) {
+            return FieldValue.of((Boolean) value);
+        }
+        return FieldValue.of(value.toString());
+    }
+    
+    private void closePointInTime(String pitId) {
+        asyncClient.closePointInTime(c -> c.id(pitId)).whenComplete((response, error) -> {
+            if (error != null) {
+                logger.warn("Could not close point in time: {}", error.getMessage());
             }
         });
     }
     
     /**
-     * Compte le nombre de résultats pour une recherche par terme.
+     * Construit la réponse à partir d'une seule requête : les hits de la page et
+     * hits.total, exact ou borne inférieure selon la politique track_total_hits.
      */
-    public CompletableFuture<Long> countTermLevelSearch(String field, Object value, String type) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                CountRequest.Builder requestBuilder = new CountRequest.Builder()
-                    .index("documents");
-                
-                // Construction de la requête selon le type de recherche par terme
-                switch(type.toLowerCase()) {
-                    case "term":
-                        requestBuilder.query(q -> q
-                            .term(t -> t
-                                .field(field)
-                                .value(value.toString())
-                            )
-                        );
-                        break;
-                    case "terms":
-                        if (value instanceof List) {
-                            List<?> values = (List<?>) value;
-                            List<String> stringValues = values.stream()
-                                .map(Object::toString)
-                                .collect(Collectors.toList());
-                            
-                            // Create a list of term queries, one for each value
-                            List<Query> termQueries = stringValues.stream()
-                                .map(val -> Query.of(tq -> tq
-                                    .term(t -> t
-                                        .field(field)
-                                        .value(val)
-                                    )
-                                ))
-                                .collect(Collectors.toList());
-                            
-                            // Add the terms query as a bool should query
-                            requestBuilder.query(q -> q
-                                .bool(b -> b
-                                    .should(termQueries)
-                                )
-                            );
-                        }
-                        break;
-                    case "prefix":
-                        requestBuilder.query(q -> q
-                            .prefix(p -> p
-                                .field(field)
-                                .value(value.toString())
-                            )
-                        );
-                        break;
-                    case "wildcard":
-                        requestBuilder.query(q -> q
-                            .wildcard(w -> w
-                                .field(field)
-                                .value(value.toString())
-                            )
-                        );
-                        break;
-                    case "exists":
-                        requestBuilder.query(q -> q
-                            .exists(e -> e
-                                .field(field)
-                            )
-                        );
-                        break;
-                    default:
-                        throw new IllegalArgumentException("Type de recherche par terme non supporté: " + type);
-                }
-                
-                CountResponse response = client.count(requestBuilder.build());
-                return response.count();
-            } catch (IOException e) {
-                logger.error("Failed to count term level search: {}", e.getMessage(), e);
-                throw new RuntimeException("Failed to count term level search", e);
+    private SearchResponse<SearchResult> toSearchResponse(ResponseBody<SearchDocument> response, int page, int size) {
+        return toSearchResponse(response, page, size, null);
+    }
+    
+    /**
+     * Comme {@link #toSearchResponse(ResponseBody, int, int)},
+     * avec le curseur de la page suivante en pagination par curseur. Le point-in-time est
+     * fermé dès que la dernière page est atteinte.
+     */
+    private SearchResponse<SearchResult> toSearchResponse(ResponseBody<SearchDocument> response, int page, int size,
+                                                          Map<String, Object> cursorState) {
+        List<SearchResult> results = response.hits().hits().stream()
+            .map(this::mapHitToSearchResult)
+            .collect(Collectors.toList());
+        
+        TotalHits total = response.hits().total();
+        SearchResponse<SearchResult> searchResponse;
+        if (total != null) {
+            searchResponse = new SearchResponse<>(results, total.value(), page, size);
+            searchResponse.setTotalHitsRelation(total.relation() == TotalHitsRelation.Gte ? "gte" : "eq");
+        } else {
+            // Comptage désactivé : on sait seulement qu'il existe au moins les résultats déjà vus
+            searchResponse = new SearchResponse<>(results, (long) page * size + results.size(), page, size);
+            searchResponse.setTotalHitsRelation("gte");
+        }
+        
+        if (response.aggregations() != null && !response.aggregations().isEmpty()) {
+            searchResponse.setAggregations(toFacets(response.aggregations()));
+        }
+        
+        if (cursorState != null) {
+            String pitId = response.pitId() != null ? response.pitId() : (String) cursorState.get("pit");
+            List<Hit<SearchDocument>> hits = response.hits().hits();
+            if (hits.size() == size && size > 0) {
+                searchResponse.setNextCursor(encodeCursor(pitId, hits.get(hits.size() - 1).sort()));
+            } else {
+                closePointInTime(pitId);
             }
-        });
+        }
+        return searchResponse;
     }
     
     private SearchResult mapHitToSearchResult(Hit<SearchDocument> hit) {
@@ -619,7 +1222,12 @@ public class SearchRepository {
         Double scoreObj = hit.score();
         float score = scoreObj != null ? scoreObj.floatValue() : 0.0f;
         
-        SearchResult result = new SearchResult(hit.source(), score);
+        SearchDocument document = hit.source();
+        // L'identifiant reste connu même s'il est exclu du _source
+        if (document != null && document.getId() == null) {
+            document.setId(hit.id());
+        }
+        SearchResult result = new SearchResult(document, score);
 
         // Ajout du highlighting si disponible
         if (hit.highlight() != null && !hit.highlight().isEmpty()) {
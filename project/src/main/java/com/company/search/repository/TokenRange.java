@@ -0,0 +1,59 @@
+package com.company.search.repository;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sous-intervalle ]start, end] de l'anneau de tokens Murmur3 de ScyllaDB.
+ */
+public class TokenRange {
+
+    private static final BigInteger MIN_TOKEN = BigInteger.valueOf(Long.MIN_VALUE);
+    private static final BigInteger MAX_TOKEN = BigInteger.valueOf(Long.MAX_VALUE);
+
+    private final int index;
+    private final long start;
+    private final long end;
+
+    public TokenRange(int index, long start, long end) {
+        this.index = index;
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Découpe l'anneau complet en {@code count} intervalles contigus de taille égale.
+     * Le premier commence à Long.MIN_VALUE, qui n'est jamais attribué à une clé.
+     */
+    public static List<TokenRange> split(int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("Token range count must be >= 1");
+        }
+
+        BigInteger width = MAX_TOKEN.subtract(MIN_TOKEN);
+        List<TokenRange> ranges = new ArrayList<>(count);
+        long start = Long.MIN_VALUE;
+
+        for (int i = 0; i < count; i++) {
+            long end = i == count - 1
+                    ? Long.MAX_VALUE
+                    : MIN_TOKEN.add(width.multiply(BigInteger.valueOf(i + 1))
+                            .divide(BigInteger.valueOf(count))).longValueExact();
+            ranges.add(new TokenRange(i, start, end));
+            start = end;
+        }
+        return ranges;
+    }
+
+    public int getIndex() { return index; }
+
+    public long getStart() { return start; }
+
+    public long getEnd() { return end; }
+
+    @Override
+    public String toString() {
+        return "TokenRange[" + index + "](" + start + ", " + end + "]";
+    }
+}
@@ -0,0 +1,276 @@
+package com.company.search.repository;
+
+import com.company.search.model.SearchDocument;
+import com.datastax.oss.driver.api.core.CqlSession;
+import com.datastax.oss.driver.api.core.cql.BoundStatement;
+import com.datastax.oss.driver.api.core.cql.PreparedStatement;
+import com.datastax.oss.driver.api.core.cql.ResultSet;
+import com.datastax.oss.driver.api.core.cql.Row;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Repository;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.ObjLongConsumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Parcours complet de la table documents en parallèle par intervalles de tokens.
+ *
+ * <p>L'anneau Murmur3 est découpé en sous-intervalles lus chacun par une requête
+ * {@code WHERE token(id) > ? AND token(id) <= ?}. Chaque intervalle est servi par
+ * les réplicas qui le possèdent, ce qui répartit la charge sur tout le cluster
+ * au lieu d'un seul coordinateur. Au plus scylla.scan.parallelism intervalles
+ * sont lus en même temps, sur le pool partagé {@link RepositoryExecutors#scan()} ; les résultats sont fusionnés dans un seul Stream
+ * à travers une file bornée qui ralentit les lecteurs si le consommateur est lent.</p>
+ */
+@Repository
+@DependsOn("scyllaSchemaInitializer")
+public class TokenRangeScanner {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRangeScanner.class);
+
+    private static final Object END_OF_SCAN = new Object();
+
+    @Autowired
+    private CqlSession cqlSession;
+
+    @Autowired
+    private DataScyllaRepository dataScyllaRepository;
+
+    @Autowired
+    private RepositoryExecutors executors;
+
+    @Value("${scylla.scan.page-size:500}")
+    private int pageSize;
+
+    @Value("${scylla.scan.token-ranges:64}")
+    private int tokenRanges;
+
+    @Value("${scylla.scan.parallelism:4}")
+    private int parallelism;
+
+    private PreparedStatement selectByTokenRangeStatement;
+    private PreparedStatement selectByTokenRangeAndCategoryStatement;
+
+    @PostConstruct
+    public void init() {
+        this.selectByTokenRangeStatement = cqlSession.prepare(
+                "SELECT * FROM documents WHERE token(id) > ? AND token(id) <= ?"
+        );
+
+        this.selectByTokenRangeAndCategoryStatement = cqlSession.prepare(
+                "SELECT * FROM documents WHERE token(id) > ? AND token(id) <= ? AND category = ? ALLOW FILTERING"
+        );
+    }
+
+    /**
+     * Découpage de l'anneau utilisé par {@link #scanAll()}.
+     */
+    public List<TokenRange> splitRing() {
+        return TokenRange.split(tokenRanges);
+    }
+
+    /**
+     * Parcourt toute la table.
+     */
+    public Stream<SearchDocument> scanAll() {
+        return scan(splitRing(), (range, rows) -> { });
+    }
+
+    /**
+     * Parcourt les intervalles donnés en parallèle.
+     *
+     * @param ranges Les intervalles à lire
+     * @param onRangeCompleted Appelé sur le thread consommateur, avec le nombre de lignes lues,
+     *                         une fois que tous les documents d'un intervalle ont été consommés
+     * @return Un Stream à fermer après usage ; sa fermeture interrompt les lectures en cours
+     */
+    public Stream<SearchDocument> scan(List<TokenRange> ranges, ObjLongConsumer<TokenRange> onRangeCompleted) {
+        return scan(ranges, range -> selectByTokenRangeStatement.bind(range.getStart(), range.getEnd()),
+                onRangeCompleted);
+    }
+
+    /**
+     * Parcourt en parallèle les documents d'une catégorie dans les intervalles donnés,
+     * voir {@link #scan(List, ObjLongConsumer)}. Le filtre est appliqué par chaque réplica
+     * sur son intervalle.
+     */
+    public Stream<SearchDocument> scanCategory(List<TokenRange> ranges, String category,
+                                               ObjLongConsumer<TokenRange> onRangeCompleted) {
+        return scan(ranges,
+                range -> selectByTokenRangeAndCategoryStatement.bind(range.getStart(), range.getEnd(), category),
+                onRangeCompleted);
+    }
+
+    private Stream<SearchDocument> scan(List<TokenRange> ranges, Function<TokenRange, BoundStatement> query,
+                                        ObjLongConsumer<TokenRange> onRangeCompleted) {
+        if (ranges.isEmpty()) {
+            return Stream.empty();
+        }
+
+        int workers = Math.min(parallelism, ranges.size());
+        BlockingQueue<Object> queue = new ArrayBlockingQueue<>(Math.max(pageSize * workers, 1));
+        ConcurrentLinkedQueue<TokenRange> pending = new ConcurrentLinkedQueue<>(ranges);
+        AtomicBoolean cancelled = new AtomicBoolean(false);
+        AtomicInteger remaining = new AtomicInteger(workers);
+
+        logger.info("Starting token range scan: {} ranges, parallelism {}", ranges.size(), workers);
+
+        // Chaque tâche lit des intervalles jusqu'à épuisement : le pool partagé n'en reçoit que "workers"
+        for (int i = 0; i < workers; i++) {
+            try {
+                executors.scan().execute(() -> {
+                    TokenRange range;
+                    while (!cancelled.get() && (range = pending.poll()) != null) {
+                        try {
+                            long rows = scanRange(range, query.apply(range), queue, cancelled);
+                            put(queue, new RangeCompleted(range, rows), cancelled);
+                        } catch (Exception e) {
+                            logger.error("Error scanning {}: {}", range, e.getMessage());
+                            put(queue, new ScanFailure(range, e), cancelled);
+                            break;
+                        }
+                    }
+                    if (remaining.decrementAndGet() == 0) {
+                        put(queue, END_OF_SCAN, cancelled);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                if (i == 0) {
+                    throw e;
+                }
+                // Pool saturé : le parcours continue avec les tâches déjà soumises
+                logger.warn("Scan executor saturated, scanning with parallelism {}", i);
+                if (remaining.addAndGet(i - workers) == 0) {
+                    put(queue, END_OF_SCAN, cancelled);
+                }
+                break;
+            }
+        }
+
+        Iterator<SearchDocument> iterator = new MergingIterator(queue, onRangeCompleted);
+        return StreamSupport.stream(
+                        Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL),
+                        false)
+                .onClose(() -> cancelled.set(true));
+    }
+
+    private long scanRange(TokenRange range, BoundStatement statement,
+                           BlockingQueue<Object> queue, AtomicBoolean cancelled) {
+        ResultSet resultSet = cqlSession.execute(statement.setPageSize(pageSize));
+
+        long count = 0;
+        for (Row row : resultSet) {
+            if (cancelled.get()) {
+                return count;
+            }
+            put(queue, dataScyllaRepository.mapRowToDocument(row), cancelled);
+            count++;
+        }
+        logger.debug("Scanned {}: {} documents", range, count);
+        return count;
+    }
+
+    private static void put(BlockingQueue<Object> queue, Object element, AtomicBoolean cancelled) {
+        try {
+            while (!cancelled.get()) {
+                if (queue.offer(element, 100, TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class RangeCompleted {
+        private final TokenRange range;
+        private final long rows;
+
+        RangeCompleted(TokenRange range, long rows) {
+            this.range = range;
+            this.rows = rows;
+        }
+    }
+
+    private static class ScanFailure {
+        private final TokenRange range;
+        private final Exception cause;
+
+        ScanFailure(TokenRange range, Exception cause) {
+            this.range = range;
+            this.cause = cause;
+        }
+    }
+
+    /**
+     * Lit la file commune : renvoie les documents, déclenche les callbacks de fin
+     * d'intervalle et propage la première erreur de lecture.
+     */
+    private static class MergingIterator implements Iterator<SearchDocument> {
+        private final BlockingQueue<Object> queue;
+        private final ObjLongConsumer<TokenRange> onRangeCompleted;
+        private SearchDocument next;
+        private boolean finished;
+
+        MergingIterator(BlockingQueue<Object> queue, ObjLongConsumer<TokenRange> onRangeCompleted) {
+            this.queue = queue;
+            this.onRangeCompleted = onRangeCompleted;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && !finished) {
+                Object element;
+                try {
+                    element = queue.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Interrupted while scanning documents", e);
+                }
+
+                if (element == END_OF_SCAN) {
+                    finished = true;
+                } else if (element instanceof RangeCompleted) {
+                    RangeCompleted completed = (RangeCompleted) element;
+                    onRangeCompleted.accept(completed.range, completed.rows);
+                } else if (element instanceof ScanFailure) {
+                    ScanFailure failure = (ScanFailure) element;
+                    finished = true;
+                    throw new RuntimeException("Failed to scan " + failure.range, failure.cause);
+                } else {
+                    next = (SearchDocument) element;
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public SearchDocument next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            SearchDocument document = next;
+            next = null;
+            return document;
+        }
+    }
+}
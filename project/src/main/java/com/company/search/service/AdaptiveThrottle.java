@@ -0,0 +1,132 @@
+package com.company.search.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntSupplier;
+
+/**
+ * Régulation AIMD des requêtes _bulk partagée par tous les {@link BulkIndexer}.
+ *
+ * <p>Le nombre de requêtes en vol et la taille des lots augmentent de façon additive
+ * tant qu'Elasticsearch répond sans rejet et sous la latence cible, et sont divisés
+ * par deux au premier rejet (429), échec de requête ou dépassement de latence.
+ * Seules les requêtes parties après la dernière réduction peuvent en déclencher une
+ * nouvelle : une rafale de réponses lentes ne divise la fenêtre qu'une fois.</p>
+ *
+ * <p>Le plafond de concurrence est relu à chaque requête, ce qui permet de brider
+ * l'indexation de masse pendant les heures ouvrées.</p>
+ */
+public class AdaptiveThrottle {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveThrottle.class);
+
+    private static final double DECREASE_FACTOR = 0.5;
+
+    private final int minActions;
+    private final int maxActions;
+    private final int actionsStep;
+    private final long targetLatencyNanos;
+    private final IntSupplier concurrencyCeiling;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition slotAvailable = lock.newCondition();
+
+    private double concurrencyLimit = 1;
+    private int batchActions;
+    private int inFlight;
+    private long lastDecreaseAt = System.nanoTime();
+
+    public AdaptiveThrottle(int minActions, int maxActions, long targetLatencyMs, IntSupplier concurrencyCeiling) {
+        this.minActions = Math.max(1, Math.min(minActions, maxActions));
+        this.maxActions = maxActions;
+        this.actionsStep = Math.max(1, maxActions / 10);
+        this.targetLatencyNanos = TimeUnit.MILLISECONDS.toNanos(targetLatencyMs);
+        this.concurrencyCeiling = concurrencyCeiling;
+        this.batchActions = this.minActions;
+    }
+
+    /**
+     * Attend une place parmi les requêtes autorisées en vol.
+     *
+     * @return L'instant de départ de la requête, à rendre à {@link #release}
+     */
+    public long acquire() throws InterruptedException {
+        lock.lock();
+        try {
+            while (inFlight >= currentLimit()) {
+                // Le plafond peut remonter à heure fixe sans qu'aucune réponse n'arrive
+                slotAvailable.await(1, TimeUnit.SECONDS);
+            }
+            inFlight++;
+            return System.nanoTime();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Libère la place d'une requête terminée et ajuste la fenêtre selon sa réponse.
+     *
+     * @param startedAt La valeur renvoyée par {@link #acquire()}
+     * @param rejected Nombre d'éléments refusés en 429
+     * @param failed La requête entière a échoué
+     */
+    public void release(long startedAt, int rejected, boolean failed) {
+        long now = System.nanoTime();
+        lock.lock();
+        try {
+            inFlight--;
+
+            boolean congested = failed || rejected > 0 || now - startedAt > targetLatencyNanos;
+            if (congested) {
+                // Différence et non comparaison directe : les valeurs de nanoTime peuvent déborder
+                if (startedAt - lastDecreaseAt > 0) {
+                    concurrencyLimit = Math.max(1, concurrencyLimit * DECREASE_FACTOR);
+                    batchActions = Math.max(minActions, (int) (batchActions * DECREASE_FACTOR));
+                    lastDecreaseAt = now;
+                    logger.info("Bulk throttle decreased to {} concurrent requests, {} actions per request " +
+                                    "(rejected: {}, failed: {}, latency: {}ms)",
+                            currentLimit(), batchActions, rejected, failed,
+                            TimeUnit.NANOSECONDS.toMillis(now - startedAt));
+                }
+            } else {
+                // +1 requête en vol par fenêtre complète de réponses saines
+                concurrencyLimit = Math.min(concurrencyLimit + 1 / concurrencyLimit, concurrencyCeiling.getAsInt());
+                batchActions = Math.min(maxActions, batchActions + actionsStep);
+            }
+
+            slotAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Taille de lot courante, entre indexing.bulk.min-actions et indexing.bulk.max-actions.
+     */
+    public int getBatchActions() {
+        lock.lock();
+        try {
+            return batchActions;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getConcurrencyLimit() {
+        lock.lock();
+        try {
+            return currentLimit();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int currentLimit() {
+        return Math.max(1, Math.min((int) concurrencyLimit, concurrencyCeiling.getAsInt()));
+    }
+}
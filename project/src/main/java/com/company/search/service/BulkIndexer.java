@@ -0,0 +1,232 @@
+package com.company.search.service;
+
+import com.company.search.model.SearchDocument;
+import com.company.search.model.dto.BulkIndexResult;
+import com.company.search.model.dto.DocumentSource;
+import com.company.search.repository.SearchElasticsearchRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Regroupe des indexations et suppressions de documents en requêtes _bulk bornées à la fois
+ * en nombre d'opérations et en taille de charge utile, avec plusieurs requêtes en vol simultanément.
+ *
+ * <p>Une instance correspond à une session d'indexation. La taille des lots et le nombre
+ * de requêtes en vol sont fixés par l'{@link AdaptiveThrottle} partagé, d'après les
+ * rejets et la latence des réponses. {@link #add(SearchDocument)} bloque lorsque toutes
+ * les requêtes autorisées sont en vol, ce qui propage la contre-pression vers le
+ * producteur. Les instances sont créées par {@link BulkIndexerFactory}.</p>
+ */
+public class BulkIndexer implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkIndexer.class);
+
+    private final SearchElasticsearchRepository repository;
+    private final ObjectMapper objectMapper;
+    private final Executor executor;
+    private final String targetIndex;
+    private final long maxBytes;
+    private final AdaptiveThrottle throttle;
+
+    /** Requêtes de cette session en vol, attendues par {@link #awaitCompletion()}. */
+    private final Object completionLock = new Object();
+    private int pendingRequests;
+
+    /** Taille approximative d'une action delete dans le corps NDJSON, hors identifiant. */
+    static final int DELETE_ACTION_OVERHEAD = 40;
+
+    private List<DocumentSource> batch = new ArrayList<>();
+    private List<String> deleteBatch = new ArrayList<>();
+    private long batchBytes;
+    private boolean closed;
+
+    private final AtomicLong succeeded = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong retryable = new AtomicLong();
+    private final AtomicLong bytesSent = new AtomicLong();
+    private final AtomicLong requests = new AtomicLong();
+
+    BulkIndexer(SearchElasticsearchRepository repository, ObjectMapper objectMapper, Executor executor,
+                String targetIndex, long maxBytes, AdaptiveThrottle throttle) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.executor = executor;
+        this.targetIndex = targetIndex;
+        this.maxBytes = maxBytes;
+        this.throttle = throttle;
+    }
+
+    /**
+     * Ajoute un document au lot courant ; le lot part dès que l'une des deux limites est atteinte.
+     */
+    public synchronized void add(SearchDocument document) {
+        if (closed) {
+            throw new IllegalStateException("BulkIndexer is closed");
+        }
+
+        DocumentSource source = serialize(objectMapper, document);
+        if (pendingActions() > 0 && batchBytes + source.size() > maxBytes) {
+            flush();
+        }
+
+        batch.add(source);
+        batchBytes += source.size();
+        flushIfFull();
+    }
+
+    /**
+     * Ajoute la suppression d'un document au lot courant.
+     */
+    public synchronized void delete(String id) {
+        if (closed) {
+            throw new IllegalStateException("BulkIndexer is closed");
+        }
+
+        deleteBatch.add(id);
+        batchBytes += id.length() + DELETE_ACTION_OVERHEAD;
+        flushIfFull();
+    }
+
+    private void flushIfFull() {
+        if (pendingActions() >= throttle.getBatchActions() || batchBytes >= maxBytes) {
+            flush();
+        }
+    }
+
+    private int pendingActions() {
+        return batch.size() + deleteBatch.size();
+    }
+
+    /**
+     * Envoie le lot courant sans attendre sa réponse.
+     */
+    public synchronized void flush() {
+        if (pendingActions() == 0) {
+            return;
+        }
+
+        List<DocumentSource> documents = batch;
+        List<String> deleteIds = deleteBatch;
+        long payloadBytes = batchBytes;
+        batch = new ArrayList<>();
+        deleteBatch = new ArrayList<>();
+        batchBytes = 0;
+
+        long startedAt;
+        try {
+            startedAt = throttle.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failed.addAndGet(documents.size() + deleteIds.size());
+            throw new RuntimeException("Interrupted while waiting for a bulk slot", e);
+        }
+
+        synchronized (completionLock) {
+            pendingRequests++;
+        }
+        try {
+            executor.execute(() -> send(documents, deleteIds, payloadBytes, startedAt));
+        } catch (RejectedExecutionException e) {
+            throttle.release(startedAt, 0, true);
+            requestDone();
+            failed.addAndGet(documents.size() + deleteIds.size());
+            throw new RuntimeException("Bulk request rejected by executor", e);
+        }
+    }
+
+    /**
+     * Envoie le lot courant puis attend la fin de toutes les requêtes en vol.
+     */
+    public synchronized void awaitCompletion() {
+        flush();
+        synchronized (completionLock) {
+            while (pendingRequests > 0) {
+                try {
+                    completionLock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Interrupted while waiting for bulk requests", e);
+                }
+            }
+        }
+    }
+
+    private void requestDone() {
+        synchronized (completionLock) {
+            pendingRequests--;
+            completionLock.notifyAll();
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        awaitCompletion();
+        closed = true;
+        logger.debug("BulkIndexer for '{}' closed: {} succeeded, {} failed, {} requests, {} bytes",
+                targetIndex, succeeded.get(), failed.get(), requests.get(), bytesSent.get());
+    }
+
+    private void send(List<DocumentSource> documents, List<String> deleteIds, long payloadBytes, long startedAt) {
+        int actions = documents.size() + deleteIds.size();
+        int rejected = 0;
+        boolean requestFailed = false;
+        try {
+            BulkIndexResult result = repository.bulkIndex(targetIndex, documents, deleteIds);
+            succeeded.addAndGet(result.getSucceeded());
+            failed.addAndGet(result.getFailed());
+            retryable.addAndGet(result.getRejected());
+            rejected = result.getRejected();
+        } catch (Exception e) {
+            requestFailed = true;
+            logger.error("Bulk request of {} operations to '{}' failed: {}",
+                    actions, targetIndex, e.getMessage());
+            failed.addAndGet(actions);
+            retryable.addAndGet(actions);
+        } finally {
+            requests.incrementAndGet();
+            bytesSent.addAndGet(payloadBytes);
+            throttle.release(startedAt, rejected, requestFailed);
+            requestDone();
+        }
+    }
+
+    /**
+     * Sérialise la source JSON d'un document. Ces octets bornent les lots et la mémoire,
+     * puis partent tels quels dans la requête _bulk.
+     */
+    static DocumentSource serialize(ObjectMapper objectMapper, SearchDocument document) {
+        try {
+            return new DocumentSource(document.getId(), objectMapper.writeValueAsBytes(document));
+        } catch (JsonProcessingException e) {
+            logger.error("Error serializing document {}: {}", document.getId(), e.getMessage());
+            throw new RuntimeException("Failed to serialize document: " + document.getId(), e);
+        }
+    }
+
+    public String getTargetIndex() { return targetIndex; }
+
+    public long getSucceeded() { return succeeded.get(); }
+
+    public long getFailed() { return failed.get(); }
+
+    /**
+     * Échecs transitoires (rejets 429, requête entière en erreur) qui méritent d'être rejoués,
+     * par opposition aux documents refusés par le mapping.
+     */
+    public long getRetryable() { return retryable.get(); }
+
+    public long getBytesSent() { return bytesSent.get(); }
+
+    public long getRequests() { return requests.get(); }
+}
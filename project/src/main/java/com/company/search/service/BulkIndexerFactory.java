@@ -0,0 +1,135 @@
+package com.company.search.service;
+
+import com.company.search.repository.SearchElasticsearchRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Set;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Crée des {@link BulkIndexer} configurés et partage entre eux le pool de threads
+ * qui exécute les requêtes _bulk ainsi que la régulation {@link AdaptiveThrottle}.
+ *
+ * <p>Le plafond de requêtes en vol vaut indexing.bulk.concurrent-requests, ou
+ * indexing.throttle.business-hours.concurrent-requests pendant les heures ouvrées
+ * si elles sont activées.</p>
+ */
+@Component
+public class BulkIndexerFactory {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkIndexerFactory.class);
+
+    private final SearchElasticsearchRepository elasticsearchRepository;
+    private final ObjectMapper objectMapper;
+
+    @Value("${indexing.bulk.max-actions:1000}")
+    private int maxActions;
+
+    @Value("${indexing.bulk.min-actions:100}")
+    private int minActions;
+
+    @Value("${indexing.bulk.max-bytes:5242880}")
+    private long maxBytes;
+
+    @Value("${indexing.bulk.concurrent-requests:4}")
+    private int concurrentRequests;
+
+    @Value("${indexing.bulk.executor-threads:8}")
+    private int executorThreads;
+
+    @Value("${indexing.throttle.target-latency-ms:2000}")
+    private long targetLatencyMs;
+
+    @Value("${indexing.throttle.business-hours.enabled:false}")
+    private boolean businessHoursEnabled;
+
+    @Value("${indexing.throttle.business-hours.concurrent-requests:1}")
+    private int businessHoursConcurrentRequests;
+
+    @Value("${indexing.throttle.business-hours.start:08:00}")
+    private String businessHoursStart;
+
+    @Value("${indexing.throttle.business-hours.end:19:00}")
+    private String businessHoursEnd;
+
+    @Value("${indexing.throttle.business-hours.days:MONDAY,TUESDAY,WEDNESDAY,THURSDAY,FRIDAY}")
+    private Set<DayOfWeek> businessDays;
+
+    @Value("${indexing.throttle.business-hours.zone:Europe/Paris}")
+    private String businessHoursZone;
+
+    private ThreadPoolTaskExecutor executor;
+    private AdaptiveThrottle throttle;
+
+    public BulkIndexerFactory(SearchElasticsearchRepository elasticsearchRepository, ObjectMapper objectMapper) {
+        this.elasticsearchRepository = elasticsearchRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    public void init() {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(executorThreads);
+        executor.setMaxPoolSize(executorThreads);
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("BulkIndexing-");
+        // Si la file est pleine, le producteur envoie lui-même : contre-pression naturelle
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+
+        throttle = new AdaptiveThrottle(minActions, maxActions, targetLatencyMs, this::concurrencyCeiling);
+
+        logger.info("Bulk indexing configured: actions={}..{}, maxBytes={}, concurrentRequests={}, threads={}, " +
+                        "targetLatency={}ms, businessHours={}",
+                minActions, maxActions, maxBytes, concurrentRequests, executorThreads, targetLatencyMs,
+                businessHoursEnabled ? businessHoursStart + "-" + businessHoursEnd + " " + businessDays : "off");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Crée un indexeur vers l'alias servi aux recherches.
+     */
+    public BulkIndexer create() {
+        return create(SearchElasticsearchRepository.ALIAS_NAME);
+    }
+
+    /**
+     * Crée un indexeur vers un index physique donné.
+     */
+    public BulkIndexer create(String targetIndex) {
+        return new BulkIndexer(elasticsearchRepository, objectMapper, executor,
+                targetIndex, maxBytes, throttle);
+    }
+
+    public AdaptiveThrottle getThrottle() {
+        return throttle;
+    }
+
+    private int concurrencyCeiling() {
+        if (businessHoursEnabled) {
+            ZonedDateTime now = ZonedDateTime.now(ZoneId.of(businessHoursZone));
+            LocalTime time = now.toLocalTime();
+            if (businessDays.contains(now.getDayOfWeek())
+                    && !time.isBefore(LocalTime.parse(businessHoursStart))
+                    && time.isBefore(LocalTime.parse(businessHoursEnd))) {
+                return Math.min(businessHoursConcurrentRequests, concurrentRequests);
+            }
+        }
+        return concurrentRequests;
+    }
+}
@@ -1,133 +1,287 @@
 package com.company.search.service;
 
+import com.company.search.model.IndexingJob;
 import com.company.search.model.SearchDocument;
-import com.company.search.repository.DataScyllaRepository;
+import com.company.search.repository.RepositoryExecutors;
 import com.company.search.repository.SearchElasticsearchRepository;
+import com.company.search.repository.TokenRange;
+import com.company.search.repository.TokenRangeScanner;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Stream;
 
 @Service
 public class DataIndexingService {
 
     private static final Logger logger = LoggerFactory.getLogger(DataIndexingService.class);
 
-    private final DataScyllaRepository scyllaRepository;
+    private final TokenRangeScanner tokenRangeScanner;
     private final SearchElasticsearchRepository elasticsearchRepository;
+    private final BulkIndexerFactory bulkIndexerFactory;
+    private final IncrementalIndexingService incrementalIndexingService;
+    private final IndexingQueue indexingQueue;
+    private final IndexingJobService jobService;
+    private final RepositoryExecutors executors;
+
+    @Value("${indexing.reindex.max-failure-ratio:0.001}")
+    private double maxFailureRatio;
+
+    @Value("${indexing.jobs.resume-on-startup:true}")
+    private boolean resumeOnStartup;
 
     @Autowired
-    public DataIndexingService(DataScyllaRepository scyllaRepository,
-                               SearchElasticsearchRepository elasticsearchRepository) {
-        this.scyllaRepository = scyllaRepository;
+    public DataIndexingService(TokenRangeScanner tokenRangeScanner,
+                               SearchElasticsearchRepository elasticsearchRepository,
+                               BulkIndexerFactory bulkIndexerFactory,
+                               IncrementalIndexingService incrementalIndexingService,
+                               IndexingQueue indexingQueue,
+                               IndexingJobService jobService,
+                               RepositoryExecutors executors) {
+        this.tokenRangeScanner = tokenRangeScanner;
         this.elasticsearchRepository = elasticsearchRepository;
+        this.bulkIndexerFactory = bulkIndexerFactory;
+        this.incrementalIndexingService = incrementalIndexingService;
+        this.indexingQueue = indexingQueue;
+        this.jobService = jobService;
+        this.executors = executors;
     }
 
-    @Scheduled(fixedRate = 3600000) // 1 heure
+    /**
+     * Indexe les documents modifiés depuis la dernière exécution.
+     * Planifiée par {@link IncrementalIndexingService}, appelable à la demande.
+     */
     public void indexNewDocuments() {
-        logger.info("Starting scheduled indexing of new documents");
+        logger.info("Indexing of new documents requested");
+        incrementalIndexingService.indexChanges();
+    }
 
+    /**
+     * Lance l'indexation d'une catégorie sous forme de job, voir {@link IndexingJobService}.
+     *
+     * @return Le job créé, dont la progression est consultable pendant l'exécution
+     */
+    public IndexingJob indexDocumentsByCategory(String category) {
+        IndexingJob job = jobService.create(IndexingJob.Type.INDEX_CATEGORY, category,
+                SearchElasticsearchRepository.ALIAS_NAME, tokenRangeScanner.splitRing().size());
+        submit(job, () -> runCategoryIndexing(job));
+        return job;
+    }
+
+    /**
+     * Exécute un job sur le pool des jobs d'indexation ; s'il est saturé, le job est marqué
+     * FAILED et le refus remonte à l'appelant (503).
+     */
+    private void submit(IndexingJob job, Runnable run) {
         try {
-            // Récupérer tous les documents de ScyllaDB
-            List<SearchDocument> documents = scyllaRepository.findAll();
-            logger.info("Retrieved {} documents for indexing", documents.size());
-
-            // Indexer les documents dans Elasticsearch
-            for (SearchDocument document : documents) {
-                try {
-                    elasticsearchRepository.indexDocument(document);
-                } catch (Exception e) {
-                    logger.error("Error indexing document {}: {}", document.getId(), e.getMessage(), e);
-                }
+            CompletableFuture.runAsync(run, executors.jobs());
+        } catch (RejectedExecutionException e) {
+            jobService.fail(job, e);
+            throw e;
+        }
+    }
+
+    private void runCategoryIndexing(IndexingJob job) {
+        String category = job.getCategory();
+        logger.info("Indexing documents for category: {} (job {})", category, job.getId());
+
+        try {
+            // Parcourir la catégorie par intervalles de tokens et indexer par requêtes _bulk
+            BulkIndexer bulkIndexer = bulkIndexerFactory.create(job.getTargetIndex());
+            jobService.start(job, bulkIndexer);
+            try (Stream<SearchDocument> documents = tokenRangeScanner.scanCategory(
+                    jobService.remainingRanges(job), category,
+                    (range, rows) -> checkpoint(job, bulkIndexer, range, rows));
+                 bulkIndexer) {
+                documents.forEach(bulkIndexer::add);
             }
 
-            logger.info("Completed indexing of {} documents", documents.size());
+            jobService.complete(job);
+            logger.info("Completed indexing for category {}. Success: {}, Errors: {}",
+                    category, job.getDocumentsIndexed(), job.getDocumentsFailed());
 
+        } catch (IndexingJobService.OwnershipLostException e) {
+            logger.warn("Stopping indexing of category {}: {}", category, e.getMessage());
         } catch (Exception e) {
-            logger.error("Error during scheduled indexing", e);
+            logger.error("Error indexing documents for category {}", category, e);
+            jobService.fail(job, e);
         }
     }
 
-    @Async
-    public CompletableFuture<Void> indexDocumentsByCategory(String category) {
-        return CompletableFuture.runAsync(() -> {
-            logger.info("Indexing documents for category: {}", category);
-
-            try {
-                List<SearchDocument> documents = scyllaRepository.findByCategory(category);
-                logger.info("Retrieved {} documents for category {}", documents.size(), category);
-
-                // Indexer chaque document dans Elasticsearch
-                for (SearchDocument document : documents) {
-                    try {
-                        elasticsearchRepository.indexDocument(document);
-                    } catch (Exception e) {
-                        logger.error("Error indexing document {} in category {}: {}",
-                                document.getId(), category, e.getMessage());
-                    }
-                }
-
-                logger.info("Completed indexing for category {}", category);
-
-            } catch (Exception e) {
-                logger.error("Error indexing documents for category {}", category, e);
-                throw new RuntimeException("Failed to index documents for category: " + category, e);
+    /**
+     * Confie le document à la file d'écriture ; le futur se termine avec son envoi, sans
+     * occuper de thread en attendant le flush.
+     */
+    public CompletableFuture<Void> indexSingleDocument(SearchDocument document) {
+        logger.debug("Indexing single document: {}", document.getId());
+        return indexingQueue.upsert(document).handle((result, error) -> {
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error;
+                logger.error("Error indexing document {}: {}", document.getId(), cause.getMessage());
+                throw new RuntimeException("Failed to index document: " + document.getId(), cause);
             }
+            logger.debug("Successfully indexed document: {}", document.getId());
+            return null;
         });
     }
 
-    @Async
-    public CompletableFuture<Void> indexSingleDocument(SearchDocument document) {
-        return CompletableFuture.runAsync(() -> {
-            try {
-                logger.debug("Indexing single document: {}", document.getId());
-                elasticsearchRepository.indexDocument(document);
-                logger.debug("Successfully indexed document: {}", document.getId());
-            } catch (Exception e) {
-                logger.error("Error indexing document {}: {}", document.getId(), e.getMessage());
-                throw new RuntimeException("Failed to index document: " + document.getId(), e);
+    /**
+     * Reconstruit l'index sans interruption du service.
+     *
+     * <p>Les documents sont chargés dans une nouvelle version {@code indexName_v{n+1}}
+     * pendant que les recherches continuent sur l'alias. Une fois la version vérifiée,
+     * l'alias bascule atomiquement vers elle, puis l'indexation incrémentale rejoue les
+     * modifications survenues pendant le parcours. En cas d'échec, la nouvelle version
+     * est supprimée et l'alias reste inchangé ; après un arrêt, le job reprend au
+     * démarrage suivant avec les intervalles restants.</p>
+     *
+     * @return Le job créé, dont la progression est consultable pendant l'exécution
+     */
+    public IndexingJob reindexAllDocuments() {
+        // Une seule réindexation à la fois dans le cluster, réservée avant de créer la version
+        String jobId = jobService.acquireExclusive(IndexingJob.Type.REINDEX_ALL);
+        String newIndex;
+        IndexingJob job;
+        try {
+            newIndex = elasticsearchRepository.createNextIndexVersion();
+            job = jobService.create(jobId, IndexingJob.Type.REINDEX_ALL, null,
+                    newIndex, tokenRangeScanner.splitRing().size());
+        } catch (RuntimeException e) {
+            jobService.releaseExclusive(IndexingJob.Type.REINDEX_ALL, jobId);
+            throw e;
+        }
+        try {
+            submit(job, () -> runReindex(job));
+        } catch (RejectedExecutionException e) {
+            discardIndex(newIndex);
+            throw e;
+        }
+        return job;
+    }
+
+    private void runReindex(IndexingJob job) {
+        String newIndex = job.getTargetIndex();
+        logger.info("Starting full reindexing of all documents into '{}' (job {})", newIndex, job.getId());
+
+        boolean swapped = false;
+        try {
+            // Parcourir la table en parallèle par intervalles de tokens, sans la matérialiser
+            BulkIndexer bulkIndexer = bulkIndexerFactory.create(newIndex);
+            jobService.start(job, bulkIndexer);
+            try (Stream<SearchDocument> documents = tokenRangeScanner.scan(
+                    jobService.remainingRanges(job), (range, rows) -> checkpoint(job, bulkIndexer, range, rows));
+                 bulkIndexer) {
+                documents.forEach(bulkIndexer::add);
             }
-        });
+
+            logger.info("Reindexing into '{}' completed. Success: {}, Errors: {}, Bulk requests: {}, Bytes: {}",
+                    newIndex, bulkIndexer.getSucceeded(), bulkIndexer.getFailed(),
+                    bulkIndexer.getRequests(), bulkIndexer.getBytesSent());
+
+            elasticsearchRepository.finalizeBulkLoad(newIndex);
+            verifyReindex(job);
+
+            // La bascule ne doit être faite que par le propriétaire du job
+            jobService.checkOwnership(job);
+            incrementalIndexingService.switchIndex(() -> elasticsearchRepository.swapAlias(newIndex),
+                    job.getStartedAt());
+            swapped = true;
+
+            elasticsearchRepository.deleteOldIndexVersions();
+            jobService.complete(job);
+            logger.info("Full reindexing completed, alias '{}' now points to '{}'",
+                    SearchElasticsearchRepository.ALIAS_NAME, newIndex);
+
+        } catch (IndexingJobService.OwnershipLostException e) {
+            // L'instance qui a repris le job continue à remplir l'index : il ne faut pas le supprimer
+            logger.warn("Stopping reindexing into '{}': {}", newIndex, e.getMessage());
+        } catch (Exception e) {
+            logger.error("Error during full reindexing", e);
+            jobService.fail(job, e);
+            if (!swapped) {
+                discardIndex(newIndex);
+            }
+        }
     }
 
-    @Async
-    public CompletableFuture<Void> reindexAllDocuments() {
-        return CompletableFuture.runAsync(() -> {
-            logger.info("Starting full reindexing of all documents");
-
-            try {
-                // Supprimer l'index existant et le recréer
-                elasticsearchRepository.deleteIndex();
-                elasticsearchRepository.createIndex();
-
-                // Récupérer et indexer tous les documents
-                List<SearchDocument> documents = scyllaRepository.findAll();
-                logger.info("Found {} documents to reindex", documents.size());
-
-                int successCount = 0;
-                int errorCount = 0;
-
-                for (SearchDocument document : documents) {
-                    try {
-                        elasticsearchRepository.indexDocument(document);
-                        successCount++;
-                    } catch (Exception e) {
-                        logger.error("Error reindexing document {}: {}", document.getId(), e.getMessage());
-                        errorCount++;
+    /**
+     * Un intervalle n'est enregistré qu'après l'envoi de tous ses documents.
+     */
+    private void checkpoint(IndexingJob job, BulkIndexer bulkIndexer, TokenRange range, long rows) {
+        bulkIndexer.awaitCompletion();
+        jobService.rangeCompleted(job, range, rows);
+    }
+
+    /**
+     * Reprend les jobs interrompus par l'arrêt d'une instance, celle-ci ou une autre :
+     * au démarrage puis périodiquement, une fois leur heartbeat périmé (voir
+     * {@link IndexingJobService#findInterruptedJobs()}). Un job n'est repris que par
+     * l'instance qui réussit à s'en emparer.
+     */
+    @Scheduled(initialDelayString = "${indexing.jobs.resume-initial-delay-ms:10000}",
+            fixedDelayString = "${indexing.jobs.resume-interval-ms:60000}")
+    public void resumeInterruptedJobs() {
+        if (!resumeOnStartup) {
+            return;
+        }
+
+        try {
+            for (IndexingJob job : jobService.findInterruptedJobs()) {
+                if (!jobService.claim(job)) {
+                    continue;
+                }
+                logger.info("Resuming indexing job {} ({}): {}/{} ranges already done",
+                        job.getId(), job.getType(), job.getCompletedRanges().size(), job.getTotalRanges());
+
+                if (job.getType() == IndexingJob.Type.REINDEX_ALL) {
+                    if (!elasticsearchRepository.indexExists(job.getTargetIndex())) {
+                        jobService.fail(job, new IllegalStateException(
+                                "Index '" + job.getTargetIndex() + "' no longer exists"));
+                        continue;
                     }
+                    submit(job, () -> runReindex(job));
+                } else {
+                    submit(job, () -> runCategoryIndexing(job));
                 }
+            }
+        } catch (Exception e) {
+            logger.error("Error resuming interrupted indexing jobs", e);
+        }
+    }
 
-                logger.info("Reindexing completed. Success: {}, Errors: {}", successCount, errorCount);
+    private void verifyReindex(IndexingJob job) {
+        String newIndex = job.getTargetIndex();
+        long attempted = job.getDocumentsIndexed() + job.getDocumentsFailed();
+        if (attempted > 0 && (double) job.getDocumentsFailed() / attempted > maxFailureRatio) {
+            throw new IllegalStateException(String.format(
+                    "Reindexing into '%s' failed for %d of %d documents (max ratio %s)",
+                    newIndex, job.getDocumentsFailed(), attempted, maxFailureRatio));
+        }
 
-            } catch (Exception e) {
-                logger.error("Error during full reindexing", e);
-                throw new RuntimeException("Failed to complete reindexing", e);
-            }
-        });
+        // Comparaison avec les lignes lues dans Scylla, chaque intervalle comptant une fois même
+        // après une reprise ; seuls les documents refusés par Elasticsearch peuvent manquer
+        long count = elasticsearchRepository.countDocuments(newIndex);
+        long expected = job.getSourceDocuments();
+        if (count > expected || count < expected - job.getDocumentsFailed()) {
+            throw new IllegalStateException(String.format(
+                    "Index '%s' contains %d documents, expected %d read from Scylla (%d failed)",
+                    newIndex, count, expected, job.getDocumentsFailed()));
+        }
+    }
+
+    private void discardIndex(String newIndex) {
+        try {
+            elasticsearchRepository.deleteIndex(newIndex);
+        } catch (Exception e) {
+            logger.error("Could not delete partial index '{}': {}", newIndex, e.getMessage());
+        }
     }
-}
\ No newline at end of file
+}
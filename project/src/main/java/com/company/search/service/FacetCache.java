@@ -0,0 +1,144 @@
+package com.company.search.service;
+
+import com.company.search.model.dto.SearchRequest;
+import com.company.search.model.dto.SearchResponse;
+import com.company.search.model.dto.SearchResult;
+import com.company.search.repository.IndexGeneration;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Cache des facettes, séparé de {@link SearchResultCache}.
+ *
+ * <p>Les décomptes ne dépendent que de la requête, des champs, des filtres et des facettes
+ * demandées : toutes les pages, tris et profils d'une même recherche les partagent, y compris
+ * en pagination par curseur. Quand les facettes sont en cache, la recherche est envoyée sans
+ * agrégations. Seules les requêtes sans filtre, ou demandées au moins
+ * search.facets.cache.popular-threshold fois, sont mises en cache ; la génération de l'index
+ * fait partie de la clé, comme pour les résultats.</p>
+ */
+@Component
+public class FacetCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(FacetCache.class);
+
+    private final ObjectMapper objectMapper;
+    private final IndexGeneration indexGeneration;
+    private final boolean enabled;
+    private final int popularThreshold;
+    private final long refreshGraceMillis;
+    private final Cache<String, Map<String, Object>> cache;
+    private final Cache<String, AtomicInteger> requestCounts;
+
+    @Autowired
+    public FacetCache(ObjectMapper objectMapper, IndexGeneration indexGeneration, MeterRegistry meterRegistry,
+                      @Value("${search.facets.cache.enabled:true}") boolean enabled,
+                      @Value("${search.facets.cache.max-entries:10000}") long maxEntries,
+                      @Value("${search.facets.cache.ttl-seconds:300}") long ttlSeconds,
+                      @Value("${search.facets.cache.popular-threshold:3}") int popularThreshold,
+                      @Value("${search.cache.refresh-grace-ms:1000}") long refreshGraceMillis) {
+        this.objectMapper = objectMapper;
+        this.indexGeneration = indexGeneration;
+        this.enabled = enabled;
+        this.popularThreshold = popularThreshold;
+        this.refreshGraceMillis = refreshGraceMillis;
+
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        // Fréquence des requêtes filtrées, sur la même fenêtre que les entrées
+        this.requestCounts = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "search.facets");
+
+        logger.info("Facet cache {}: max {} entries, ttl {}s, popular threshold {}",
+                enabled ? "enabled" : "disabled", maxEntries, ttlSeconds, popularThreshold);
+    }
+
+    /**
+     * Exécute la recherche avec les facettes en cache si possible, sinon avec les agrégations,
+     * et met en cache les facettes obtenues si la requête s'y prête.
+     *
+     * @param search Recherche à exécuter, avec la requête éventuellement privée de ses facettes
+     */
+    public CompletableFuture<SearchResponse<SearchResult>> search(
+            SearchRequest request, Function<SearchRequest, CompletableFuture<SearchResponse<SearchResult>>> search) {
+        if (!enabled || request.getFacets() == null || request.getFacets().isEmpty()) {
+            return search.apply(request);
+        }
+
+        String key = key(request);
+        long generation = indexGeneration.current();
+        String cacheKey = generation + "|" + key;
+
+        Map<String, Object> cached = cache.getIfPresent(cacheKey);
+        if (cached != null) {
+            SearchRequest hitsOnly = new SearchRequest(request);
+            hitsOnly.setFacets(null);
+            return search.apply(hitsOnly).thenApply(response -> {
+                response.setAggregations(cached);
+                return response;
+            });
+        }
+
+        boolean cacheable = request.getFilters() == null || request.getFilters().isEmpty()
+                || requestCounts.get(key, k -> new AtomicInteger()).incrementAndGet() >= popularThreshold;
+        long startedAt = System.currentTimeMillis();
+        return search.apply(request).thenApply(response -> {
+            if (cacheable && response.getAggregations() != null && generation == indexGeneration.current()
+                    && startedAt - indexGeneration.getLastBumpMillis() >= refreshGraceMillis) {
+                cache.put(cacheKey, response.getAggregations());
+            }
+            return response;
+        });
+    }
+
+    /**
+     * Forme canonique des paramètres dont dépendent les décomptes ; pagination, tri et profil exclus.
+     */
+    String key(SearchRequest request) {
+        List<String> fields = request.getFields() != null
+                ? new ArrayList<>(new TreeSet<>(request.getFields()))
+                : Collections.emptyList();
+        Map<String, Object> filters = request.getFilters() != null
+                ? new TreeMap<>(request.getFilters())
+                : Collections.emptyMap();
+        List<Object> parts = Arrays.asList(SearchResultCache.normalizeQuery(request.getQuery()), fields, filters,
+                request.getFacets());
+        try {
+            return objectMapper.writeValueAsString(parts);
+        } catch (JsonProcessingException e) {
+            return parts.toString();
+        }
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+}
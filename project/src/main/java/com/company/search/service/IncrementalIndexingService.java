@@ -0,0 +1,413 @@
+package com.company.search.service;
+
+import com.company.search.exception.IndexingException;
+import com.company.search.model.DocumentChange;
+import com.company.search.model.IndexingCheckpoint;
+import com.company.search.model.SearchDocument;
+import com.company.search.repository.DataScyllaRepository;
+import com.company.search.repository.DocumentChangeRepository;
+import com.company.search.repository.DocumentTombstoneRepository;
+import com.company.search.repository.IndexingCheckpointRepository;
+import com.company.search.repository.TokenRangeScanner;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Relais de l'outbox document_changes vers Elasticsearch.
+ *
+ * <p>La position de la dernière modification indexée (watermark sur changed_at,
+ * départagé par l'id) est persistée dans indexing_checkpoints. Chaque exécution
+ * lit les buckets horaires à partir de cette position par micro-lots, recharge l'état
+ * courant des documents modifiés et passe indexations et suppressions à la file
+ * d'écriture {@link IndexingQueue}. La position n'avance qu'après l'envoi des opérations
+ * qui la précèdent : une modification peut être appliquée deux fois, jamais zéro.
+ * Seuls les échecs transitoires bloquent la position ; un document refusé par le
+ * mapping est journalisé et ignoré.</p>
+ *
+ * <p>Seule une entrée DELETE, ou la pierre tombale d'une suppression, retire un document de
+ * l'index. Un document modifié mais encore introuvable (réplique en retard) arrête la position
+ * juste avant sa modification, qui est relue à l'exécution suivante.</p>
+ *
+ * <p>Une seule instance relaie l'outbox : elle détient le bail {@value #CHECKPOINT_NAME}
+ * ({@link IndexingJobService#acquireLease(String)}), les autres ne font rien.</p>
+ *
+ * <p>Les modifications plus récentes que indexing.incremental.safety-lag-ms sont
+ * laissées pour l'exécution suivante, afin de tolérer les écarts d'horloge entre
+ * instances qui écrivent.</p>
+ */
+@Service
+public class IncrementalIndexingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IncrementalIndexingService.class);
+
+    static final String CHECKPOINT_NAME = "incremental-indexing";
+
+    private final DocumentChangeRepository changeRepository;
+    private final IndexingCheckpointRepository checkpointRepository;
+    private final DataScyllaRepository scyllaRepository;
+    private final DocumentTombstoneRepository tombstoneRepository;
+    private final TokenRangeScanner tokenRangeScanner;
+    private final BulkIndexerFactory bulkIndexerFactory;
+    private final IndexingQueue indexingQueue;
+    private final IndexingJobService jobService;
+
+    @Value("${indexing.incremental.batch-size:500}")
+    private int batchSize;
+
+    @Value("${indexing.incremental.safety-lag-ms:500}")
+    private long safetyLagMs;
+
+    /**
+     * Sérialise les exécutions planifiées et les bascules d'index.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public IncrementalIndexingService(DocumentChangeRepository changeRepository,
+                                      IndexingCheckpointRepository checkpointRepository,
+                                      DataScyllaRepository scyllaRepository,
+                                      DocumentTombstoneRepository tombstoneRepository,
+                                      TokenRangeScanner tokenRangeScanner,
+                                      BulkIndexerFactory bulkIndexerFactory,
+                                      IndexingQueue indexingQueue,
+                                      IndexingJobService jobService) {
+        this.changeRepository = changeRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.scyllaRepository = scyllaRepository;
+        this.tombstoneRepository = tombstoneRepository;
+        this.tokenRangeScanner = tokenRangeScanner;
+        this.bulkIndexerFactory = bulkIndexerFactory;
+        this.indexingQueue = indexingQueue;
+        this.jobService = jobService;
+    }
+
+    @Scheduled(fixedDelayString = "${indexing.incremental.interval-ms:250}")
+    public void indexChanges() {
+        if (!lock.tryLock()) {
+            logger.debug("Incremental indexing already running, skipping");
+            return;
+        }
+
+        try {
+            if (!jobService.acquireLease(CHECKPOINT_NAME)) {
+                logger.debug("Incremental indexing runs on another instance, skipping");
+                return;
+            }
+
+            Instant now = Instant.now();
+            Optional<IndexingCheckpoint> checkpoint = checkpointRepository.findByName(CHECKPOINT_NAME);
+
+            if (checkpoint.isEmpty()) {
+                logger.info("No incremental indexing checkpoint found, bootstrapping with a full scan");
+                bootstrap(now, null);
+            } else if (checkpoint.get().getWatermark().isBefore(now.minus(DocumentChangeRepository.RETENTION))) {
+                logger.warn("Checkpoint {} is older than the change log retention, bootstrapping with a full scan",
+                        checkpoint.get().getWatermark());
+                bootstrap(now, checkpoint.get());
+            } else {
+                indexChangesSince(checkpoint.get(), now.minusMillis(safetyLagMs));
+            }
+        } catch (Exception e) {
+            logger.error("Error during incremental indexing", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Exécute la bascule d'alias d'une réindexation complète puis ramène le watermark
+     * au début de son parcours : les modifications écrites dans l'ancien index pendant
+     * le parcours sont ainsi rejouées sur le nouveau. Aucune exécution incrémentale
+     * de cette instance n'a lieu pendant la bascule ; le relais d'une autre instance voit
+     * sa sauvegarde suivante refusée (position déplacée) et repart de la position ramenée.
+     *
+     * @param aliasSwap La bascule de l'alias vers le nouvel index
+     * @param reindexStartedAt Le début du parcours de la réindexation
+     */
+    public void switchIndex(Runnable aliasSwap, Instant reindexStartedAt) {
+        lock.lock();
+        try {
+            aliasSwap.run();
+
+            Instant rewindTo = reindexStartedAt.minusMillis(safetyLagMs);
+            while (true) {
+                Optional<IndexingCheckpoint> checkpoint = checkpointRepository.findByName(CHECKPOINT_NAME);
+                if (checkpoint.isEmpty() || !checkpoint.get().getWatermark().isAfter(rewindTo)) {
+                    break;
+                }
+                // Conditionnée à la position lue : une sauvegarde concurrente du relais est relue, pas écrasée
+                if (checkpointRepository.saveIf(new IndexingCheckpoint(CHECKPOINT_NAME, rewindTo, ""), checkpoint.get())) {
+                    logger.info("Incremental indexing watermark rewound from {} to {} after index switch",
+                            checkpoint.get().getWatermark(), rewindTo);
+                    break;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void indexChangesSince(IndexingCheckpoint checkpoint, Instant horizon) {
+        Instant watermark = checkpoint.getWatermark();
+        String lastId = checkpoint.getLastId() != null ? checkpoint.getLastId() : "";
+        Instant bucket = DocumentChangeRepository.bucketOf(watermark);
+        CheckpointPipeline pipeline = new CheckpointPipeline(checkpoint);
+
+        while (!bucket.isAfter(horizon)) {
+            List<DocumentChange> changes = changeRepository.findChangesAfter(bucket, watermark, lastId, batchSize);
+            List<DocumentChange> visible = changes.stream()
+                    .filter(change -> !change.getChangedAt().isAfter(horizon))
+                    .collect(Collectors.toList());
+
+            if (!visible.isEmpty()) {
+                MicroBatch batch = loadChanges(visible);
+                if (batch.ready > 0) {
+                    List<DocumentChange> ready = visible.subList(0, batch.ready);
+                    List<CompletableFuture<Void>> operations = applyChanges(ready, batch.documents);
+
+                    DocumentChange last = ready.get(ready.size() - 1);
+                    watermark = last.getChangedAt();
+                    lastId = last.getId();
+                    pipeline.add(watermark, lastId, operations);
+                }
+                if (batch.ready < visible.size()) {
+                    DocumentChange pending = visible.get(batch.ready);
+                    logger.warn("Document {} changed at {} is not readable yet, incremental indexing will retry from there",
+                            pending.getId(), pending.getChangedAt());
+                    break;
+                }
+
+                // Les lots suivants sont lus sans attendre l'envoi de celui-ci,
+                // la file peut ainsi fusionner les modifications d'un document d'un lot à l'autre
+                if (!pipeline.saveCompleted(false)) {
+                    break;
+                }
+                if (visible.size() == batchSize) {
+                    continue;
+                }
+            }
+
+            // Bucket épuisé jusqu'à l'horizon : on ne passe au suivant que s'il est entièrement passé
+            Instant nextBucket = bucket.plus(DocumentChangeRepository.BUCKET_SIZE);
+            if (nextBucket.isAfter(horizon)) {
+                break;
+            }
+            bucket = nextBucket;
+            watermark = nextBucket;
+            lastId = "";
+            pipeline.add(watermark, lastId, Collections.emptyList());
+        }
+
+        pipeline.saveCompleted(true);
+
+        if (pipeline.indexed > 0) {
+            logger.info("Incremental indexing processed {} changed documents, watermark now ({}, {})",
+                    pipeline.indexed, pipeline.savedWatermark, pipeline.savedLastId);
+        } else {
+            logger.debug("No document changes since ({}, {})", pipeline.savedWatermark, pipeline.savedLastId);
+        }
+    }
+
+    /**
+     * Relit l'état courant des documents dont une modification est un UPSERT et détermine
+     * jusqu'où le micro-lot peut être appliqué. Un document introuvable n'est supprimé que si
+     * sa suppression est attestée (entrée DELETE plus loin dans le lot ou pierre tombale) ;
+     * sinon le lot s'arrête avant sa première modification UPSERT.
+     */
+    private MicroBatch loadChanges(List<DocumentChange> changes) {
+        Map<String, DocumentChange.Operation> latest = latestOperations(changes);
+        Set<String> upserts = changes.stream()
+                .filter(change -> change.getOperation() == DocumentChange.Operation.UPSERT)
+                .map(DocumentChange::getId)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+
+        Map<String, SearchDocument> documents = new HashMap<>();
+        for (SearchDocument document : scyllaRepository.findByIds(upserts)) {
+            documents.put(document.getId(), document);
+        }
+
+        Set<String> missing = upserts.stream()
+                .filter(id -> !documents.containsKey(id))
+                .filter(id -> latest.get(id) == DocumentChange.Operation.UPSERT)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        missing.removeAll(tombstoneRepository.findTombstonedIds(missing));
+
+        int ready = changes.size();
+        for (int i = 0; i < changes.size(); i++) {
+            DocumentChange change = changes.get(i);
+            if (change.getOperation() == DocumentChange.Operation.UPSERT && missing.contains(change.getId())) {
+                ready = i;
+                break;
+            }
+        }
+        return new MicroBatch(documents, ready);
+    }
+
+    /**
+     * Applique un micro-lot de modifications. Plusieurs modifications d'un même document
+     * ne donnent qu'une opération, déterminée par la dernière : une suppression est envoyée
+     * telle quelle, sinon l'état courant relu par {@link #loadChanges(List)}. Un document
+     * introuvable à ce stade a une suppression attestée, qui est envoyée à sa place.
+     *
+     * @return Une opération en attente par document distinct
+     */
+    private List<CompletableFuture<Void>> applyChanges(List<DocumentChange> changes,
+                                                       Map<String, SearchDocument> documents) {
+        Map<String, DocumentChange.Operation> latest = latestOperations(changes);
+        List<CompletableFuture<Void>> operations = new ArrayList<>(latest.size());
+        latest.forEach((id, operation) -> {
+            SearchDocument document = documents.get(id);
+            if (operation == DocumentChange.Operation.UPSERT && document != null) {
+                operations.add(indexingQueue.upsert(document));
+            } else {
+                operations.add(indexingQueue.delete(id));
+            }
+        });
+        return operations;
+    }
+
+    private static Map<String, DocumentChange.Operation> latestOperations(List<DocumentChange> changes) {
+        Map<String, DocumentChange.Operation> latest = new LinkedHashMap<>();
+        for (DocumentChange change : changes) {
+            latest.remove(change.getId());
+            latest.put(change.getId(), change.getOperation());
+        }
+        return latest;
+    }
+
+    /**
+     * Documents relus pour un micro-lot et nombre de modifications applicables en tête du lot.
+     */
+    private static class MicroBatch {
+        private final Map<String, SearchDocument> documents;
+        private final int ready;
+
+        MicroBatch(Map<String, SearchDocument> documents, int ready) {
+            this.documents = documents;
+            this.ready = ready;
+        }
+    }
+
+    /**
+     * Positions lues dont les opérations sont encore dans la file d'écriture.
+     * Une position n'est sauvegardée qu'une fois ses opérations et celles des
+     * positions précédentes envoyées ; un échec transitoire bloque la suite, de même
+     * qu'une position déplacée par un autre écrivain depuis sa lecture.
+     */
+    private class CheckpointPipeline {
+        private final Deque<PendingPosition> positions = new ArrayDeque<>();
+        private IndexingCheckpoint saved;
+        private Instant savedWatermark;
+        private String savedLastId;
+        private long indexed;
+        private boolean blocked;
+
+        CheckpointPipeline(IndexingCheckpoint checkpoint) {
+            this.saved = checkpoint;
+            this.savedWatermark = checkpoint.getWatermark();
+            this.savedLastId = checkpoint.getLastId() != null ? checkpoint.getLastId() : "";
+        }
+
+        void add(Instant watermark, String lastId, List<CompletableFuture<Void>> operations) {
+            positions.add(new PendingPosition(watermark, lastId, operations));
+        }
+
+        /**
+         * Sauvegarde les positions dont les opérations sont terminées.
+         *
+         * @param wait Attendre la fin de toutes les opérations en attente
+         * @return false si un échec transitoire impose de reprendre depuis la dernière position sauvegardée
+         */
+        boolean saveCompleted(boolean wait) {
+            while (!blocked && !positions.isEmpty()) {
+                PendingPosition position = positions.peek();
+                if (!wait && !position.operations.stream().allMatch(CompletableFuture::isDone)) {
+                    return true;
+                }
+
+                for (CompletableFuture<Void> operation : position.operations) {
+                    Throwable failure = operation.handle((result, error) -> error).join();
+                    if (failure instanceof IndexingException && ((IndexingException) failure).isRetryable()) {
+                        logger.warn("Incremental indexing had a transient failure, will retry from ({}, {}): {}",
+                                savedWatermark, savedLastId, failure.getMessage());
+                        blocked = true;
+                        return false;
+                    }
+                    if (failure != null) {
+                        logger.warn("Incremental indexing skipped a document: {}", failure.getMessage());
+                    }
+                }
+
+                positions.poll();
+                IndexingCheckpoint next = new IndexingCheckpoint(CHECKPOINT_NAME, position.watermark, position.lastId);
+                if (!checkpointRepository.saveIf(next, saved)) {
+                    logger.warn("Incremental indexing checkpoint was moved by another writer, stopping at ({}, {})",
+                            savedWatermark, savedLastId);
+                    blocked = true;
+                    return false;
+                }
+                saved = next;
+                savedWatermark = position.watermark;
+                savedLastId = position.lastId;
+                indexed += position.operations.size();
+            }
+            return !blocked;
+        }
+    }
+
+    private static class PendingPosition {
+        private final Instant watermark;
+        private final String lastId;
+        private final List<CompletableFuture<Void>> operations;
+
+        PendingPosition(Instant watermark, String lastId, List<CompletableFuture<Void>> operations) {
+            this.watermark = watermark;
+            this.lastId = lastId;
+            this.operations = operations;
+        }
+    }
+
+    /**
+     * Premier passage : indexe toute la table puis place le watermark au début du parcours,
+     * les modifications concurrentes au parcours seront relues par l'exécution suivante.
+     *
+     * @param previous La position périmée à remplacer, ou null s'il n'y en a pas
+     */
+    private void bootstrap(Instant startedAt, IndexingCheckpoint previous) {
+        BulkIndexer bulkIndexer = bulkIndexerFactory.create();
+        try (Stream<SearchDocument> documents = tokenRangeScanner.scanAll(); bulkIndexer) {
+            documents.forEach(bulkIndexer::add);
+        }
+
+        Instant watermark = startedAt.minusMillis(safetyLagMs);
+        IndexingCheckpoint checkpoint = new IndexingCheckpoint(CHECKPOINT_NAME, watermark, "");
+        boolean saved = previous == null
+                ? checkpointRepository.create(checkpoint)
+                : checkpointRepository.saveIf(checkpoint, previous);
+        if (!saved) {
+            logger.warn("Incremental indexing checkpoint was written by another instance during the bootstrap, keeping it");
+        }
+
+        logger.info("Incremental indexing bootstrap completed. Success: {}, Errors: {}, watermark set to {}",
+                bulkIndexer.getSucceeded(), bulkIndexer.getFailed(), watermark);
+    }
+}
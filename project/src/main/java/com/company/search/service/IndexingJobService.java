@@ -0,0 +1,459 @@
+package com.company.search.service;
+
+import com.company.search.model.IndexingJob;
+import com.company.search.repository.IndexingJobRepository;
+import com.company.search.repository.TokenRange;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Suivi des jobs d'indexation : création, checkpoints par intervalle de tokens,
+ * progression en direct et recherche des jobs interrompus à reprendre.
+ *
+ * <p>Les compteurs persistés sont ceux des exécutions précédentes plus ceux de
+ * l'indexeur courant au dernier checkpoint. Pour un job en cours dans cette instance,
+ * {@link #getJob(String)} renvoie les compteurs à jour ainsi que les débits et l'ETA
+ * de l'exécution courante.</p>
+ *
+ * <p>Plusieurs instances peuvent partager la table : chaque job appartient à l'instance qui
+ * l'exécute, qui renouvelle son heartbeat toutes les indexing.jobs.heartbeat-interval-ms.
+ * Toutes les écritures d'un job sont conditionnées au propriétaire ; une instance qui a perdu
+ * son job s'arrête au checkpoint suivant ({@link OwnershipLostException}). Un job RUNNING
+ * n'est considéré comme interrompu que si son heartbeat date de plus de
+ * indexing.jobs.stale-after-ms, qui doit couvrir plusieurs heartbeats et l'écart d'horloge
+ * entre instances.</p>
+ *
+ * <p>Une réindexation complète est exclusive : {@link #acquireExclusive(IndexingJob.Type)}
+ * la réserve dans tout le cluster avant la création de l'index cible, et le verrou est rendu
+ * quand le job se termine.</p>
+ *
+ * <p>Les tâches périodiques qu'une seule instance doit exécuter à la fois (relais de l'outbox,
+ * réconciliation) prennent un bail dans la même table, au nom de l'instance
+ * ({@link #acquireLease(String)}) ; il est renouvelé avec les heartbeats et repris par une autre
+ * instance s'il ne l'a pas été depuis indexing.jobs.stale-after-ms.</p>
+ */
+@Service
+public class IndexingJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IndexingJobService.class);
+
+    private final IndexingJobRepository jobRepository;
+
+    private final Map<String, ActiveJob> activeJobs = new ConcurrentHashMap<>();
+
+    /** Baux détenus par cette instance et date de leur dernier renouvellement. */
+    private final Map<String, Instant> leases = new ConcurrentHashMap<>();
+
+    private final String instanceId;
+
+    private final Duration staleAfter;
+
+    @Autowired
+    public IndexingJobService(IndexingJobRepository jobRepository,
+                              @Value("${indexing.jobs.instance-id:}") String instanceId,
+                              @Value("${indexing.jobs.stale-after-ms:60000}") long staleAfterMs) {
+        this.jobRepository = jobRepository;
+        this.instanceId = instanceId.isBlank() ? defaultInstanceId() : instanceId;
+        this.staleAfter = Duration.ofMillis(staleAfterMs);
+        logger.info("Indexing jobs owned by instance '{}', stale after {}ms", this.instanceId, staleAfterMs);
+    }
+
+    /**
+     * Nom d'hôte et suffixe aléatoire : après un redémarrage, les jobs de l'exécution
+     * précédente ne sont repris qu'une fois leur heartbeat périmé, comme pour une autre instance.
+     */
+    private static String defaultInstanceId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "unknown-host";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    public IndexingJob create(IndexingJob.Type type, String category, String targetIndex, int totalRanges) {
+        return create(UUID.randomUUID().toString(), type, category, targetIndex, totalRanges);
+    }
+
+    /**
+     * Crée le job d'identifiant réservé par {@link #acquireExclusive(IndexingJob.Type)}.
+     */
+    public IndexingJob create(String id, IndexingJob.Type type, String category, String targetIndex,
+                              int totalRanges) {
+        IndexingJob job = new IndexingJob(id, type, category, targetIndex, totalRanges);
+        job.setOwner(instanceId);
+        job.setHeartbeatAt(job.getStartedAt());
+        jobRepository.save(job);
+        logger.info("Indexing job {} created: {} {} into '{}'",
+                job.getId(), type, category != null ? category : "", targetIndex);
+        return job;
+    }
+
+    /**
+     * Réserve le seul job de ce type autorisé dans le cluster.
+     *
+     * <p>Le verrou d'un job terminé, ou d'un job jamais créé après indexing.jobs.stale-after-ms
+     * (instance arrêtée entre la réservation et la création), est repris ; un job RUNNING
+     * garde le verrou, y compris interrompu, jusqu'à ce qu'il soit repris et terminé.</p>
+     *
+     * @return L'identifiant à donner au job, voir {@link #create(String, IndexingJob.Type, String, String, int)}
+     * @throws IllegalStateException si un job de ce type est déjà en cours
+     */
+    public String acquireExclusive(IndexingJob.Type type) {
+        String jobId = UUID.randomUUID().toString();
+        Instant now = Instant.now();
+        IndexingJobRepository.Lock lock = jobRepository.lock(type.name(), jobId, now);
+        if (!lock.getJobId().equals(jobId)) {
+            if (isHeld(lock, now) || !jobRepository.replaceLock(type.name(), lock.getJobId(), jobId, now)) {
+                throw new IllegalStateException("A " + type + " job is already running: " + lock.getJobId());
+            }
+            logger.info("Released abandoned {} lock of job {}", type, lock.getJobId());
+        }
+        return jobId;
+    }
+
+    private boolean isHeld(IndexingJobRepository.Lock lock, Instant now) {
+        Optional<IndexingJob> holder = jobRepository.findById(lock.getJobId());
+        if (holder.isPresent()) {
+            return holder.get().getStatus() == IndexingJob.Status.RUNNING;
+        }
+        return lock.getLockedAt() != null && lock.getLockedAt().isAfter(now.minus(staleAfter));
+    }
+
+    /**
+     * Rend un verrou obtenu par {@link #acquireExclusive(IndexingJob.Type)} ; appelé à la fin
+     * du job, ou directement si le job n'a pas pu être créé.
+     */
+    public void releaseExclusive(IndexingJob.Type type, String jobId) {
+        jobRepository.unlock(type.name(), jobId);
+    }
+
+    /**
+     * Prend, ou confirme, le bail {@code name} pour cette instance. Le bail est gardé
+     * jusqu'à {@link #releaseLease(String)} ou l'arrêt de l'instance : l'instance qui exécute
+     * une tâche continue de l'exécuter, sans alternance à chaque exécution.
+     *
+     * @return false si une autre instance détient le bail
+     */
+    public boolean acquireLease(String name) {
+        Instant now = Instant.now();
+        Instant renewedAt = leases.get(name);
+        if (renewedAt != null && renewedAt.isAfter(now.minus(staleAfter))) {
+            return true;
+        }
+
+        IndexingJobRepository.Lock lock = jobRepository.lock(name, instanceId, now);
+        String holder = lock.getJobId();
+        boolean acquired;
+        if (holder.equals(instanceId)) {
+            acquired = now.equals(lock.getLockedAt()) || jobRepository.replaceLock(name, instanceId, instanceId, now);
+        } else {
+            acquired = (lock.getLockedAt() == null || lock.getLockedAt().isBefore(now.minus(staleAfter)))
+                    && jobRepository.replaceLock(name, holder, instanceId, now);
+            if (acquired) {
+                logger.info("Lease {} taken over from '{}'", name, holder);
+            }
+        }
+
+        if (acquired) {
+            leases.put(name, now);
+        } else {
+            leases.remove(name);
+        }
+        return acquired;
+    }
+
+    /**
+     * Rend un bail obtenu par {@link #acquireLease(String)}.
+     */
+    public void releaseLease(String name) {
+        if (leases.remove(name) != null) {
+            jobRepository.unlock(name, instanceId);
+        }
+    }
+
+    /**
+     * À l'arrêt, les baux sont rendus pour qu'une autre instance reprenne les tâches sans
+     * attendre indexing.jobs.stale-after-ms.
+     */
+    @PreDestroy
+    public void releaseLeases() {
+        for (String name : leases.keySet()) {
+            try {
+                releaseLease(name);
+            } catch (Exception e) {
+                logger.warn("Could not release lease {}: {}", name, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Intervalles restant à parcourir, dans le découpage choisi à la création du job.
+     */
+    public List<TokenRange> remainingRanges(IndexingJob job) {
+        return TokenRange.split(job.getTotalRanges()).stream()
+                .filter(range -> !job.getCompletedRanges().contains(range.getIndex()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Démarre une exécution du job avec l'indexeur qui en porte les compteurs.
+     */
+    public void start(IndexingJob job, BulkIndexer bulkIndexer) {
+        synchronized (job) {
+            job.setAttempts(job.getAttempts() + 1);
+            job.setStatus(IndexingJob.Status.RUNNING);
+            job.setUpdatedAt(Instant.now());
+            job.setHeartbeatAt(job.getUpdatedAt());
+            saveOwned(job);
+        }
+        activeJobs.put(job.getId(), new ActiveJob(job, bulkIndexer));
+    }
+
+    /**
+     * S'empare d'un job interrompu trouvé par {@link #findInterruptedJobs()}.
+     *
+     * @return false si une autre instance l'a repris entre-temps
+     */
+    public boolean claim(IndexingJob job) {
+        synchronized (job) {
+            String previousOwner = job.getOwner();
+            job.setOwner(instanceId);
+            job.setHeartbeatAt(Instant.now());
+            if (jobRepository.saveIfOwner(job, previousOwner)) {
+                logger.info("Indexing job {} claimed from '{}'", job.getId(), previousOwner);
+                return true;
+            }
+        }
+        logger.info("Indexing job {} already claimed by another instance", job.getId());
+        return false;
+    }
+
+    /**
+     * Vérifie, par un heartbeat conditionnel, que le job appartient toujours à cette instance.
+     * À appeler avant une étape qui ne doit être faite qu'une fois (bascule d'alias).
+     */
+    public void checkOwnership(IndexingJob job) {
+        Instant now = Instant.now();
+        if (!jobRepository.heartbeat(job.getId(), instanceId, now)) {
+            throw new OwnershipLostException(job);
+        }
+        synchronized (job) {
+            job.setHeartbeatAt(now);
+        }
+    }
+
+    /**
+     * Renouvelle le heartbeat des jobs en cours dans cette instance, ainsi que ses baux. Un job
+     * repris ailleurs est signalé ici, puis arrêté à son checkpoint suivant ; un bail repris
+     * ailleurs est abandonné.
+     */
+    @Scheduled(fixedDelayString = "${indexing.jobs.heartbeat-interval-ms:10000}")
+    public void heartbeat() {
+        for (ActiveJob active : activeJobs.values()) {
+            IndexingJob job = active.job;
+            try {
+                Instant now = Instant.now();
+                if (jobRepository.heartbeat(job.getId(), instanceId, now)) {
+                    synchronized (job) {
+                        job.setHeartbeatAt(now);
+                    }
+                } else {
+                    logger.warn("Indexing job {} was taken over by another instance", job.getId());
+                }
+            } catch (Exception e) {
+                logger.warn("Could not renew heartbeat of indexing job {}: {}", job.getId(), e.getMessage());
+            }
+        }
+
+        for (String name : leases.keySet()) {
+            try {
+                Instant now = Instant.now();
+                if (jobRepository.replaceLock(name, instanceId, instanceId, now)) {
+                    leases.replace(name, now);
+                } else {
+                    leases.remove(name);
+                    logger.warn("Lease {} was taken over by another instance", name);
+                }
+            } catch (Exception e) {
+                logger.warn("Could not renew lease {}: {}", name, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Écrit l'état du job si cette instance en est toujours propriétaire.
+     */
+    private void saveOwned(IndexingJob job) {
+        if (!jobRepository.saveIfOwner(job, instanceId)) {
+            throw new OwnershipLostException(job);
+        }
+    }
+
+    /**
+     * Checkpoint d'un intervalle dont tous les documents ont été acceptés par Elasticsearch.
+     *
+     * @param sourceRows Lignes lues dans Scylla pour cet intervalle
+     */
+    public void rangeCompleted(IndexingJob job, TokenRange range, long sourceRows) {
+        ActiveJob active = activeJobs.get(job.getId());
+        synchronized (job) {
+            if (job.getCompletedRanges().add(range.getIndex())) {
+                job.setSourceDocuments(job.getSourceDocuments() + sourceRows);
+            }
+            if (active != null) {
+                active.updateCounters();
+            }
+            job.setUpdatedAt(Instant.now());
+            saveOwned(job);
+        }
+        logger.debug("Indexing job {}: {} completed ({}/{})",
+                job.getId(), range, job.getCompletedRanges().size(), job.getTotalRanges());
+    }
+
+    public void complete(IndexingJob job) {
+        finish(job, IndexingJob.Status.COMPLETED, null);
+        logger.info("Indexing job {} completed: {} documents indexed, {} failed",
+                job.getId(), job.getDocumentsIndexed(), job.getDocumentsFailed());
+    }
+
+    public void fail(IndexingJob job, Exception cause) {
+        finish(job, IndexingJob.Status.FAILED, cause.getMessage());
+        logger.error("Indexing job {} failed: {}", job.getId(), cause.getMessage());
+    }
+
+    private void finish(IndexingJob job, IndexingJob.Status status, String error) {
+        ActiveJob active = activeJobs.remove(job.getId());
+        synchronized (job) {
+            if (active != null) {
+                active.updateCounters();
+            }
+            job.setStatus(status);
+            job.setError(error);
+            job.setFinishedAt(Instant.now());
+            job.setUpdatedAt(job.getFinishedAt());
+            if (!jobRepository.saveIfOwner(job, instanceId)) {
+                // Le job continue ailleurs : le verrou lui reste
+                logger.warn("Indexing job {} now belongs to another instance, {} not recorded", job.getId(), status);
+                return;
+            }
+        }
+        if (job.getType() == IndexingJob.Type.REINDEX_ALL) {
+            releaseExclusive(job.getType(), job.getId());
+        }
+    }
+
+    /**
+     * État d'un job ; avec débits et ETA s'il est en cours dans cette instance.
+     */
+    public Optional<IndexingJob> getJob(String id) {
+        ActiveJob active = activeJobs.get(id);
+        if (active != null) {
+            return Optional.of(active.snapshot());
+        }
+        return jobRepository.findById(id);
+    }
+
+    public List<IndexingJob> listJobs() {
+        return jobRepository.findAll().stream()
+                .map(job -> getJob(job.getId()).orElse(job))
+                .sorted(Comparator.comparing(IndexingJob::getStartedAt, Comparator.nullsLast(Comparator.reverseOrder())))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Jobs restés RUNNING dont le propriétaire ne donne plus signe de vie depuis
+     * indexing.jobs.stale-after-ms : interrompus par un arrêt, quelle que soit l'instance.
+     */
+    public List<IndexingJob> findInterruptedJobs() {
+        Instant staleBefore = Instant.now().minus(staleAfter);
+        return jobRepository.findAll().stream()
+                .filter(job -> job.getStatus() == IndexingJob.Status.RUNNING)
+                .filter(job -> !activeJobs.containsKey(job.getId()))
+                .filter(job -> lastSeen(job) == null || lastSeen(job).isBefore(staleBefore))
+                .collect(Collectors.toList());
+    }
+
+    /** Heartbeat, ou dernière mise à jour pour un job antérieur au suivi des propriétaires. */
+    private static Instant lastSeen(IndexingJob job) {
+        return job.getHeartbeatAt() != null ? job.getHeartbeatAt() : job.getUpdatedAt();
+    }
+
+    /**
+     * Le job a été repris par une autre instance : celle-ci doit s'arrêter sans toucher
+     * à l'index cible ni à l'état du job.
+     */
+    public static class OwnershipLostException extends IllegalStateException {
+        private static final long serialVersionUID = 1L;
+
+        public OwnershipLostException(IndexingJob job) {
+            super("Indexing job " + job.getId() + " is now owned by another instance");
+        }
+    }
+
+    /**
+     * Exécution en cours : compteurs des exécutions précédentes et indexeur courant.
+     */
+    private static class ActiveJob {
+        private final IndexingJob job;
+        private final BulkIndexer bulkIndexer;
+        private final long baseIndexed;
+        private final long baseFailed;
+        private final long baseBytes;
+        private final int baseRanges;
+        private final Instant runStartedAt = Instant.now();
+
+        ActiveJob(IndexingJob job, BulkIndexer bulkIndexer) {
+            this.job = job;
+            this.bulkIndexer = bulkIndexer;
+            this.baseIndexed = job.getDocumentsIndexed();
+            this.baseFailed = job.getDocumentsFailed();
+            this.baseBytes = job.getBytesSent();
+            this.baseRanges = job.getCompletedRanges().size();
+        }
+
+        void updateCounters() {
+            job.setDocumentsIndexed(baseIndexed + bulkIndexer.getSucceeded());
+            job.setDocumentsFailed(baseFailed + bulkIndexer.getFailed());
+            job.setBytesSent(baseBytes + bulkIndexer.getBytesSent());
+        }
+
+        IndexingJob snapshot() {
+            IndexingJob view;
+            synchronized (job) {
+                updateCounters();
+                view = new IndexingJob(job);
+            }
+
+            double elapsedSeconds = Math.max(Duration.between(runStartedAt, Instant.now()).toMillis(), 1) / 1000.0;
+            view.setDocumentsPerSecond(bulkIndexer.getSucceeded() / elapsedSeconds);
+            view.setBytesPerSecond(bulkIndexer.getBytesSent() / elapsedSeconds);
+
+            // Les intervalles sont de taille égale sur l'anneau : leur proportion estime l'avancement
+            int rangesThisRun = view.getCompletedRanges().size() - baseRanges;
+            int remaining = view.getTotalRanges() - view.getCompletedRanges().size();
+            if (rangesThisRun > 0) {
+                view.setEtaSeconds(Math.round(elapsedSeconds / rangesThisRun * remaining));
+            }
+            return view;
+        }
+    }
+}
@@ -0,0 +1,336 @@
+package com.company.search.service;
+
+import com.company.search.exception.IndexingException;
+import com.company.search.model.SearchDocument;
+import com.company.search.model.dto.BulkIndexResult;
+import com.company.search.model.dto.DocumentSource;
+import com.company.search.repository.SearchElasticsearchRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * File d'écriture différée entre les écritures de documents et Elasticsearch.
+ *
+ * <p>Les opérations en attente sont regroupées par identifiant : plusieurs modifications
+ * d'un même document avant l'envoi ne donnent qu'une opération portant le dernier état.
+ * Un thread unique envoie les opérations par requêtes _bulk dès que la taille ou le nombre
+ * d'opérations en attente atteint son seuil, ou que la plus ancienne a attendu
+ * indexing.queue.flush-interval-ms. Un seul envoi à la fois garantit l'ordre des
+ * opérations d'un même document.</p>
+ *
+ * <p>La mémoire est bornée en octets (sources JSON en attente et en vol) : lorsque
+ * indexing.queue.max-bytes est atteint, les producteurs attendent. Chaque opération
+ * renvoie un CompletableFuture complété après l'envoi, en échec avec une
+ * {@link IndexingException} si Elasticsearch l'a refusée.</p>
+ */
+@Component
+public class IndexingQueue implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(IndexingQueue.class);
+
+    private final SearchElasticsearchRepository repository;
+    private final ObjectMapper objectMapper;
+    private final String targetIndex;
+    private final long maxBytes;
+    private final long flushBytes;
+    private final int maxActions;
+    private final long flushIntervalNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    private final Condition flushNeeded = lock.newCondition();
+
+    /** Opérations en attente dans l'ordre de leur première mise en file. */
+    private final LinkedHashMap<String, PendingOperation> pending = new LinkedHashMap<>();
+    private long pendingBytes;
+    private long bufferedBytes;
+    private boolean closed;
+
+    private Thread flusher;
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+
+    @Autowired
+    public IndexingQueue(SearchElasticsearchRepository repository, ObjectMapper objectMapper,
+                         @Value("${indexing.queue.max-bytes:33554432}") long maxBytes,
+                         @Value("${indexing.queue.flush-bytes:5242880}") long flushBytes,
+                         @Value("${indexing.bulk.max-actions:1000}") int maxActions,
+                         @Value("${indexing.queue.flush-interval-ms:200}") long flushIntervalMs) {
+        this(repository, objectMapper, SearchElasticsearchRepository.ALIAS_NAME,
+                maxBytes, flushBytes, maxActions, flushIntervalMs);
+    }
+
+    IndexingQueue(SearchElasticsearchRepository repository, ObjectMapper objectMapper, String targetIndex,
+                  long maxBytes, long flushBytes, int maxActions, long flushIntervalMs) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.targetIndex = targetIndex;
+        this.maxBytes = maxBytes;
+        this.flushBytes = flushBytes;
+        this.maxActions = maxActions;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+    }
+
+    /**
+     * Démarre le thread d'envoi, une fois le bean entièrement construit ; arrêté par {@link #close()}.
+     */
+    @PostConstruct
+    public void start() {
+        lock.lock();
+        try {
+            if (closed || flusher != null) {
+                return;
+            }
+            flusher = new Thread(this::runFlusher, "IndexingQueue-flusher");
+            flusher.setDaemon(true);
+            flusher.start();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Met en file l'indexation du dernier état d'un document.
+     */
+    public CompletableFuture<Void> upsert(SearchDocument document) {
+        DocumentSource source = BulkIndexer.serialize(objectMapper, document);
+        return enqueue(document.getId(), source, source.size());
+    }
+
+    /**
+     * Met en file la suppression d'un document.
+     */
+    public CompletableFuture<Void> delete(String id) {
+        return enqueue(id, null, id.length() + BulkIndexer.DELETE_ACTION_OVERHEAD);
+    }
+
+    private CompletableFuture<Void> enqueue(String id, DocumentSource document, long bytes) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("IndexingQueue is closed");
+            }
+            submitted.incrementAndGet();
+
+            PendingOperation existing = pending.get(id);
+            if (existing != null) {
+                // Le dernier état remplace le précédent, qui n'a pas encore été envoyé
+                pendingBytes += bytes - existing.bytes;
+                bufferedBytes += bytes - existing.bytes;
+                existing.document = document;
+                existing.bytes = bytes;
+                existing.waiters.add(future);
+                coalesced.incrementAndGet();
+            } else {
+                while (bufferedBytes > 0 && bufferedBytes + bytes > maxBytes && !closed) {
+                    flushNeeded.signal();
+                    notFull.awaitUninterruptibly();
+                }
+                if (closed) {
+                    throw new IllegalStateException("IndexingQueue is closed");
+                }
+                pending.put(id, new PendingOperation(id, document, bytes, future));
+                pendingBytes += bytes;
+                bufferedBytes += bytes;
+            }
+
+            if (pending.size() >= maxActions || pendingBytes >= flushBytes) {
+                flushNeeded.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+        return future;
+    }
+
+    private void runFlusher() {
+        while (true) {
+            List<PendingOperation> batch = nextBatch();
+            if (batch == null) {
+                return;
+            }
+            send(batch);
+        }
+    }
+
+    /**
+     * Attend qu'un lot soit prêt à partir et le retire de la file.
+     *
+     * @return Le lot à envoyer, ou null lorsque la file est fermée et vide
+     */
+    private List<PendingOperation> nextBatch() {
+        lock.lock();
+        try {
+            while (true) {
+                if (pending.isEmpty()) {
+                    if (closed) {
+                        return null;
+                    }
+                    flushNeeded.awaitUninterruptibly();
+                    continue;
+                }
+
+                long waitNanos = pending.values().iterator().next().enqueuedAt + flushIntervalNanos - System.nanoTime();
+                boolean full = pending.size() >= maxActions || pendingBytes >= flushBytes;
+                if (full || closed || waitNanos <= 0) {
+                    break;
+                }
+                try {
+                    flushNeeded.awaitNanos(waitNanos);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+
+            List<PendingOperation> batch = new ArrayList<>();
+            Iterator<PendingOperation> iterator = pending.values().iterator();
+            while (iterator.hasNext() && batch.size() < maxActions) {
+                PendingOperation operation = iterator.next();
+                iterator.remove();
+                pendingBytes -= operation.bytes;
+                batch.add(operation);
+            }
+            return batch;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void send(List<PendingOperation> batch) {
+        List<DocumentSource> documents = new ArrayList<>();
+        List<String> deleteIds = new ArrayList<>();
+        long batchBytes = 0;
+        for (PendingOperation operation : batch) {
+            if (operation.document != null) {
+                documents.add(operation.document);
+            } else {
+                deleteIds.add(operation.id);
+            }
+            batchBytes += operation.bytes;
+        }
+
+        try {
+            BulkIndexResult result = repository.bulkIndex(targetIndex, documents, deleteIds);
+            Set<String> failedIds = new HashSet<>(result.getFailedIds());
+            Set<String> rejectedIds = new HashSet<>(result.getRejectedIds());
+
+            for (PendingOperation operation : batch) {
+                if (failedIds.contains(operation.id)) {
+                    boolean retryable = rejectedIds.contains(operation.id);
+                    operation.fail(new IndexingException(
+                            "Indexing of document " + operation.id + " failed", retryable));
+                } else {
+                    operation.complete();
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Write-behind bulk request of {} operations to '{}' failed: {}",
+                    batch.size(), targetIndex, e.getMessage());
+            IndexingException failure = new IndexingException("Bulk request failed", true, e);
+            batch.forEach(operation -> operation.fail(failure));
+        } finally {
+            sent.addAndGet(batch.size());
+            lock.lock();
+            try {
+                bufferedBytes -= batchBytes;
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Envoie les opérations en attente puis arrête le thread d'envoi. Avant {@link #start()},
+     * les opérations en attente ne sont pas envoyées.
+     */
+    @Override
+    @PreDestroy
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            flushNeeded.signal();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        if (flusher == null) {
+            return;
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        logger.info("IndexingQueue for '{}' closed: {} submitted, {} coalesced, {} sent",
+                targetIndex, submitted.get(), coalesced.get(), sent.get());
+    }
+
+    public long getSubmitted() { return submitted.get(); }
+
+    /** Opérations absorbées par une opération en attente sur le même document. */
+    public long getCoalesced() { return coalesced.get(); }
+
+    public long getSent() { return sent.get(); }
+
+    /** Octets en attente ou en cours d'envoi. */
+    public long getBufferedBytes() {
+        lock.lock();
+        try {
+            return bufferedBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static class PendingOperation {
+        private final String id;
+        private final long enqueuedAt = System.nanoTime();
+        private final List<CompletableFuture<Void>> waiters = new ArrayList<>();
+        private DocumentSource document;
+        private long bytes;
+
+        PendingOperation(String id, DocumentSource document, long bytes, CompletableFuture<Void> waiter) {
+            this.id = id;
+            this.document = document;
+            this.bytes = bytes;
+            this.waiters.add(waiter);
+        }
+
+        void complete() {
+            waiters.forEach(waiter -> waiter.complete(null));
+        }
+
+        void fail(IndexingException failure) {
+            waiters.forEach(waiter -> waiter.completeExceptionally(failure));
+        }
+    }
+}
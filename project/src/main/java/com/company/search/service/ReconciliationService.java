@@ -0,0 +1,221 @@
+package com.company.search.service;
+
+import com.company.search.model.SearchDocument;
+import com.company.search.model.dto.ReconciliationResult;
+import com.company.search.repository.DataScyllaRepository;
+import com.company.search.repository.DocumentTombstoneRepository;
+import com.company.search.repository.RepositoryExecutors;
+import com.company.search.repository.SearchElasticsearchRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Réconciliation périodique des identifiants entre ScyllaDB et Elasticsearch.
+ *
+ * <p>Trois passes, chacune en flux par lots de indexing.reconciliation.batch-size
+ * identifiants, sans jamais charger un ensemble complet d'identifiants en mémoire :</p>
+ * <ol>
+ *     <li>les pierres tombales encore présentes dans l'index sont supprimées ;</li>
+ *     <li>les identifiants de ScyllaDB sont cherchés dans l'index (mget), les absents réindexés ;</li>
+ *     <li>les identifiants de l'index (point-in-time + search_after) sont cherchés dans ScyllaDB,
+ *     les orphelins supprimés.</li>
+ * </ol>
+ * <p>Les écritures passent par {@link IndexingQueue} ; chaque lot est attendu avant le suivant.</p>
+ *
+ * <p>Une seule réconciliation à la fois dans le cluster : elle détient le bail
+ * {@value #LEASE_NAME} ({@link IndexingJobService#acquireLease(String)}) pendant son exécution.
+ * Elle s'exécute sur le pool des jobs, pas sur celui des lectures Scylla des requêtes.</p>
+ */
+@Service
+public class ReconciliationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReconciliationService.class);
+
+    static final String LEASE_NAME = "reconciliation";
+
+    private final DataScyllaRepository scyllaRepository;
+    private final DocumentTombstoneRepository tombstoneRepository;
+    private final SearchElasticsearchRepository elasticsearchRepository;
+    private final IndexingQueue indexingQueue;
+    private final IndexingJobService jobService;
+    private final RepositoryExecutors executors;
+
+    @Value("${indexing.reconciliation.batch-size:500}")
+    private int batchSize;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    public ReconciliationService(DataScyllaRepository scyllaRepository,
+                                 DocumentTombstoneRepository tombstoneRepository,
+                                 SearchElasticsearchRepository elasticsearchRepository,
+                                 IndexingQueue indexingQueue,
+                                 IndexingJobService jobService,
+                                 RepositoryExecutors executors) {
+        this.scyllaRepository = scyllaRepository;
+        this.tombstoneRepository = tombstoneRepository;
+        this.elasticsearchRepository = elasticsearchRepository;
+        this.indexingQueue = indexingQueue;
+        this.jobService = jobService;
+        this.executors = executors;
+    }
+
+    @Scheduled(cron = "${indexing.reconciliation.cron:0 30 3 * * *}")
+    public void scheduledReconciliation() {
+        try {
+            reconcile();
+        } catch (IllegalStateException e) {
+            logger.info("Scheduled reconciliation skipped: {}", e.getMessage());
+        } catch (Exception e) {
+            logger.error("Error during scheduled reconciliation", e);
+        }
+    }
+
+    /**
+     * Lance la réconciliation sur le pool des jobs ; refusée (503) si ce pool est saturé.
+     */
+    public CompletableFuture<ReconciliationResult> reconcileAsync() {
+        return CompletableFuture.supplyAsync(this::reconcile, executors.jobs());
+    }
+
+    /**
+     * @throws IllegalStateException si une réconciliation est déjà en cours, ici ou dans une autre instance
+     */
+    public ReconciliationResult reconcile() {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Reconciliation already running");
+        }
+        try {
+            if (!jobService.acquireLease(LEASE_NAME)) {
+                throw new IllegalStateException("Reconciliation already running on another instance");
+            }
+        } catch (RuntimeException e) {
+            running.set(false);
+            throw e;
+        }
+
+        try {
+            long start = System.currentTimeMillis();
+            ReconciliationResult result = new ReconciliationResult();
+            logger.info("Starting reconciliation between ScyllaDB and Elasticsearch");
+
+            deleteTombstonedDocuments(result);
+            indexMissingDocuments(result);
+            deleteOrphanedDocuments(result);
+
+            result.setTookMillis(System.currentTimeMillis() - start);
+            logger.info("Reconciliation completed in {}ms. Tombstones deleted: {}, missing indexed: {}, " +
+                            "orphans deleted: {}, failures: {}",
+                    result.getTookMillis(), result.getTombstonesDeleted(), result.getMissingIndexed(),
+                    result.getOrphansDeleted(), result.getFailed());
+            return result;
+        } catch (Exception e) {
+            logger.error("Error during reconciliation", e);
+            throw new RuntimeException("Failed to reconcile indices", e);
+        } finally {
+            try {
+                jobService.releaseLease(LEASE_NAME);
+            } finally {
+                running.set(false);
+            }
+        }
+    }
+
+    private void deleteTombstonedDocuments(ReconciliationResult result) {
+        try (Stream<String> ids = tombstoneRepository.streamIds()) {
+            forEachBatch(ids, batch -> {
+                result.setTombstonesChecked(result.getTombstonesChecked() + batch.size());
+
+                // Un document présent dans ScyllaDB n'est jamais supprimé de l'index, même avec une pierre tombale
+                Set<String> recreated = scyllaRepository.findExistingIds(batch);
+                List<String> deleted = batch.stream()
+                        .filter(id -> !recreated.contains(id))
+                        .collect(Collectors.toList());
+                Set<String> stillIndexed = elasticsearchRepository.findExistingIds(deleted);
+
+                List<CompletableFuture<Void>> operations = stillIndexed.stream()
+                        .map(indexingQueue::delete)
+                        .collect(Collectors.toList());
+                result.setTombstonesDeleted(result.getTombstonesDeleted() + operations.size());
+                await(operations, result);
+            });
+        }
+    }
+
+    private void indexMissingDocuments(ReconciliationResult result) {
+        try (Stream<String> ids = scyllaRepository.streamIds()) {
+            forEachBatch(ids, batch -> {
+                result.setDatabaseIdsChecked(result.getDatabaseIdsChecked() + batch.size());
+
+                Set<String> indexed = elasticsearchRepository.findExistingIds(batch);
+                List<String> missing = batch.stream()
+                        .filter(id -> !indexed.contains(id))
+                        .collect(Collectors.toList());
+                if (missing.isEmpty()) {
+                    return;
+                }
+
+                // Relecture de l'état courant : un document supprimé entre-temps n'est pas réindexé
+                List<CompletableFuture<Void>> operations = new ArrayList<>();
+                for (SearchDocument document : scyllaRepository.findByIds(missing)) {
+                    operations.add(indexingQueue.upsert(document));
+                }
+                result.setMissingIndexed(result.getMissingIndexed() + operations.size());
+                await(operations, result);
+            });
+        }
+    }
+
+    private void deleteOrphanedDocuments(ReconciliationResult result) {
+        try (Stream<String> ids = elasticsearchRepository.streamIds(batchSize)) {
+            forEachBatch(ids, batch -> {
+                result.setIndexIdsChecked(result.getIndexIdsChecked() + batch.size());
+
+                Set<String> existing = scyllaRepository.findExistingIds(batch);
+                List<CompletableFuture<Void>> operations = batch.stream()
+                        .filter(id -> !existing.contains(id))
+                        .map(indexingQueue::delete)
+                        .collect(Collectors.toList());
+                result.setOrphansDeleted(result.getOrphansDeleted() + operations.size());
+                await(operations, result);
+            });
+        }
+    }
+
+    private void forEachBatch(Stream<String> ids, Consumer<List<String>> action) {
+        Iterator<String> iterator = ids.iterator();
+        List<String> batch = new ArrayList<>(batchSize);
+        while (iterator.hasNext()) {
+            batch.add(iterator.next());
+            if (batch.size() >= batchSize) {
+                action.accept(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            action.accept(batch);
+        }
+    }
+
+    private void await(List<CompletableFuture<Void>> operations, ReconciliationResult result) {
+        for (CompletableFuture<Void> operation : operations) {
+            Throwable failure = operation.handle((value, error) -> error).join();
+            if (failure != null) {
+                result.setFailed(result.getFailed() + 1);
+                logger.warn("Reconciliation operation failed: {}", failure.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.company.search.service;
+
+import com.company.search.model.SearchDocument;
+import com.company.search.model.dto.SearchResponse;
+import com.company.search.model.dto.SearchResult;
+import com.company.search.repository.IndexGeneration;
+import com.company.search.repository.SearchRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+/**
+ * Recherche à la saisie par session : chaque session garde brièvement les candidats de son
+ * dernier préfixe envoyé à Elasticsearch et affine localement les frappes suivantes.
+ *
+ * <p>"kubern" interroge Elasticsearch ({@link SearchRepository#prefixSearch}) ; "kuberne" puis
+ * "kubernetes" filtrent les candidats en mémoire avec la même règle : tous les mots doivent
+ * figurer dans un même champ, titre ou auteur, le dernier comme début de mot. Elasticsearch n'est
+ * interrogé à nouveau que si la saisie ne prolonge plus le préfixe, si les candidats ont
+ * expiré ou datent d'avant une écriture dans l'index, ou si l'ensemble était tronqué et qu'il
+ * en reste moins de search.as-you-type.min-candidates. Les scores sont ceux du préfixe d'origine.
+ * Métriques : search.as-you-type.requests (tag source = local ou elasticsearch).</p>
+ */
+@Service
+public class SearchAsYouTypeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchAsYouTypeService.class);
+
+    private final SearchRepository searchRepository;
+    private final IndexGeneration indexGeneration;
+    private final int candidateSize;
+    private final int minCandidates;
+    private final Cache<String, Session> sessions;
+
+    private final Counter localHits;
+    private final Counter elasticsearchCalls;
+
+    @Autowired
+    public SearchAsYouTypeService(SearchRepository searchRepository, IndexGeneration indexGeneration,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${search.as-you-type.candidate-size:200}") int candidateSize,
+                                  @Value("${search.as-you-type.min-candidates:20}") int minCandidates,
+                                  @Value("${search.as-you-type.candidate-ttl-seconds:30}") long candidateTtlSeconds,
+                                  @Value("${search.as-you-type.max-sessions:5000}") long maxSessions) {
+        this.searchRepository = searchRepository;
+        this.indexGeneration = indexGeneration;
+        this.candidateSize = candidateSize;
+        this.minCandidates = minCandidates;
+        this.sessions = Caffeine.newBuilder()
+                .maximumSize(maxSessions)
+                .expireAfterWrite(Duration.ofSeconds(candidateTtlSeconds))
+                .build();
+
+        this.localHits = Counter.builder("search.as-you-type.requests").tag("source", "local").register(meterRegistry);
+        this.elasticsearchCalls = Counter.builder("search.as-you-type.requests").tag("source", "elasticsearch")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Résultats pour le texte saisi jusqu'ici.
+     *
+     * @param sessionId Identifiant de la session de saisie (un champ de recherche), ou null
+     *                  pour une requête isolée sans affinage local
+     * @param size Nombre de résultats renvoyés
+     */
+    public CompletableFuture<SearchResponse<SearchResult>> search(String sessionId, String text, int size) {
+        String normalized = normalize(text);
+        List<String> terms = terms(normalized);
+        long generation = indexGeneration.current();
+        if (terms.isEmpty()) {
+            return CompletableFuture.completedFuture(page(List.of(), size, true));
+        }
+
+        Session session = sessionId != null ? sessions.getIfPresent(sessionId) : null;
+        if (session != null && session.canRefine(normalized, generation)) {
+            List<SearchResult> refined = session.candidates.stream()
+                    .filter(result -> matches(result.getDocument(), terms))
+                    .collect(Collectors.toList());
+            if (session.complete || refined.size() >= minCandidates) {
+                localHits.increment();
+                return CompletableFuture.completedFuture(page(refined, size, session.complete));
+            }
+        }
+
+        elasticsearchCalls.increment();
+        return searchRepository.prefixSearch(normalized, Math.max(candidateSize, size)).thenApply(response -> {
+            List<SearchResult> candidates = response.getResults();
+            boolean complete = "eq".equals(response.getTotalHitsRelation())
+                    && response.getTotalHits() <= candidates.size();
+            if (sessionId != null) {
+                sessions.put(sessionId, new Session(normalized, candidates, complete, generation));
+            }
+            logger.debug("As-you-type session {} fetched {} candidates for '{}' (complete: {})",
+                    sessionId, candidates.size(), normalized, complete);
+
+            SearchResponse<SearchResult> first = page(candidates, size, complete);
+            first.setTotalHits(response.getTotalHits());
+            first.setTotalHitsRelation(response.getTotalHitsRelation());
+            return first;
+        });
+    }
+
+    private static SearchResponse<SearchResult> page(List<SearchResult> results, int size, boolean complete) {
+        List<SearchResult> page = results.size() <= size ? results : results.subList(0, size);
+        SearchResponse<SearchResult> response = new SearchResponse<>(page, results.size(), 0, size);
+        // Sur un ensemble tronqué, d'autres documents peuvent correspondre
+        response.setTotalHitsRelation(complete ? "eq" : "gte");
+        return response;
+    }
+
+    /**
+     * Règle de {@link SearchRepository#prefixSearch} appliquée localement : mots complets
+     * présents et dernier mot en début de mot, tous dans le titre ou tous dans l'auteur.
+     * Comme l'opérateur AND du multi_match, un mot du titre et un mot de l'auteur ne suffisent pas.
+     */
+    static boolean matches(SearchDocument document, List<String> terms) {
+        if (document == null) {
+            return false;
+        }
+        return fieldMatches(document.getTitle(), terms) || fieldMatches(document.getAuthor(), terms);
+    }
+
+    private static boolean fieldMatches(String value, List<String> terms) {
+        if (value == null) {
+            return false;
+        }
+        List<String> words = terms(normalize(value));
+        for (int i = 0; i < terms.size(); i++) {
+            String term = terms.get(i);
+            boolean last = i == terms.size() - 1;
+            if (words.stream().noneMatch(word -> last ? word.startsWith(term) : word.equals(term))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static String normalize(String text) {
+        return text != null ? text.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT) : "";
+    }
+
+    private static List<String> terms(String normalized) {
+        return Arrays.stream(normalized.split("[^\\p{L}\\p{N}]+"))
+                .filter(term -> !term.isEmpty())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Candidats du dernier préfixe envoyé à Elasticsearch pour une session.
+     */
+    private static final class Session {
+        private final String prefix;
+        private final List<SearchResult> candidates;
+        private final boolean complete;
+        private final long generation;
+
+        Session(String prefix, List<SearchResult> candidates, boolean complete, long generation) {
+            this.prefix = prefix;
+            this.candidates = candidates;
+            this.complete = complete;
+            this.generation = generation;
+        }
+
+        /** Les sessions expirent d'elles-mêmes après search.as-you-type.candidate-ttl-seconds. */
+        boolean canRefine(String text, long currentGeneration) {
+            return text.startsWith(prefix) && generation == currentGeneration;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.company.search.service;
+
+import com.company.search.model.SearchDocument;
+import com.company.search.model.dto.SearchRequest;
+import com.company.search.repository.SearchRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Stream;
+
+/**
+ * Export de toutes les correspondances d'une recherche au format NDJSON (un document JSON par ligne).
+ *
+ * <p>Les documents sont écrits au fil de la lecture, sans comptage ni highlighting. L'écriture
+ * sur le flux HTTP bloque quand le client lit moins vite, ce qui ralentit les lectures
+ * Elasticsearch à travers la file bornée de {@link SearchRepository#streamMatches}.</p>
+ *
+ * <p>Au plus search.export.max-concurrent exports sont en cours dans l'instance ; au-delà,
+ * l'export est refusé ({@link RejectedExecutionException}, réponse 503, métrique
+ * search.export.rejected). Les tranches sont lues sur le pool partagé des exports, qui doit
+ * avoir au moins max-concurrent × slices threads.</p>
+ */
+@Service
+public class SearchExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchExportService.class);
+
+    private final SearchRepository searchRepository;
+    private final ObjectMapper objectMapper;
+    private final int slices;
+    private final int pageSize;
+    private final int maxConcurrent;
+    private final Semaphore permits;
+    private final Counter rejected;
+
+    public SearchExportService(SearchRepository searchRepository, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                               @Value("${search.export.slices:4}") int slices,
+                               @Value("${search.export.page-size:1000}") int pageSize,
+                               @Value("${search.export.max-concurrent:4}") int maxConcurrent) {
+        this.searchRepository = searchRepository;
+        this.objectMapper = objectMapper;
+        this.slices = slices;
+        this.pageSize = pageSize;
+        this.maxConcurrent = maxConcurrent;
+        this.permits = new Semaphore(maxConcurrent);
+        this.rejected = Counter.builder("search.export.rejected")
+                .description("Exports refusés, trop d'exports en cours")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Réserve une place d'export et lance la lecture des correspondances. La place est
+     * rendue à la fermeture du Stream.
+     *
+     * @throws RejectedExecutionException si max-concurrent exports sont déjà en cours
+     */
+    public Stream<SearchDocument> open(SearchRequest searchRequest) {
+        logger.info("Exporting search results for query: {}", searchRequest.getQuery());
+        if (!permits.tryAcquire()) {
+            rejected.increment();
+            throw new RejectedExecutionException("Too many concurrent exports: " + maxConcurrent + " in progress");
+        }
+        try {
+            return searchRepository.streamMatches(searchRequest, slices, pageSize).onClose(permits::release);
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Écrit chaque document suivi d'un saut de ligne, puis ferme le Stream.
+     *
+     * @param documents Les correspondances obtenues par {@link #open(SearchRequest)}
+     * @return Le nombre de documents écrits
+     */
+    public long write(Stream<SearchDocument> documents, OutputStream out) throws IOException {
+        long startTime = System.currentTimeMillis();
+        long count = 0;
+
+        // La fermeture du Stream, y compris si le client se déconnecte, arrête les lectures
+        try (documents) {
+            Iterator<SearchDocument> iterator = documents.iterator();
+            while (iterator.hasNext()) {
+                out.write(objectMapper.writeValueAsBytes(iterator.next()));
+                out.write('\n');
+                count++;
+            }
+            out.flush();
+        }
+
+        logger.info("Export completed in {}ms, {} documents written", System.currentTimeMillis() - startTime, count);
+        return count;
+    }
+
+    /**
+     * Exporte toutes les correspondances de {@code searchRequest}, voir {@link #open(SearchRequest)}.
+     *
+     * @return Le nombre de documents écrits
+     */
+    public long export(SearchRequest searchRequest, OutputStream out) throws IOException {
+        return write(open(searchRequest), out);
+    }
+}
@@ -0,0 +1,228 @@
+package com.company.search.service;
+
+import com.company.search.model.SearchDocument;
+import com.company.search.model.dto.SearchRequest;
+import com.company.search.model.dto.SearchResponse;
+import com.company.search.model.dto.SearchResult;
+import com.company.search.repository.IndexGeneration;
+import com.company.search.util.SingleFlight;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Cache local des réponses de recherche, placé devant {@link com.company.search.repository.SearchRepository}.
+ *
+ * <p>Les entrées sont bornées en octets (taille estimée d'après le contenu des documents) et évincées par Caffeine
+ * (W-TinyLFU), qui garde les requêtes fréquentes face aux requêtes ponctuelles. La clé
+ * contient la génération courante de l'index ({@link IndexGeneration}) : toute écriture
+ * vers l'alias rend les entrées précédentes inaccessibles. Une réponse n'est mise en cache
+ * que si aucune écriture n'a eu lieu pendant la recherche ni dans les
+ * search.cache.refresh-grace-ms précédents, délai pendant lequel l'écriture
+ * peut ne pas encore être visible.</p>
+ *
+ * <p>Chaque endpoint peut être exclu par search.cache.excluded-endpoints. Qu'elles soient
+ * mises en cache ou non, les recherches identiques concurrentes sont regroupées en un seul
+ * appel à Elasticsearch ({@link SingleFlight}, métriques search.singleflight.*).</p>
+ */
+@Component
+public class SearchResultCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchResultCache.class);
+
+    public static final String SEARCH = "search";
+    public static final String SIMILAR_CONTENT = "similar-content";
+    public static final String ADVANCED = "advanced";
+    public static final String FULL_TEXT = "full-text";
+    public static final String TERM = "term";
+
+    /** Forfaits de la taille estimée : champs fixes d'une réponse, d'un résultat, d'une agrégation. */
+    private static final long RESPONSE_OVERHEAD = 256;
+    private static final long RESULT_OVERHEAD = 128;
+    private static final long AGGREGATION_OVERHEAD = 512;
+
+    private final ObjectMapper objectMapper;
+    private final IndexGeneration indexGeneration;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final long refreshGraceMillis;
+    private final Set<String> excludedEndpoints;
+    private final Cache<String, SearchResponse<SearchResult>> cache;
+    private final SingleFlight<String, SearchResponse<SearchResult>> inFlight;
+
+    @Autowired
+    public SearchResultCache(ObjectMapper objectMapper, IndexGeneration indexGeneration, MeterRegistry meterRegistry,
+                             @Value("${search.cache.enabled:true}") boolean enabled,
+                             @Value("${search.cache.max-bytes:67108864}") long maxBytes,
+                             @Value("${search.cache.ttl-seconds:300}") long ttlSeconds,
+                             @Value("${search.cache.refresh-grace-ms:1000}") long refreshGraceMillis,
+                             @Value("${search.cache.excluded-endpoints:}") String excludedEndpoints) {
+        this.objectMapper = objectMapper;
+        this.indexGeneration = indexGeneration;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.refreshGraceMillis = refreshGraceMillis;
+        this.excludedEndpoints = Arrays.stream(excludedEndpoints.split(","))
+                .map(String::trim)
+                .filter(endpoint -> !endpoint.isEmpty())
+                .collect(Collectors.toSet());
+
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String key, SearchResponse<SearchResult> response) -> weigh(key, response))
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+
+        this.inFlight = new SingleFlight<>("search.singleflight", meterRegistry);
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "search.results");
+        Gauge.builder("search.cache.weighted.bytes", cache,
+                        c -> c.policy().eviction().map(e -> (double) e.weightedSize().orElse(0L)).orElse(0.0))
+                .description("Taille estimée des réponses en cache")
+                .register(meterRegistry);
+
+        logger.info("Search result cache {}: max {} bytes, ttl {}s, excluded endpoints {}",
+                enabled ? "enabled" : "disabled", maxBytes, ttlSeconds, this.excludedEndpoints);
+    }
+
+    /**
+     * Renvoie la réponse en cache pour cette clé, ou l'obtient via {@code loader}
+     * et la met en cache si elle reflète l'état courant de l'index.
+     *
+     * @param endpoint Nom de l'endpoint, utilisé pour l'exclusion et les métriques
+     * @param key Forme canonique de la requête, voir {@link #key(SearchRequest)}
+     */
+    public CompletableFuture<SearchResponse<SearchResult>> get(
+            String endpoint, String key, Supplier<CompletableFuture<SearchResponse<SearchResult>>> loader) {
+        long generation = indexGeneration.current();
+        String cacheKey = endpoint + '|' + generation + '|' + key;
+
+        boolean cacheable = enabled && !excludedEndpoints.contains(endpoint);
+        if (cacheable) {
+            SearchResponse<SearchResult> cached = cache.getIfPresent(cacheKey);
+            if (cached != null) {
+                return CompletableFuture.completedFuture(new SearchResponse<>(cached));
+            }
+        } else {
+            Counter.builder("search.cache.bypass").tag("endpoint", endpoint).register(meterRegistry).increment();
+        }
+
+        // Chaque appelant reçoit sa propre copie de la réponse partagée
+        return inFlight.execute(cacheKey, () -> {
+            long startedAt = System.currentTimeMillis();
+            return loader.get().thenApply(response -> {
+                if (cacheable && generation == indexGeneration.current()
+                        && startedAt - indexGeneration.getLastBumpMillis() >= refreshGraceMillis) {
+                    cache.put(cacheKey, new SearchResponse<>(response));
+                }
+                return response;
+            });
+        }).thenApply(SearchResponse::new);
+    }
+
+    /**
+     * Forme canonique d'une requête : requête aux espaces normalisés, champs, filtres et
+     * projections triés, ordre de tri ignoré en l'absence de champ de tri.
+     */
+    public String key(SearchRequest request) {
+        List<String> fields = sorted(request.getFields());
+        Map<String, Object> filters = request.getFilters() != null
+                ? new TreeMap<>(request.getFilters())
+                : Collections.emptyMap();
+        String sortOrder = request.getSortBy() != null && request.getSortOrder() != null
+                ? request.getSortOrder().toLowerCase()
+                : null;
+
+        return key(normalizeQuery(request.getQuery()), fields, filters,
+                request.getPage(), request.getSize(), request.getSortBy(), sortOrder,
+                request.getProfile(), sorted(request.getSourceIncludes()), sorted(request.getSourceExcludes()),
+                request.getFacets());
+    }
+
+    /**
+     * Clé composée des paramètres donnés, sérialisés en JSON pour éviter toute ambiguïté.
+     */
+    public String key(Object... parts) {
+        try {
+            return objectMapper.writeValueAsString(Arrays.asList(parts));
+        } catch (JsonProcessingException e) {
+            return Arrays.deepToString(parts);
+        }
+    }
+
+    private static List<String> sorted(List<String> values) {
+        return values != null ? new ArrayList<>(new TreeSet<>(values)) : Collections.emptyList();
+    }
+
+    public static String normalizeQuery(String query) {
+        return query != null ? query.trim().replaceAll("\\s+", " ") : null;
+    }
+
+    /**
+     * Taille estimée d'une entrée, sans la sérialiser : longueur des champs texte des documents
+     * et des extraits, plus un forfait par objet. Appelée à chaque mise en cache.
+     */
+    private static int weigh(String key, SearchResponse<SearchResult> response) {
+        long bytes = RESPONSE_OVERHEAD + 2L * key.length();
+        if (response.getResults() != null) {
+            for (SearchResult result : response.getResults()) {
+                bytes += RESULT_OVERHEAD + documentBytes(result.getDocument());
+                if (result.getHighlight() != null) {
+                    for (String fragment : result.getHighlight()) {
+                        bytes += length(fragment);
+                    }
+                }
+            }
+        }
+        if (response.getAggregations() != null) {
+            bytes += (long) response.getAggregations().size() * AGGREGATION_OVERHEAD;
+        }
+        return (int) Math.min(Integer.MAX_VALUE, bytes);
+    }
+
+    private static long documentBytes(SearchDocument document) {
+        if (document == null) {
+            return 0;
+        }
+        long bytes = length(document.getId()) + length(document.getTitle()) + length(document.getContent())
+                + length(document.getCategory()) + length(document.getAuthor());
+        if (document.getMetadata() != null) {
+            for (Map.Entry<String, Object> entry : document.getMetadata().entrySet()) {
+                bytes += length(entry.getKey()) + length(String.valueOf(entry.getValue()));
+            }
+        }
+        return bytes;
+    }
+
+    private static long length(String value) {
+        return value != null ? value.length() : 0;
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+}
@@ -1,15 +1,23 @@
 package com.company.search.service;
 
+import com.company.search.model.dto.BatchSearchRequest;
+import com.company.search.model.dto.BatchSearchResponse;
 import com.company.search.model.dto.SearchRequest;
 import com.company.search.model.dto.SearchResponse;
 import com.company.search.model.dto.SearchResult;
 import com.company.search.repository.SearchRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Locale;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
 
 /**
  * Service principal pour les opérations de recherche.
@@ -26,13 +34,64 @@ public class SearchService {
     
     private final SearchRepository searchRepository;
     
+    private final SearchResultCache resultCache;
+    
+    private final FacetCache facetCache;
+    
+    private final int maxBatchSearches;
+    
+    private final long batchTimeoutMs;
+    
+    /** Fuzziness de la recherche en texte intégral quand la requête n'en précise pas. */
+    private final String defaultFuzziness;
+    
+    /** En mode adaptatif, nombre de résultats exacts en dessous duquel la variante floue est exécutée. */
+    private final long minExactHits;
+    
+    private final Counter exactPhaseAnswers;
+    private final Counter fuzzyPhaseAnswers;
+    
+    /** Mode à deux phases : exacte d'abord, floue seulement si elle trouve trop peu de résultats. */
+    public static final String FUZZINESS_ADAPTIVE = "adaptive";
+    
+    private static final Pattern FUZZINESS = Pattern.compile("adaptive|auto(:\\d+,\\d+)?|[0-2]",
+        Pattern.CASE_INSENSITIVE);
+    
+    /** Préfixe des curseurs de la phase floue : les pages suivantes restent dans la même phase. */
+    private static final String FUZZY_CURSOR_PREFIX = "fuzzy:";
+    
     /**
      * Constructeur pour l'injection de dépendance.
      * 
      * @param searchRepository Le repository utilisé pour les opérations de recherche
+     * @param resultCache Le cache des réponses, invalidé à chaque écriture dans l'index
+     * @param facetCache Le cache des facettes, partagé par toutes les pages d'une recherche
+     * @param meterRegistry Registre des métriques de la recherche adaptative
+     * @param maxBatchSearches Nombre maximal de recherches dans un lot
+     * @param batchTimeoutMs Délai par défaut d'un lot, en millisecondes
+     * @param defaultFuzziness Fuzziness par défaut de la recherche en texte intégral ("adaptive", "AUTO", 0, 1 ou 2)
+     * @param minExactHits Seuil de résultats exacts du mode adaptatif
      */
-    public SearchService(SearchRepository searchRepository) {
+    public SearchService(SearchRepository searchRepository, SearchResultCache resultCache, FacetCache facetCache,
+                         MeterRegistry meterRegistry,
+                         @Value("${search.batch.max-searches:20}") int maxBatchSearches,
+                         @Value("${search.batch.timeout-ms:2000}") long batchTimeoutMs,
+                         @Value("${search.full-text.fuzziness:adaptive}") String defaultFuzziness,
+                         @Value("${search.full-text.adaptive.min-exact-hits:5}") long minExactHits) {
         this.searchRepository = searchRepository;
+        this.resultCache = resultCache;
+        this.facetCache = facetCache;
+        this.maxBatchSearches = maxBatchSearches;
+        this.batchTimeoutMs = batchTimeoutMs;
+        this.defaultFuzziness = validFuzziness(defaultFuzziness);
+        this.minExactHits = minExactHits;
+        
+        this.exactPhaseAnswers = Counter.builder("search.full-text.adaptive").tag("phase", "exact")
+            .description("Recherches adaptatives servies par la phase exacte")
+            .register(meterRegistry);
+        this.fuzzyPhaseAnswers = Counter.builder("search.full-text.adaptive").tag("phase", "fuzzy")
+            .description("Recherches adaptatives ayant dû exécuter la variante floue")
+            .register(meterRegistry);
     }
     
     /**
@@ -41,40 +100,23 @@ public class SearchService {
      * @param searchRequest Objet contenant tous les paramètres de recherche
      * @return Future contenant SearchResponse avec les résultats et métadonnées
      * 
-     * <p>Exécute en parallèle :
-     * 1. La recherche des résultats (avec filtres si spécifiés)
-     * 2. Le comptage du nombre total de résultats
-     * </p>
+     * <p>Les résultats, leur nombre total (hits.total) et les facettes demandées proviennent
+     * d'une seule requête, avec les mêmes champs et filtres. Les facettes peuvent venir de
+     * {@link FacetCache}, la requête ne portant alors que sur les résultats.</p>
      */
     public CompletableFuture<SearchResponse<SearchResult>> search(SearchRequest searchRequest) {
         logger.info("Executing search query: {}", searchRequest.getQuery());
         
         long startTime = System.currentTimeMillis();
         
-        CompletableFuture<List<SearchResult>> resultsFuture;
-        CompletableFuture<Long> countFuture;
-        
-        // Choix de la méthode de recherche en fonction de la présence de filtres
-        if (searchRequest.getFilters() != null && !searchRequest.getFilters().isEmpty()) {
-            resultsFuture = searchRepository.searchWithFilters(searchRequest);
-        } else {
-            resultsFuture = searchRepository.search(searchRequest);
-        }
-        
-        countFuture = searchRepository.count(searchRequest.getQuery());
-        
-        // Combinaison des deux futures lorsque tous sont complétés
-        return resultsFuture.thenCombine(countFuture, (results, totalHits) -> {
-            long searchTime = System.currentTimeMillis() - startTime;
-            
-            SearchResponse<SearchResult> response = new SearchResponse<>(
-                results, totalHits, searchRequest.getPage(), searchRequest.getSize()
-            );
-            response.setSearchTime(searchTime);
-            
-            logger.info("Search completed in {}ms, found {} results", searchTime, totalHits);
-            return response;
-        });
+        return fetch(SearchResultCache.SEARCH, searchRequest.getCursor(), () -> resultCache.key(searchRequest),
+                () -> facetCache.search(searchRequest, request -> {
+                    // Choix de la méthode de recherche en fonction de la présence de filtres
+                    if (request.getFilters() != null && !request.getFilters().isEmpty()) {
+                        return searchRepository.searchWithFilters(request);
+                    }
+                    return searchRepository.search(request);
+                })).thenApply(response -> completed(response, startTime, "Search"));
     }
     
     /**
@@ -85,9 +127,22 @@ public class SearchService {
      * @param size Nombre de résultats par page
      */
     public CompletableFuture<SearchResponse<SearchResult>> searchSimple(String query, int page, int size) {
+        return searchSimple(query, page, size, null, null);
+    }
+    
+    /**
+     * Recherche simple avec pagination par curseur et profil de champs renvoyés.
+     * 
+     * @param cursor "*" pour la première page, puis le nextCursor de la réponse précédente
+     * @param profile Profil de champs renvoyés ("full" ou "summary"), ou null pour le profil par défaut
+     */
+    public CompletableFuture<SearchResponse<SearchResult>> searchSimple(String query, int page, int size, 
+                                                                        String cursor, String profile) {
         SearchRequest request = new SearchRequest(query);
         request.setPage(page);
         request.setSize(size);
+        request.setCursor(cursor);
+        request.setProfile(profile);
         return search(request);
     }
     
@@ -100,10 +155,24 @@ public class SearchService {
      * @param size Taille de la page
      */
     public CompletableFuture<SearchResponse<SearchResult>> searchInFields(String query, List<String> fields, int page, int size) {
+        return searchInFields(query, fields, page, size, null, null);
+    }
+    
+    /**
+     * Recherche limitée à des champs spécifiques, avec pagination par curseur et profil de champs renvoyés.
+     * 
+     * @param cursor "*" pour la première page, puis le nextCursor de la réponse précédente
+     * @param profile Profil de champs renvoyés ("full" ou "summary"), ou null pour le profil par défaut
+     */
+    public CompletableFuture<SearchResponse<SearchResult>> searchInFields(String query, List<String> fields, 
+                                                                          int page, int size, String cursor,
+                                                                          String profile) {
         SearchRequest request = new SearchRequest(query);
         request.setFields(fields);
         request.setPage(page);
         request.setSize(size);
+        request.setCursor(cursor);
+        request.setProfile(profile);
         return search(request);
     }
     
@@ -125,20 +194,10 @@ public class SearchService {
         
         long startTime = System.currentTimeMillis();
         
-        CompletableFuture<List<SearchResult>> resultsFuture = searchRepository.searchSimilarContent(text, page, size);
-        CompletableFuture<Long> countFuture = searchRepository.countSimilarContent(text);
-        
-        return resultsFuture.thenCombine(countFuture, (results, totalHits) -> {
-            long searchTime = System.currentTimeMillis() - startTime;
-            
-            SearchResponse<SearchResult> response = new SearchResponse<>(
-                results, totalHits, page, size
-            );
-            response.setSearchTime(searchTime);
-            
-            logger.info("Similar content search completed in {}ms, found {} results", searchTime, totalHits);
-            return response;
-        });
+        return resultCache.get(SearchResultCache.SIMILAR_CONTENT,
+                resultCache.key(SearchResultCache.normalizeQuery(text), page, size),
+                () -> searchRepository.searchSimilarContent(text, page, size))
+            .thenApply(response -> completed(response, startTime, "Similar content search"));
     }
     
     /**
@@ -157,20 +216,9 @@ public class SearchService {
         
         long startTime = System.currentTimeMillis();
         
-        CompletableFuture<List<SearchResult>> resultsFuture = searchRepository.search(searchRequest);
-        CompletableFuture<Long> countFuture = searchRepository.count(searchRequest.getQuery());
-        
-        return resultsFuture.thenCombine(countFuture, (results, totalHits) -> {
-            long searchTime = System.currentTimeMillis() - startTime;
-            
-            SearchResponse<SearchResult> response = new SearchResponse<>(
-                results, totalHits, searchRequest.getPage(), searchRequest.getSize()
-            );
-            response.setSearchTime(searchTime);
-            
-            logger.info("Advanced search completed in {}ms, found {} results", searchTime, totalHits);
-            return response;
-        });
+        return fetch(SearchResultCache.ADVANCED, searchRequest.getCursor(), () -> resultCache.key(searchRequest),
+                () -> facetCache.search(searchRequest, searchRepository::search))
+            .thenApply(response -> completed(response, startTime, "Advanced search"));
     }
     
     /**
@@ -183,42 +231,100 @@ public class SearchService {
      *        "multi_match" (multi-champs)
      * @param page Numéro de page
      * @param size Taille de la page
-     * @return Résultats pertinents selon l'analyse textuelle
+     * @param fuzziness "adaptive", "AUTO", 0, 1 ou 2 ; null pour search.full-text.fuzziness
+     * @param cursor Curseur de pagination profonde ("*" pour commencer), ou null
+     * @return Résultats pertinents selon l'analyse textuelle ; {@code fuzzy} indique
+     *         si la tolérance aux fautes a été appliquée
      * 
      * <p>Fonctionnalités incluses :
      * - Stemming
      * - Synonymes
      * - Tolérance aux fautes (fuzziness)
      * - Analyse sémantique</p>
+     * 
+     * <p>En mode adaptatif, la requête exacte est exécutée d'abord ; la variante floue (AUTO),
+     * plus coûteuse, ne l'est que si la première trouve moins de
+     * search.full-text.adaptive.min-exact-hits résultats. Le choix dépend du total, identique
+     * pour toutes les pages ; en pagination par curseur, il est fait à la première page et
+     * conservé dans le curseur. match_phrase n'a pas de variante floue.</p>
      */
     public CompletableFuture<SearchResponse<SearchResult>> fullTextSearch(
-            String query, List<String> fields, String matchType, int page, int size) {
+            String query, List<String> fields, String matchType, int page, int size,
+            String fuzziness, String cursor) {
         
-        logger.info("Executing full-text search: '{}' in fields: {}, type: {}", 
-                   query, fields, matchType);
+        String mode = fuzziness != null ? validFuzziness(fuzziness) : defaultFuzziness;
         
-        long startTime = System.currentTimeMillis();
+        logger.info("Executing full-text search: '{}' in fields: {}, type: {}, fuzziness: {}", 
+                   query, fields, matchType, mode);
         
-        String fuzziness = "AUTO"; // Tolérance automatique aux fautes de frappe
+        long startTime = System.currentTimeMillis();
         
-        CompletableFuture<List<SearchResult>> resultsFuture = 
-            searchRepository.fullTextSearch(query, fields, matchType, page, size, fuzziness);
-        CompletableFuture<Long> countFuture = 
-            searchRepository.countFullTextSearch(query, fields, matchType, fuzziness);
+        return fetch(SearchResultCache.FULL_TEXT, cursor,
+                () -> resultCache.key(SearchResultCache.normalizeQuery(query), fields, matchType, page, size, mode),
+                () -> {
+                    if (!FUZZINESS_ADAPTIVE.equals(mode)) {
+                        return fullTextPhase(query, fields, matchType, page, size, mode, cursor);
+                    }
+                    return adaptiveFullTextSearch(query, fields, matchType, page, size, cursor);
+                })
+            .thenApply(response -> completed(response, startTime, "Full-text search"));
+    }
+    
+    private CompletableFuture<SearchResponse<SearchResult>> adaptiveFullTextSearch(
+            String query, List<String> fields, String matchType, int page, int size, String cursor) {
+        // Page suivante d'un curseur : la phase a été choisie à la première page
+        if (cursor != null && !cursor.isEmpty() && !SearchRepository.START_CURSOR.equals(cursor)) {
+            if (cursor.startsWith(FUZZY_CURSOR_PREFIX)) {
+                return fullTextPhase(query, fields, matchType, page, size, "AUTO",
+                    cursor.substring(FUZZY_CURSOR_PREFIX.length())).thenApply(SearchService::markFuzzyCursor);
+            }
+            return fullTextPhase(query, fields, matchType, page, size, "0", cursor);
+        }
         
-        return resultsFuture.thenCombine(countFuture, (results, totalHits) -> {
-            long searchTime = System.currentTimeMillis() - startTime;
-            
-            SearchResponse<SearchResult> response = new SearchResponse<>(
-                results, totalHits, page, size
-            );
-            response.setSearchTime(searchTime);
-            
-            logger.info("Full-text search completed in {}ms, found {} results", searchTime, totalHits);
-            return response;
+        return fullTextPhase(query, fields, matchType, page, size, "0", cursor).thenCompose(exact -> {
+            if (exact.getTotalHits() >= minExactHits || "match_phrase".equalsIgnoreCase(matchType)) {
+                exactPhaseAnswers.increment();
+                return CompletableFuture.completedFuture(exact);
+            }
+            fuzzyPhaseAnswers.increment();
+            logger.debug("Only {} exact hits for '{}', running the fuzzy variant", exact.getTotalHits(), query);
+            // Page exacte pleine avec "*" : son point-in-time reste ouvert et ne sera jamais relu
+            searchRepository.closeCursor(exact.getNextCursor());
+            return fullTextPhase(query, fields, matchType, page, size, "AUTO", cursor)
+                .thenApply(SearchService::markFuzzyCursor);
         });
     }
     
+    private static SearchResponse<SearchResult> markFuzzyCursor(SearchResponse<SearchResult> response) {
+        if (response.getNextCursor() != null) {
+            response.setNextCursor(FUZZY_CURSOR_PREFIX + response.getNextCursor());
+        }
+        return response;
+    }
+    
+    /**
+     * Une exécution de la recherche en texte intégral ; fuzziness "0" pour la phase exacte.
+     */
+    private CompletableFuture<SearchResponse<SearchResult>> fullTextPhase(
+            String query, List<String> fields, String matchType, int page, int size,
+            String fuzziness, String cursor) {
+        boolean fuzzy = !"0".equals(fuzziness) && !"match_phrase".equalsIgnoreCase(matchType);
+        return searchRepository.fullTextSearch(query, fields, matchType, page, size, fuzziness, cursor)
+            .thenApply(response -> {
+                response.setFuzzy(fuzzy);
+                return response;
+            });
+    }
+    
+    private static String validFuzziness(String fuzziness) {
+        String value = fuzziness.trim();
+        if (!FUZZINESS.matcher(value).matches()) {
+            throw new IllegalArgumentException("Fuzziness invalide : " + fuzziness
+                + " (attendu : adaptive, AUTO, 0, 1 ou 2)");
+        }
+        return FUZZINESS_ADAPTIVE.equalsIgnoreCase(value) ? FUZZINESS_ADAPTIVE : value.toUpperCase(Locale.ROOT);
+    }
+    
     /**
      * Recherche exacte sans analyse textuelle.
      * 
@@ -226,9 +332,10 @@ public class SearchService {
      * @param value Valeur exacte à trouver
      * @param type Type de recherche :
      *        "term" (exact), "prefix" (préfixe), 
-     *        "wildcard" (avec jokers), "exists" (présence)
+     *        "wildcard" (avec jokers), "substring" (sous-chaîne littérale), "exists" (présence)
      * @param page Numéro de page
      * @param size Taille de la page
+     * @param cursor Curseur de pagination profonde ("*" pour commencer), ou null
      * @return Résultats correspondant au filtre exact
      * 
      * <p>Typiquement utilisé pour :
@@ -236,30 +343,80 @@ public class SearchService {
      * - Catégories
      * - Tags
      * - Champs non analysés</p>
+     * 
+     * <p>Sur un champ texte ayant un sous-champ keyword (elasticsearch.search.keyword-subfields),
+     * "term" compare la valeur entière du champ, casse comprise : field=title&amp;value=kubernetes
+     * ne trouve plus "Kubernetes in Action", il faut value=Kubernetes in Action. Pour chercher
+     * un mot, utiliser la recherche plein texte.</p>
      */
     public CompletableFuture<SearchResponse<SearchResult>> termLevelSearch(
-            String field, String value, String type, int page, int size) {
+            String field, String value, String type, int page, int size, String cursor) {
         
         logger.info("Executing term-level search: field '{}', value '{}', type: {}", 
                    field, value, type);
         
         long startTime = System.currentTimeMillis();
         
-        CompletableFuture<List<SearchResult>> resultsFuture = 
-            searchRepository.termLevelSearch(field, value, type, page, size);
-        CompletableFuture<Long> countFuture = 
-            searchRepository.countTermLevelSearch(field, value, type);
+        return fetch(SearchResultCache.TERM, cursor,
+                () -> resultCache.key(field, value, type, page, size),
+                () -> searchRepository.termLevelSearch(field, value, type, page, size, cursor))
+            .thenApply(response -> completed(response, startTime, "Term-level search"));
+    }
+    
+    /**
+     * Exécute plusieurs recherches en un seul aller-retour vers Elasticsearch (_msearch).
+     * 
+     * @param batchRequest Les recherches et, optionnellement, leur délai commun
+     * @return Une réponse ou une erreur par recherche, dans l'ordre de la requête
+     * 
+     * <p>Les recherches partagent le même délai : celles qui l'atteignent renvoient les
+     * résultats trouvés jusque-là, signalés par timedOut. Si Elasticsearch ne répond pas du
+     * tout dans ce délai, le lot est abandonné et ces recherches sont renvoyées en 504, elles
+     * aussi signalées par timedOut. Le lot ne passe pas par le cache.</p>
+     */
+    public CompletableFuture<BatchSearchResponse> batchSearch(BatchSearchRequest batchRequest) {
+        List<SearchRequest> searches = batchRequest.getSearches();
+        if (searches.size() > maxBatchSearches) {
+            throw new IllegalArgumentException(
+                "Un lot ne peut contenir plus de " + maxBatchSearches + " recherches");
+        }
+        long timeoutMs = batchRequest.getTimeoutMs() != null ? batchRequest.getTimeoutMs() : batchTimeoutMs;
+        
+        logger.info("Executing batch of {} searches with a {}ms timeout", searches.size(), timeoutMs);
+        
+        long startTime = System.currentTimeMillis();
+        
+        return searchRepository.multiSearch(searches, timeoutMs)
+            .thenApply(items -> {
+                BatchSearchResponse response = new BatchSearchResponse(items);
+                response.setSearchTime(System.currentTimeMillis() - startTime);
+                
+                logger.info("Batch search completed in {}ms", response.getSearchTime());
+                return response;
+            });
+    }
+    
+    /**
+     * Passe par le cache sauf en pagination par curseur : chaque curseur porte son propre
+     * point-in-time et n'est lu qu'une fois.
+     */
+    private CompletableFuture<SearchResponse<SearchResult>> fetch(
+            String endpoint, String cursor, Supplier<String> key,
+            Supplier<CompletableFuture<SearchResponse<SearchResult>>> loader) {
+        if (cursor != null && !cursor.isEmpty()) {
+            return loader.get();
+        }
+        return resultCache.get(endpoint, key.get(), loader);
+    }
+    
+    /**
+     * Renseigne le temps de recherche et journalise le résultat.
+     */
+    private SearchResponse<SearchResult> completed(SearchResponse<SearchResult> response, long startTime, String label) {
+        long searchTime = System.currentTimeMillis() - startTime;
+        response.setSearchTime(searchTime);
         
-        return resultsFuture.thenCombine(countFuture, (results, totalHits) -> {
-            long searchTime = System.currentTimeMillis() - startTime;
-            
-            SearchResponse<SearchResult> response = new SearchResponse<>(
-                results, totalHits, page, size
-            );
-            response.setSearchTime(searchTime);
-            
-            logger.info("Term-level search completed in {}ms, found {} results", searchTime, totalHits);
-            return response;
-        });
+        logger.info("{} completed in {}ms, found {} results", label, searchTime, response.getTotalHits());
+        return response;
     }
 }
\ No newline at end of file
@@ -0,0 +1,216 @@
+package com.company.search.service;
+
+import com.company.search.repository.IndexGeneration;
+import com.company.search.repository.SearchRepository;
+import com.company.search.util.PrefixTrie;
+import com.company.search.util.SingleFlight;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+/**
+ * Autocomplétion des titres : completion suggester d'Elasticsearch derrière un index
+ * en mémoire des préfixes saisis.
+ *
+ * <p>Chaque préfixe interrogé (jusqu'à search.suggest.cache.max-prefix-length caractères)
+ * est gardé dans un {@link PrefixTrie} avec ses suggestions. Quand un préfixe a renvoyé moins
+ * de search.suggest.max-size titres, la liste est exhaustive : les frappes suivantes sont
+ * servies en filtrant cette liste, sans appel à Elasticsearch.</p>
+ *
+ * <p>Après une écriture dans l'index ({@link IndexGeneration}), les entrées restent servies
+ * mais sont rafraîchies en arrière-plan à leur prochaine lecture, une seule fois par
+ * préfixe ({@link SingleFlight}) : la saisie ne subit jamais la latence d'Elasticsearch
+ * pour un préfixe déjà connu. Métriques : search.suggest.requests (tag source = cache,
+ * derived ou elasticsearch) et search.suggest.prefixes.</p>
+ */
+@Service
+public class SuggestService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SuggestService.class);
+
+    /** Génération d'une entrée obtenue juste après une écriture, peut-être pas encore visible. */
+    private static final long UNCONFIRMED = -1;
+
+    private final SearchRepository searchRepository;
+    private final IndexGeneration indexGeneration;
+    private final int maxSize;
+    private final boolean cacheEnabled;
+    private final int maxPrefixLength;
+    private final int maxPrefixes;
+    private final long refreshGraceMillis;
+
+    /** Protégé par son propre verrou ; les opérations sont en mémoire et courtes. */
+    private final PrefixTrie<Suggestions> prefixes = new PrefixTrie<>();
+    private final SingleFlight<String, List<String>> inFlight;
+
+    private final Counter cacheHits;
+    private final Counter derivedHits;
+    private final Counter elasticsearchCalls;
+
+    @Autowired
+    public SuggestService(SearchRepository searchRepository, IndexGeneration indexGeneration, MeterRegistry meterRegistry,
+                          @Value("${search.suggest.max-size:10}") int maxSize,
+                          @Value("${search.suggest.cache.enabled:true}") boolean cacheEnabled,
+                          @Value("${search.suggest.cache.max-prefix-length:12}") int maxPrefixLength,
+                          @Value("${search.suggest.cache.max-prefixes:50000}") int maxPrefixes,
+                          @Value("${search.cache.refresh-grace-ms:1000}") long refreshGraceMillis) {
+        this.searchRepository = searchRepository;
+        this.indexGeneration = indexGeneration;
+        this.maxSize = maxSize;
+        this.cacheEnabled = cacheEnabled;
+        this.maxPrefixLength = maxPrefixLength;
+        this.maxPrefixes = maxPrefixes;
+        this.refreshGraceMillis = refreshGraceMillis;
+
+        this.inFlight = new SingleFlight<>("search.suggest.singleflight", meterRegistry);
+        this.cacheHits = Counter.builder("search.suggest.requests").tag("source", "cache").register(meterRegistry);
+        this.derivedHits = Counter.builder("search.suggest.requests").tag("source", "derived").register(meterRegistry);
+        this.elasticsearchCalls = Counter.builder("search.suggest.requests").tag("source", "elasticsearch")
+                .register(meterRegistry);
+        Gauge.builder("search.suggest.prefixes", this, SuggestService::size)
+                .description("Préfixes gardés en mémoire")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Titres commençant par {@code prefix}, sans distinction de casse.
+     *
+     * @param size Nombre de suggestions, plafonné à search.suggest.max-size
+     */
+    public CompletableFuture<List<String>> suggest(String prefix, int size) {
+        String normalized = normalize(prefix);
+        int limit = Math.min(size, maxSize);
+        if (normalized.isEmpty() || limit <= 0) {
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }
+
+        if (cacheEnabled) {
+            long generation = indexGeneration.current();
+            String entryKey = null;
+            Suggestions entry;
+            synchronized (prefixes) {
+                entry = prefixes.get(normalized);
+                if (entry != null) {
+                    entryKey = normalized;
+                } else {
+                    entry = prefixes.longestPrefixOf(normalized);
+                    if (entry != null && entry.complete) {
+                        entryKey = entry.prefix;
+                    }
+                }
+            }
+
+            if (entryKey != null) {
+                if (entry.generation != generation) {
+                    String staleKey = entryKey;
+                    fetch(staleKey).whenComplete((titles, error) -> {
+                        if (error != null) {
+                            logger.warn("Could not refresh suggestions for '{}': {}", staleKey, error.getMessage());
+                        }
+                    });
+                }
+                if (entryKey.equals(normalized)) {
+                    cacheHits.increment();
+                    return CompletableFuture.completedFuture(first(entry.titles, limit));
+                }
+                derivedHits.increment();
+                return CompletableFuture.completedFuture(first(entry.titles.stream()
+                        .filter(title -> title.toLowerCase(Locale.ROOT).startsWith(normalized))
+                        .collect(Collectors.toList()), limit));
+            }
+        }
+
+        return fetch(normalized)
+                .thenApply(titles -> first(titles, limit))
+                .exceptionally(error -> fallback(normalized, limit, error));
+    }
+
+    /**
+     * Suggestions servies lorsqu'Elasticsearch échoue (index sans title.suggest, indisponibilité) :
+     * le plus long préfixe connu, filtré, sinon aucune suggestion plutôt qu'une erreur.
+     */
+    private List<String> fallback(String prefix, int limit, Throwable error) {
+        logger.warn("Suggest failed for '{}', serving known prefixes: {}", prefix, error.getMessage());
+        Suggestions entry;
+        synchronized (prefixes) {
+            entry = prefixes.longestPrefixOf(prefix);
+        }
+        if (entry == null) {
+            return Collections.emptyList();
+        }
+        return first(entry.titles.stream()
+                .filter(title -> title.toLowerCase(Locale.ROOT).startsWith(prefix))
+                .collect(Collectors.toList()), limit);
+    }
+
+    /**
+     * Interroge Elasticsearch pour ce préfixe, au plus une fois à la fois, et garde le résultat.
+     */
+    private CompletableFuture<List<String>> fetch(String prefix) {
+        return inFlight.execute(prefix, () -> {
+            elasticsearchCalls.increment();
+            long generation = indexGeneration.current();
+            long startedAt = System.currentTimeMillis();
+            return searchRepository.suggestTitles(prefix, maxSize).thenApply(titles -> {
+                if (cacheEnabled && prefix.length() <= maxPrefixLength) {
+                    boolean confirmed = startedAt - indexGeneration.getLastBumpMillis() >= refreshGraceMillis;
+                    store(new Suggestions(prefix, titles, titles.size() < maxSize,
+                            confirmed ? generation : UNCONFIRMED));
+                }
+                return titles;
+            });
+        });
+    }
+
+    private void store(Suggestions suggestions) {
+        synchronized (prefixes) {
+            if (prefixes.size() >= maxPrefixes && prefixes.get(suggestions.prefix) == null) {
+                logger.info("Suggest prefix index full ({} prefixes), clearing", prefixes.size());
+                prefixes.clear();
+            }
+            prefixes.put(suggestions.prefix, suggestions);
+        }
+    }
+
+    static String normalize(String prefix) {
+        return prefix != null ? prefix.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT) : "";
+    }
+
+    private static List<String> first(List<String> titles, int limit) {
+        return titles.size() <= limit ? titles : titles.subList(0, limit);
+    }
+
+    public int size() {
+        synchronized (prefixes) {
+            return prefixes.size();
+        }
+    }
+
+    /**
+     * Suggestions d'un préfixe ; {@code complete} si Elasticsearch n'en a pas d'autres.
+     */
+    private static final class Suggestions {
+        private final String prefix;
+        private final List<String> titles;
+        private final boolean complete;
+        private final long generation;
+
+        Suggestions(String prefix, List<String> titles, boolean complete, long generation) {
+            this.prefix = prefix;
+            this.titles = List.copyOf(titles);
+            this.complete = complete;
+            this.generation = generation;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.company.search.util;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Arbre de préfixes (trie) associant une valeur à certaines chaînes.
+ *
+ * <p>En plus de la recherche exacte, {@link #longestPrefixOf(String)} renvoie la valeur de
+ * la plus longue clé qui est un préfixe de la chaîne demandée, en un seul parcours.
+ * Les préfixes communs ne sont stockés qu'une fois. Non thread-safe.</p>
+ *
+ * @param <V> Type des valeurs
+ */
+public class PrefixTrie<V> {
+
+    private static class Node<V> {
+        private final Map<Character, Node<V>> children = new HashMap<>(4);
+        private V value;
+    }
+
+    private Node<V> root = new Node<>();
+    private int size;
+
+    public V get(String key) {
+        Node<V> node = root;
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.children.get(key.charAt(i));
+        }
+        return node != null ? node.value : null;
+    }
+
+    public void put(String key, V value) {
+        Node<V> node = root;
+        for (int i = 0; i < key.length(); i++) {
+            node = node.children.computeIfAbsent(key.charAt(i), c -> new Node<>());
+        }
+        if (node.value == null) {
+            size++;
+        }
+        node.value = value;
+    }
+
+    /**
+     * Valeur de la plus longue clé présente qui est un préfixe de {@code key} (ou {@code key}
+     * elle-même), null s'il n'y en a pas.
+     */
+    public V longestPrefixOf(String key) {
+        Node<V> node = root;
+        V found = root.value;
+        for (int i = 0; i < key.length(); i++) {
+            node = node.children.get(key.charAt(i));
+            if (node == null) {
+                break;
+            }
+            if (node.value != null) {
+                found = node.value;
+            }
+        }
+        return found;
+    }
+
+    public void clear() {
+        root = new Node<>();
+        size = 0;
+    }
+
+    /** Nombre de clés ayant une valeur. */
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,263 @@
+package com.company.search.util;
+
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import co.elastic.clients.elasticsearch._types.query_dsl.BoolQuery;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import co.elastic.clients.elasticsearch._types.query_dsl.QueryStringQuery;
+import co.elastic.clients.elasticsearch._types.query_dsl.TermQuery;
+import co.elastic.clients.elasticsearch._types.query_dsl.TermsQuery;
+import co.elastic.clients.elasticsearch._types.query_dsl.WildcardQuery;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Étape de planification appliquée aux requêtes Elasticsearch avant leur envoi.
+ *
+ * <p>Les réécritures gardent l'ensemble des documents trouvés, sauf le routage vers le
+ * sous-champ keyword (troisième point) :</p>
+ * <ul>
+ *   <li>les contraintes de valeur exacte (term, terms, range, exists, ids, prefix, wildcard)
+ *       d'un {@code must} passent en {@code filter} : elles ne comptent plus dans le score
+ *       et Elasticsearch peut garder leur bitset en cache ; seules au premier niveau, elles
+ *       sont enveloppées dans un {@code constant_score} ;</li>
+ *   <li>un {@code bool.should} de {@code term} sur un même champ devient un {@code terms} ;</li>
+ *   <li>un {@code term}/{@code terms} sur un champ texte est dirigé vers son sous-champ keyword,
+ *       seul à contenir la valeur non analysée. Ce routage change le sens de la requête : sur
+ *       le champ texte, {@code term} comparait la valeur à chaque token analysé ("kubernetes"
+ *       trouvait "Kubernetes in Action") ; sur le sous-champ, il faut la valeur entière, à la
+ *       casse près ("Kubernetes in Action"). C'est le comportement attendu d'une recherche
+ *       exacte ; une recherche par mot passe par la recherche plein texte ;</li>
+ *   <li>un {@code query_string} sans opérateur devient un {@code simple_query_string},
+ *       moins coûteux à analyser et qui ne rejette jamais une saisie ;</li>
+ *   <li>un {@code wildcard} de sous-chaîne ({@code *terme*}) sur un champ texte est dirigé vers
+ *       son sous-champ de type wildcard : au lieu de parcourir tout le dictionnaire des termes,
+ *       Elasticsearch consulte un index de trigrammes puis vérifie les candidats. Le motif est
+ *       alors appliqué à la valeur entière, sans distinction de casse comme sur les tokens
+ *       minuscules du champ texte.</li>
+ * </ul>
+ *
+ * <p>Le plan avant/après est journalisé au niveau DEBUG quand il change.</p>
+ */
+public class QueryRewriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryRewriter.class);
+
+    /** Requêtes sans score utile, qui peuvent être évaluées en contexte de filtre. */
+    private static final Set<Query.Kind> EXACT_VALUE_KINDS = EnumSet.of(
+            Query.Kind.Term, Query.Kind.Terms, Query.Kind.Range, Query.Kind.Exists,
+            Query.Kind.Ids, Query.Kind.Prefix, Query.Kind.Wildcard);
+
+    /** Syntaxe propre à query_string : opérateurs booléens, groupes, champs, jokers, fuzzy, etc. */
+    private static final Pattern QUERY_STRING_OPERATORS = Pattern.compile(
+            "\\b(AND|OR|NOT|TO)\\b|&&|\\|\\||[+\\-=!(){}\\[\\]^\"~*?:\\\\/<>]");
+
+    /** Champ texte -> sous-champ keyword. */
+    private final Map<String, String> keywordFields;
+
+    /** Champ texte -> sous-champ de type wildcard. */
+    private final Map<String, String> substringFields;
+
+    /**
+     * @param keywordFields Champs texte ayant un sous-champ keyword, associés à ce sous-champ
+     *                      (par exemple "title" -> "title.keyword")
+     * @param substringFields Champs texte ayant un sous-champ de type wildcard, associés à ce
+     *                        sous-champ (par exemple "title" -> "title.substring")
+     */
+    public QueryRewriter(Map<String, String> keywordFields, Map<String, String> substringFields) {
+        this.keywordFields = Map.copyOf(keywordFields);
+        this.substringFields = Map.copyOf(substringFields);
+    }
+
+    /**
+     * Construit le rewriter pour des champs dont les sous-champs s'appellent "keyword" et "substring".
+     */
+    public static QueryRewriter withSubfields(Collection<String> keywordTextFields,
+                                              Collection<String> substringTextFields) {
+        return new QueryRewriter(subfields(keywordTextFields, "keyword"), subfields(substringTextFields, "substring"));
+    }
+
+    private static Map<String, String> subfields(Collection<String> textFields, String subfield) {
+        return textFields.stream().collect(Collectors.toMap(field -> field, field -> field + "." + subfield));
+    }
+
+    /**
+     * Réécrit une requête complète.
+     *
+     * @param query La requête construite par le repository
+     * @return Une requête équivalente, éventuellement la même instance
+     */
+    public Query rewrite(Query query) {
+        Query rewritten = rewriteClause(query);
+        if (EXACT_VALUE_KINDS.contains(rewritten._kind())) {
+            Query filter = rewritten;
+            rewritten = Query.of(q -> q.constantScore(cs -> cs.filter(filter)));
+        }
+
+        if (logger.isDebugEnabled()) {
+            String before = query.toString();
+            String after = rewritten.toString();
+            if (!before.equals(after)) {
+                logger.debug("Query plan rewritten: {} -> {}", before, after);
+            }
+        }
+        return rewritten;
+    }
+
+    private Query rewriteClause(Query query) {
+        switch (query._kind()) {
+            case Bool:
+                return rewriteBool(query.bool());
+            case Term:
+                return rewriteTerm(query.term());
+            case Terms:
+                return rewriteTerms(query.terms());
+            case QueryString:
+                return rewriteQueryString(query.queryString(), query);
+            case Wildcard:
+                return rewriteWildcard(query.wildcard(), query);
+            default:
+                return query;
+        }
+    }
+
+    private Query rewriteBool(BoolQuery bool) {
+        Query terms = collapseShouldTerms(bool);
+        if (terms != null) {
+            return rewriteClause(terms);
+        }
+
+        List<Query> must = new ArrayList<>();
+        List<Query> filter = bool.filter().stream().map(this::rewriteClause).collect(Collectors.toList());
+        for (Query clause : bool.must()) {
+            Query rewritten = rewriteClause(clause);
+            if (EXACT_VALUE_KINDS.contains(rewritten._kind())) {
+                filter.add(rewritten);
+            } else {
+                must.add(rewritten);
+            }
+        }
+        List<Query> should = bool.should().stream().map(this::rewriteClause).collect(Collectors.toList());
+        List<Query> mustNot = bool.mustNot().stream().map(this::rewriteClause).collect(Collectors.toList());
+
+        return Query.of(q -> q.bool(b -> b
+                .must(must)
+                .filter(filter)
+                .should(should)
+                .mustNot(mustNot)
+                .minimumShouldMatch(bool.minimumShouldMatch())
+                .boost(bool.boost())
+                .queryName(bool.queryName())));
+    }
+
+    /**
+     * Un bool composé uniquement de clauses should "term" sur un même champ équivaut à un
+     * "terms" sur ce champ ; null si ce n'est pas le cas.
+     */
+    private static Query collapseShouldTerms(BoolQuery bool) {
+        if (bool.should().size() < 2 || !bool.must().isEmpty() || !bool.filter().isEmpty()
+                || !bool.mustNot().isEmpty() || bool.minimumShouldMatch() != null) {
+            return null;
+        }
+        String field = null;
+        List<FieldValue> values = new ArrayList<>();
+        for (Query clause : bool.should()) {
+            if (!clause.isTerm() || clause.term().boost() != null
+                    || Boolean.TRUE.equals(clause.term().caseInsensitive())) {
+                return null;
+            }
+            TermQuery term = clause.term();
+            if (field != null && !field.equals(term.field())) {
+                return null;
+            }
+            field = term.field();
+            values.add(term.value());
+        }
+        String termsField = field;
+        return Query.of(q -> q.terms(t -> t.field(termsField).terms(tf -> tf.value(values))));
+    }
+
+    private Query rewriteTerm(TermQuery term) {
+        String keywordField = keywordFields.get(term.field());
+        if (keywordField == null) {
+            return Query.of(q -> q.term(term));
+        }
+        return Query.of(q -> q.term(t -> t
+                .field(keywordField)
+                .value(term.value())
+                .caseInsensitive(term.caseInsensitive())
+                .boost(term.boost())
+                .queryName(term.queryName())));
+    }
+
+    private Query rewriteTerms(TermsQuery terms) {
+        String keywordField = keywordFields.get(terms.field());
+        if (keywordField == null) {
+            return Query.of(q -> q.terms(terms));
+        }
+        return Query.of(q -> q.terms(t -> t
+                .field(keywordField)
+                .terms(terms.terms())
+                .boost(terms.boost())
+                .queryName(terms.queryName())));
+    }
+
+    private Query rewriteWildcard(WildcardQuery wildcard, Query original) {
+        String substringField = substringFields.get(wildcard.field());
+        String pattern = wildcard.value() != null ? wildcard.value() : wildcard.wildcard();
+        if (substringField == null || !isSubstringPattern(pattern)) {
+            return original;
+        }
+        return Query.of(q -> q.wildcard(w -> w
+                .field(substringField)
+                .value(pattern)
+                .caseInsensitive(true)
+                .boost(wildcard.boost())
+                .queryName(wildcard.queryName())));
+    }
+
+    /**
+     * Motif de la forme {@code *terme*} (joker initial et final) : sur un token ou sur la
+     * valeur entière, il trouve les mêmes documents. Les autres motifs ({@code terme*},
+     * {@code *terme}, {@code ?terme*}) sont ancrés et n'ont pas le même sens sur la valeur
+     * entière : {@code ?ava*} trouve le token "java", pas la valeur "Learning Java".
+     */
+    static boolean isSubstringPattern(String pattern) {
+        return pattern != null && pattern.length() > 1
+                && pattern.startsWith("*") && pattern.endsWith("*")
+                && pattern.chars().noneMatch(Character::isWhitespace);
+    }
+
+    private static Query rewriteQueryString(QueryStringQuery queryString, Query original) {
+        if (hasOperators(queryString.query())) {
+            return original;
+        }
+        List<String> fields = !queryString.fields().isEmpty()
+                ? queryString.fields()
+                : queryString.defaultField() != null ? List.of(queryString.defaultField()) : List.of();
+        return Query.of(q -> q.simpleQueryString(s -> s
+                .query(queryString.query())
+                .fields(fields)
+                .defaultOperator(queryString.defaultOperator())
+                .analyzer(queryString.analyzer())
+                .minimumShouldMatch(queryString.minimumShouldMatch())
+                .boost(queryString.boost())
+                .queryName(queryString.queryName())));
+    }
+
+    /**
+     * Vrai si la saisie utilise une syntaxe propre à query_string, par prudence même quand
+     * le caractère pourrait être littéral (un tiret dans "e-mail").
+     */
+    static boolean hasOperators(String query) {
+        return query != null && QUERY_STRING_OPERATORS.matcher(query).find();
+    }
+}
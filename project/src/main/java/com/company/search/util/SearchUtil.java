@@ -45,11 +45,23 @@ public class SearchUtil {
      * @return La requête au format *terme* (insensible à la casse)
      * 
      * Exemple : "java" → "*java*"
+     * 
+     * <p>Sur les champs de elasticsearch.search.substring-subfields, ce motif est servi par le
+     * sous-champ "substring" (voir QueryRewriter).</p>
      */
     public static String buildWildcardQuery(String query) {
         return "*" + query.toLowerCase() + "*";
     }
     
+    /**
+     * Échappe les jokers d'une saisie pour qu'elle soit cherchée littéralement dans un motif wildcard.
+     * 
+     * Exemple : "c++ *ptr" → "c++ \*ptr"
+     */
+    public static String escapeWildcard(String value) {
+        return value.replace("\\", "\\\\").replace("*", "\\*").replace("?", "\\?");
+    }
+    
     /**
      * Vérifie si un terme de recherche est valide.
      * 
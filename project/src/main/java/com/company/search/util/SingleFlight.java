@@ -0,0 +1,73 @@
+package com.company.search.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Regroupe les appels concurrents portant la même clé : tant qu'un appel est en cours,
+ * les suivants reçoivent le même CompletableFuture au lieu de relancer l'opération.
+ *
+ * <p>La clé est libérée dès que le future est complété, avec succès ou en erreur ;
+ * il ne s'agit pas d'un cache. Métriques : {@code {name}.calls} (tag result =
+ * executed ou coalesced) et {@code {name}.in.flight}.</p>
+ *
+ * @param <K> Type de la clé
+ * @param <V> Type du résultat
+ */
+public class SingleFlight<K, V> {
+
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final Counter executed;
+    private final Counter coalesced;
+
+    public SingleFlight(String name, MeterRegistry meterRegistry) {
+        this.executed = Counter.builder(name + ".calls").tag("result", "executed").register(meterRegistry);
+        this.coalesced = Counter.builder(name + ".calls").tag("result", "coalesced").register(meterRegistry);
+        Gauge.builder(name + ".in.flight", inFlight, Map::size).register(meterRegistry);
+    }
+
+    /**
+     * Renvoie le future de l'appel en cours pour cette clé, ou lance {@code call}.
+     * Le future renvoyé est partagé : les appelants ne doivent pas modifier son résultat.
+     */
+    public CompletableFuture<V> execute(K key, Supplier<CompletableFuture<V>> call) {
+        CompletableFuture<V> existing = inFlight.get(key);
+        if (existing != null) {
+            coalesced.increment();
+            return existing;
+        }
+
+        CompletableFuture<V> future = new CompletableFuture<>();
+        existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            coalesced.increment();
+            return existing;
+        }
+
+        executed.increment();
+        try {
+            call.get().whenComplete((value, error) -> {
+                inFlight.remove(key, future);
+                if (error != null) {
+                    future.completeExceptionally(error);
+                } else {
+                    future.complete(value);
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.remove(key, future);
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+}
@@ -4,7 +4,10 @@ import com.company.search.model.dto.SearchRequest;
 import com.company.search.model.dto.SearchResponse;
 import com.company.search.model.dto.SearchResult;
 import com.company.search.model.SearchDocument;
+import com.company.search.service.SearchAsYouTypeService;
+import com.company.search.service.SearchExportService;
 import com.company.search.service.SearchService;
+import com.company.search.service.SuggestService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -30,6 +33,15 @@ class SearchControllerTest {
     @MockBean
     private SearchService searchService;
 
+    @MockBean
+    private SearchExportService searchExportService;
+
+    @MockBean
+    private SuggestService suggestService;
+
+    @MockBean
+    private SearchAsYouTypeService searchAsYouTypeService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -73,7 +85,7 @@ class SearchControllerTest {
             Arrays.asList(result), 1L, 0, 10
         );
 
-        when(searchService.searchSimple("test", 0, 10))
+        when(searchService.searchSimple("test", 0, 10, null, null))
             .thenReturn(CompletableFuture.completedFuture(response));
 
         // When & Then
@@ -0,0 +1,43 @@
+package com.company.search.repository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RepositoryExecutorsTest {
+
+    @Test
+    void elasticsearch_ShouldRejectAndCountWhenQueueIsFull() {
+        // Given
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        RepositoryExecutors executors = new RepositoryExecutors(meterRegistry, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        Runnable blocking = () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+
+        try {
+            // When
+            executors.elasticsearch().execute(blocking);
+            executors.elasticsearch().execute(blocking);
+
+            // Then
+            assertThrows(RejectedExecutionException.class, () -> executors.elasticsearch().execute(blocking));
+            assertEquals(1.0, meterRegistry.get("executor.rejected")
+                    .tag("name", "repository.elasticsearch").counter().count());
+            assertEquals(0.0, meterRegistry.get("executor.rejected")
+                    .tag("name", "repository.scylla").counter().count());
+        } finally {
+            release.countDown();
+            executors.shutdown();
+        }
+    }
+}
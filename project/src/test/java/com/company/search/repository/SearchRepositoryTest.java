@@ -0,0 +1,383 @@
+package com.company.search.repository;
+
+import co.elastic.clients.elasticsearch.ElasticsearchAsyncClient;
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import co.elastic.clients.elasticsearch.core.ClosePointInTimeRequest;
+import co.elastic.clients.elasticsearch.core.ClosePointInTimeResponse;
+import co.elastic.clients.elasticsearch.core.MsearchRequest;
+import co.elastic.clients.elasticsearch.core.MsearchResponse;
+import co.elastic.clients.elasticsearch.core.OpenPointInTimeRequest;
+import co.elastic.clients.elasticsearch.core.OpenPointInTimeResponse;
+import co.elastic.clients.elasticsearch.core.msearch.MultiSearchItem;
+import co.elastic.clients.elasticsearch.core.msearch.MultiSearchResponseItem;
+import co.elastic.clients.elasticsearch.core.search.Hit;
+import co.elastic.clients.elasticsearch.core.search.TotalHitsRelation;
+import co.elastic.clients.util.ObjectBuilder;
+import com.company.search.model.SearchDocument;
+import com.company.search.model.dto.BatchSearchResponse;
+import com.company.search.model.dto.SearchRequest;
+import com.company.search.model.dto.SearchResponse;
+import com.company.search.model.dto.SearchResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SearchRepositoryTest {
+
+    @Mock
+    private ElasticsearchClient client;
+
+    @Mock
+    private ElasticsearchAsyncClient asyncClient;
+
+    private RepositoryExecutors executors;
+
+    private SearchRepository searchRepository;
+
+    @BeforeEach
+    void setUp() {
+        executors = new RepositoryExecutors(new SimpleMeterRegistry(), 2, 10, 1, 1, 1, 1, 1, 1, 1, 1);
+        searchRepository = new SearchRepository(client, asyncClient, executors);
+        ReflectionTestUtils.setField(searchRepository, "trackTotalHitsSetting", "10000");
+        ReflectionTestUtils.setField(searchRepository, "cursorKeepAlive", "2m");
+        ReflectionTestUtils.setField(searchRepository, "summaryFieldsSetting", "id,title,author");
+        ReflectionTestUtils.setField(searchRepository, "facetTermsFieldsSetting", "category");
+        ReflectionTestUtils.setField(searchRepository, "facetDateFieldsSetting", "createdAt");
+        ReflectionTestUtils.setField(searchRepository, "keywordSubfieldsSetting", "title,author");
+        ReflectionTestUtils.setField(searchRepository, "substringSubfieldsSetting", "");
+        ReflectionTestUtils.setField(searchRepository, "defaultProfile", "full");
+        searchRepository.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executors.shutdown();
+    }
+
+    @Test
+    void search_WithoutCursor_ShouldUseFromSizeOnAlias() {
+        // Given
+        SearchRequest request = searchRequest(null, 2, 5);
+        ArgumentCaptor<co.elastic.clients.elasticsearch.core.SearchRequest> sent = stubSearch(
+                esResponse(null, List.of(hit("1", 1.0))));
+
+        // When
+        SearchResponse<SearchResult> response = searchRepository.search(request).join();
+
+        // Then
+        assertEquals(List.of("documents"), sent.getValue().index());
+        assertEquals(10, sent.getValue().from());
+        assertNull(sent.getValue().pit());
+        assertNull(response.getNextCursor());
+        verify(asyncClient, never()).openPointInTime(
+                ArgumentMatchers.<Function<OpenPointInTimeRequest.Builder, ObjectBuilder<OpenPointInTimeRequest>>>any());
+    }
+
+    @Test
+    void search_WithStartCursor_ShouldRoundTripCursorUntilLastPage() {
+        // Given
+        stubOpenPointInTime("pit-1");
+        stubClosePointInTime();
+        ArgumentCaptor<co.elastic.clients.elasticsearch.core.SearchRequest> sent = stubSearch(
+                esResponse("pit-2", List.of(hit("1", 2.0), hit("2", 1.5))),
+                esResponse("pit-3", List.of(hit("3", 1.0))));
+
+        // When
+        SearchResponse<SearchResult> first = searchRepository.search(searchRequest("*", 0, 2)).join();
+        SearchResponse<SearchResult> last = searchRepository.search(searchRequest(first.getNextCursor(), 0, 2)).join();
+
+        // Then
+        List<co.elastic.clients.elasticsearch.core.SearchRequest> requests = sent.getAllValues();
+        assertEquals("pit-1", requests.get(0).pit().id());
+        assertTrue(requests.get(0).index().isEmpty());
+        assertNull(requests.get(0).from());
+        assertTrue(requests.get(0).searchAfter().isEmpty());
+
+        assertNotNull(first.getNextCursor());
+        assertEquals("pit-2", requests.get(1).pit().id());
+        assertEquals(List.of(1.5, "2"), requests.get(1).searchAfter().stream()
+                .map(FieldValue::_get)
+                .collect(Collectors.toList()));
+
+        assertNull(last.getNextCursor());
+        assertEquals(List.of("pit-3"), closedPointInTimes());
+    }
+
+    @Test
+    void search_WithStartCursorAndShortPage_ShouldClosePointInTime() {
+        // Given
+        stubOpenPointInTime("pit-1");
+        stubClosePointInTime();
+        stubSearch(esResponse("pit-1", List.of(hit("1", 1.0))));
+
+        // When
+        SearchResponse<SearchResult> response = searchRepository.search(searchRequest("*", 0, 10)).join();
+
+        // Then
+        assertEquals(1, response.getResults().size());
+        assertNull(response.getNextCursor());
+        assertEquals(List.of("pit-1"), closedPointInTimes());
+    }
+
+    @Test
+    void closeCursor_ShouldClosePointInTimeOfAbandonedCursor() {
+        // Given
+        stubOpenPointInTime("pit-1");
+        stubClosePointInTime();
+        stubSearch(esResponse("pit-2", List.of(hit("1", 2.0), hit("2", 1.5))));
+        SearchResponse<SearchResult> first = searchRepository.search(searchRequest("*", 0, 2)).join();
+
+        // When
+        searchRepository.closeCursor(first.getNextCursor());
+        searchRepository.closeCursor(SearchRepository.START_CURSOR);
+
+        // Then
+        assertEquals(List.of("pit-2"), closedPointInTimes());
+    }
+
+    @Test
+    void search_WithMalformedCursor_ShouldFailWithIllegalArgument() {
+        // Given
+        SearchRequest request = searchRequest("not-a-cursor", 0, 10);
+
+        // When
+        CompletionException error = assertThrows(CompletionException.class,
+                () -> searchRepository.search(request).join());
+
+        // Then
+        assertInstanceOf(IllegalArgumentException.class, error.getCause());
+        verifyNoInteractions(asyncClient);
+    }
+
+    @Test
+    void search_WithDefaultFullProfile_ShouldNotFilterSource() {
+        // Given
+        ArgumentCaptor<co.elastic.clients.elasticsearch.core.SearchRequest> sent = stubSearch(
+                esResponse(null, List.of(hit("1", 1.0))));
+
+        // When
+        searchRepository.search(searchRequest(null, 0, 10)).join();
+
+        // Then
+        assertNull(sent.getValue().source());
+    }
+
+    @Test
+    void search_WithSummaryProfile_ShouldIncludeSummaryFieldsOnly() {
+        // Given
+        SearchRequest request = searchRequest(null, 0, 10);
+        request.setProfile("SUMMARY");
+        ArgumentCaptor<co.elastic.clients.elasticsearch.core.SearchRequest> sent = stubSearch(
+                esResponse(null, List.of(hit("1", 1.0))));
+
+        // When
+        searchRepository.search(request).join();
+
+        // Then
+        assertEquals(List.of("id", "title", "author"), sent.getValue().source().filter().includes());
+        assertTrue(sent.getValue().source().filter().excludes().isEmpty());
+    }
+
+    @Test
+    void search_WithIncludesAndExcludes_ShouldPassThemToElasticsearch() {
+        // Given
+        SearchRequest request = searchRequest(null, 0, 10);
+        request.setSourceIncludes(List.of("title", "metadata.*"));
+        request.setSourceExcludes(List.of("metadata.raw"));
+        ArgumentCaptor<co.elastic.clients.elasticsearch.core.SearchRequest> sent = stubSearch(
+                esResponse(null, List.of(hit("1", 1.0))));
+
+        // When
+        searchRepository.search(request).join();
+
+        // Then
+        assertEquals(List.of("title", "metadata.*"), sent.getValue().source().filter().includes());
+        assertEquals(List.of("metadata.raw"), sent.getValue().source().filter().excludes());
+    }
+
+    @Test
+    void search_WithIncludesAndProfile_ShouldPreferExplicitIncludes() {
+        // Given
+        SearchRequest request = searchRequest(null, 0, 10);
+        request.setProfile("summary");
+        request.setSourceIncludes(List.of("content"));
+        ArgumentCaptor<co.elastic.clients.elasticsearch.core.SearchRequest> sent = stubSearch(
+                esResponse(null, List.of(hit("1", 1.0))));
+
+        // When
+        searchRepository.search(request).join();
+
+        // Then
+        assertEquals(List.of("content"), sent.getValue().source().filter().includes());
+    }
+
+    @Test
+    void search_WithUnknownProfile_ShouldFailWithIllegalArgument() {
+        // Given
+        SearchRequest request = searchRequest(null, 0, 10);
+        request.setProfile("compact");
+
+        // When
+        CompletionException error = assertThrows(CompletionException.class,
+                () -> searchRepository.search(request).join());
+
+        // Then
+        assertInstanceOf(IllegalArgumentException.class, error.getCause());
+        verifyNoInteractions(asyncClient);
+    }
+
+    @Test
+    void multiSearch_ShouldMapEachSearchToItsOwnResultOrError() {
+        // Given
+        MsearchResponse<SearchDocument> response = MsearchResponse.of(r -> r
+                .took(3)
+                .responses(List.of(
+                        MultiSearchResponseItem.of(i -> i.result(multiSearchItem(List.of(hit("1", 1.0))))),
+                        MultiSearchResponseItem.of(i -> i.failure(f -> f
+                                .status(404)
+                                .error(e -> e.type("index_not_found_exception").reason("no such index")))))));
+        when(asyncClient.msearch(any(MsearchRequest.class), eq(SearchDocument.class)))
+                .thenReturn(CompletableFuture.completedFuture(response));
+        List<SearchRequest> searches = List.of(
+                searchRequest(null, 0, 10),
+                searchRequest(SearchRepository.START_CURSOR, 0, 10),
+                searchRequest(null, 0, 10));
+
+        // When
+        List<BatchSearchResponse.Item> items = searchRepository.multiSearch(searches, 2000).join();
+
+        // Then
+        assertEquals(3, items.size());
+        assertEquals(200, items.get(0).getStatus());
+        assertEquals("1", items.get(0).getResponse().getResults().get(0).getDocument().getId());
+        assertEquals(400, items.get(1).getStatus());
+        assertEquals(404, items.get(2).getStatus());
+        assertEquals("no such index", items.get(2).getError());
+    }
+
+    @Test
+    void multiSearch_WithoutAnswerInTime_ShouldReturnTimedOutItemsAndKeepRejectedOnes() {
+        // Given
+        CompletableFuture<MsearchResponse<SearchDocument>> pending = new CompletableFuture<>();
+        when(asyncClient.msearch(any(MsearchRequest.class), eq(SearchDocument.class))).thenReturn(pending);
+        ReflectionTestUtils.setField(searchRepository, "batchTimeoutGraceMs", 0L);
+        List<SearchRequest> searches = List.of(
+                searchRequest(null, 0, 10),
+                searchRequest(SearchRepository.START_CURSOR, 0, 10));
+
+        // When
+        List<BatchSearchResponse.Item> items = searchRepository.multiSearch(searches, 50).join();
+
+        // Then
+        assertEquals(504, items.get(0).getStatus());
+        assertTrue(items.get(0).isTimedOut());
+        assertNull(items.get(0).getResponse());
+        assertEquals(400, items.get(1).getStatus());
+        assertFalse(items.get(1).isTimedOut());
+        assertTrue(pending.isCancelled());
+    }
+
+    private static SearchRequest searchRequest(String cursor, int page, int size) {
+        SearchRequest request = new SearchRequest("kubernetes");
+        request.setCursor(cursor);
+        request.setPage(page);
+        request.setSize(size);
+        return request;
+    }
+
+    private void stubOpenPointInTime(String pitId) {
+        when(asyncClient.openPointInTime(
+                ArgumentMatchers.<Function<OpenPointInTimeRequest.Builder, ObjectBuilder<OpenPointInTimeRequest>>>any()))
+                .thenReturn(CompletableFuture.completedFuture(OpenPointInTimeResponse.of(r -> r.id(pitId))));
+    }
+
+    private void stubClosePointInTime() {
+        when(asyncClient.closePointInTime(
+                ArgumentMatchers.<Function<ClosePointInTimeRequest.Builder, ObjectBuilder<ClosePointInTimeRequest>>>any()))
+                .thenReturn(CompletableFuture.completedFuture(
+                        ClosePointInTimeResponse.of(r -> r.succeeded(true).numFreed(1))));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> closedPointInTimes() {
+        ArgumentCaptor<Function<ClosePointInTimeRequest.Builder, ObjectBuilder<ClosePointInTimeRequest>>> closed =
+                ArgumentCaptor.forClass(Function.class);
+        verify(asyncClient, atLeastOnce()).closePointInTime(closed.capture());
+        return closed.getAllValues().stream()
+                .map(builder -> builder.apply(new ClosePointInTimeRequest.Builder()).build().id())
+                .collect(Collectors.toList());
+    }
+
+    @SafeVarargs
+    private ArgumentCaptor<co.elastic.clients.elasticsearch.core.SearchRequest> stubSearch(
+            co.elastic.clients.elasticsearch.core.SearchResponse<SearchDocument>... responses) {
+        ArgumentCaptor<co.elastic.clients.elasticsearch.core.SearchRequest> sent =
+                ArgumentCaptor.forClass(co.elastic.clients.elasticsearch.core.SearchRequest.class);
+        List<CompletableFuture<co.elastic.clients.elasticsearch.core.SearchResponse<SearchDocument>>> futures =
+                new ArrayList<>();
+        for (co.elastic.clients.elasticsearch.core.SearchResponse<SearchDocument> response : responses) {
+            futures.add(CompletableFuture.completedFuture(response));
+        }
+        var stubbing = when(asyncClient.search(sent.capture(), eq(SearchDocument.class))).thenReturn(futures.get(0));
+        for (int i = 1; i < futures.size(); i++) {
+            stubbing = stubbing.thenReturn(futures.get(i));
+        }
+        return sent;
+    }
+
+    private static co.elastic.clients.elasticsearch.core.SearchResponse<SearchDocument> esResponse(
+            String pitId, List<Hit<SearchDocument>> hits) {
+        return co.elastic.clients.elasticsearch.core.SearchResponse.of(r -> r
+                .took(1)
+                .timedOut(false)
+                .shards(s -> s.total(1).successful(1).failed(0))
+                .pitId(pitId)
+                .hits(h -> h
+                        .total(t -> t.value(hits.size()).relation(TotalHitsRelation.Eq))
+                        .hits(hits)));
+    }
+
+    private static MultiSearchItem<SearchDocument> multiSearchItem(List<Hit<SearchDocument>> hits) {
+        return MultiSearchItem.of(r -> r
+                .status(200)
+                .took(1)
+                .timedOut(false)
+                .shards(s -> s.total(1).successful(1).failed(0))
+                .hits(h -> h
+                        .total(t -> t.value(hits.size()).relation(TotalHitsRelation.Eq))
+                        .hits(hits)));
+    }
+
+    private static Hit<SearchDocument> hit(String id, double score) {
+        SearchDocument document = new SearchDocument();
+        document.setId(id);
+        document.setTitle("Document " + id);
+        return Hit.of(h -> h
+                .index("documents_v1")
+                .id(id)
+                .score(score)
+                .source(document)
+                .sort(FieldValue.of(score), FieldValue.of(id)));
+    }
+}
@@ -0,0 +1,42 @@
+package com.company.search.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenRangeTest {
+
+    @Test
+    void split_ShouldCoverWholeRingWithContiguousRanges() {
+        // When
+        List<TokenRange> ranges = TokenRange.split(7);
+
+        // Then
+        assertEquals(7, ranges.size());
+        assertEquals(Long.MIN_VALUE, ranges.get(0).getStart());
+        assertEquals(Long.MAX_VALUE, ranges.get(6).getEnd());
+        for (int i = 1; i < ranges.size(); i++) {
+            assertEquals(ranges.get(i - 1).getEnd(), ranges.get(i).getStart());
+            assertTrue(ranges.get(i).getStart() < ranges.get(i).getEnd());
+            assertEquals(i, ranges.get(i).getIndex());
+        }
+    }
+
+    @Test
+    void split_WithSingleRange_ShouldReturnWholeRing() {
+        // When
+        List<TokenRange> ranges = TokenRange.split(1);
+
+        // Then
+        assertEquals(1, ranges.size());
+        assertEquals(Long.MIN_VALUE, ranges.get(0).getStart());
+        assertEquals(Long.MAX_VALUE, ranges.get(0).getEnd());
+    }
+
+    @Test
+    void split_WithInvalidCount_ShouldThrow() {
+        assertThrows(IllegalArgumentException.class, () -> TokenRange.split(0));
+    }
+}
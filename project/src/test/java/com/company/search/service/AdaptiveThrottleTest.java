@@ -0,0 +1,61 @@
+package com.company.search.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveThrottleTest {
+
+    @Test
+    void release_ShouldGrowAdditivelyUpToCeiling() throws InterruptedException {
+        // Given
+        AdaptiveThrottle throttle = new AdaptiveThrottle(100, 1000, 60_000, () -> 4);
+
+        // When
+        for (int i = 0; i < 50; i++) {
+            throttle.release(throttle.acquire(), 0, false);
+        }
+
+        // Then
+        assertEquals(4, throttle.getConcurrencyLimit());
+        assertEquals(1000, throttle.getBatchActions());
+    }
+
+    @Test
+    void release_ShouldHalveOnceOnRejections() throws InterruptedException {
+        // Given
+        AdaptiveThrottle throttle = new AdaptiveThrottle(100, 1000, 60_000, () -> 8);
+        for (int i = 0; i < 100; i++) {
+            throttle.release(throttle.acquire(), 0, false);
+        }
+        assertEquals(8, throttle.getConcurrencyLimit());
+
+        // When : deux requêtes parties avant la réduction reviennent rejetées
+        long first = throttle.acquire();
+        long second = throttle.acquire();
+        throttle.release(first, 3, false);
+        throttle.release(second, 5, false);
+
+        // Then
+        assertEquals(4, throttle.getConcurrencyLimit());
+        assertEquals(500, throttle.getBatchActions());
+    }
+
+    @Test
+    void getConcurrencyLimit_ShouldFollowLoweredCeiling() throws InterruptedException {
+        // Given
+        AtomicInteger ceiling = new AtomicInteger(6);
+        AdaptiveThrottle throttle = new AdaptiveThrottle(100, 1000, 60_000, ceiling::get);
+        for (int i = 0; i < 100; i++) {
+            throttle.release(throttle.acquire(), 0, false);
+        }
+
+        // When
+        ceiling.set(1);
+
+        // Then
+        assertEquals(1, throttle.getConcurrencyLimit());
+    }
+}
@@ -0,0 +1,128 @@
+package com.company.search.service;
+
+import com.company.search.model.SearchDocument;
+import com.company.search.model.dto.BulkIndexResult;
+import com.company.search.repository.SearchElasticsearchRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BulkIndexerTest {
+
+    @Mock
+    private SearchElasticsearchRepository repository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void add_ShouldSplitBatchesByDocumentCount() {
+        // Given
+        when(repository.bulkIndex(eq("idx"), anyList(), anyList()))
+            .thenAnswer(inv -> {
+                List<?> docs = inv.getArgument(1);
+                return new BulkIndexResult(docs.size(), 0, 0, 1L, Collections.emptyList());
+            });
+        BulkIndexer indexer = new BulkIndexer(repository, objectMapper, Runnable::run,
+            "idx", Long.MAX_VALUE, fixedThrottle(2, 2));
+
+        // When
+        for (int i = 0; i < 5; i++) {
+            indexer.add(document("doc-" + i, "content"));
+        }
+        indexer.close();
+
+        // Then
+        verify(repository, times(3)).bulkIndex(eq("idx"), anyList(), anyList());
+        assertEquals(5, indexer.getSucceeded());
+        assertEquals(0, indexer.getFailed());
+        assertEquals(3, indexer.getRequests());
+    }
+
+    @Test
+    void add_ShouldFlushBeforeExceedingPayloadBytes() {
+        // Given
+        when(repository.bulkIndex(eq("idx"), anyList(), anyList()))
+            .thenAnswer(inv -> {
+                List<?> docs = inv.getArgument(1);
+                return new BulkIndexResult(docs.size(), 0, 0, 1L, Collections.emptyList());
+            });
+        BulkIndexer indexer = new BulkIndexer(repository, objectMapper, Runnable::run,
+            "idx", 300, fixedThrottle(1000, 1));
+
+        // When
+        indexer.add(document("doc-1", "x".repeat(200)));
+        indexer.add(document("doc-2", "x".repeat(200)));
+        indexer.close();
+
+        // Then
+        verify(repository, times(2)).bulkIndex(eq("idx"), argThat(docs -> docs.size() == 1), anyList());
+        assertEquals(2, indexer.getSucceeded());
+    }
+
+    @Test
+    void delete_ShouldShareBatchWithIndexOperations() {
+        // Given
+        when(repository.bulkIndex(eq("idx"), anyList(), anyList()))
+            .thenAnswer(inv -> {
+                List<?> docs = inv.getArgument(1);
+                List<?> deletes = inv.getArgument(2);
+                return new BulkIndexResult(docs.size() + deletes.size(), 0, 0, 1L, Collections.emptyList());
+            });
+        BulkIndexer indexer = new BulkIndexer(repository, objectMapper, Runnable::run,
+            "idx", Long.MAX_VALUE, fixedThrottle(3, 1));
+
+        // When
+        indexer.add(document("doc-1", "content"));
+        indexer.delete("doc-2");
+        indexer.delete("doc-3");
+        indexer.close();
+
+        // Then
+        verify(repository, times(1)).bulkIndex(eq("idx"),
+            argThat(docs -> docs.size() == 1), eq(List.of("doc-2", "doc-3")));
+        assertEquals(3, indexer.getSucceeded());
+    }
+
+    @Test
+    void close_ShouldCountWholeBatchAsFailedWhenRequestFails() {
+        // Given
+        when(repository.bulkIndex(eq("idx"), anyList(), anyList()))
+            .thenThrow(new RuntimeException("Failed to execute bulk request"));
+        BulkIndexer indexer = new BulkIndexer(repository, objectMapper, Runnable::run,
+            "idx", Long.MAX_VALUE, fixedThrottle(10, 1));
+
+        // When
+        indexer.add(document("doc-1", "content"));
+        indexer.add(document("doc-2", "content"));
+        indexer.close();
+
+        // Then
+        assertEquals(0, indexer.getSucceeded());
+        assertEquals(2, indexer.getFailed());
+        assertThrows(IllegalStateException.class, () -> indexer.add(document("doc-3", "content")));
+    }
+
+    private AdaptiveThrottle fixedThrottle(int actions, int concurrency) {
+        return new AdaptiveThrottle(actions, actions, Long.MAX_VALUE, () -> concurrency);
+    }
+
+    private SearchDocument document(String id, String content) {
+        SearchDocument document = new SearchDocument();
+        document.setId(id);
+        document.setTitle("Title " + id);
+        document.setContent(content);
+        return document;
+    }
+}
@@ -0,0 +1,177 @@
+package com.company.search.service;
+
+import com.company.search.model.DocumentChange;
+import com.company.search.model.IndexingCheckpoint;
+import com.company.search.model.SearchDocument;
+import com.company.search.repository.DataScyllaRepository;
+import com.company.search.repository.DocumentChangeRepository;
+import com.company.search.repository.DocumentTombstoneRepository;
+import com.company.search.repository.IndexingCheckpointRepository;
+import com.company.search.repository.TokenRangeScanner;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IncrementalIndexingServiceTest {
+
+    @Mock
+    private DocumentChangeRepository changeRepository;
+
+    @Mock
+    private IndexingCheckpointRepository checkpointRepository;
+
+    @Mock
+    private DataScyllaRepository scyllaRepository;
+
+    @Mock
+    private DocumentTombstoneRepository tombstoneRepository;
+
+    @Mock
+    private TokenRangeScanner tokenRangeScanner;
+
+    @Mock
+    private BulkIndexerFactory bulkIndexerFactory;
+
+    @Mock
+    private IndexingQueue indexingQueue;
+
+    @Mock
+    private IndexingJobService jobService;
+
+    private IncrementalIndexingService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new IncrementalIndexingService(changeRepository, checkpointRepository, scyllaRepository,
+            tombstoneRepository, tokenRangeScanner, bulkIndexerFactory, indexingQueue, jobService);
+        ReflectionTestUtils.setField(service, "batchSize", 500);
+        ReflectionTestUtils.setField(service, "safetyLagMs", 0L);
+    }
+
+    @Test
+    void indexChanges_WithUnreadableUpsert_ShouldStopBeforeItInsteadOfDeleting() {
+        // Given
+        when(jobService.acquireLease(IncrementalIndexingService.CHECKPOINT_NAME)).thenReturn(true);
+        Instant start = Instant.now().minusSeconds(10);
+        DocumentChange readable = new DocumentChange("a", start.plusSeconds(1), DocumentChange.Operation.UPSERT);
+        DocumentChange lagging = new DocumentChange("b", start.plusSeconds(2), DocumentChange.Operation.UPSERT);
+        DocumentChange deleted = new DocumentChange("c", start.plusSeconds(3), DocumentChange.Operation.DELETE);
+        when(checkpointRepository.findByName(IncrementalIndexingService.CHECKPOINT_NAME))
+            .thenReturn(Optional.of(new IndexingCheckpoint(IncrementalIndexingService.CHECKPOINT_NAME, start, "")));
+        when(changeRepository.findChangesAfter(any(), any(), anyString(), anyInt()))
+            .thenReturn(List.of(readable, lagging, deleted));
+        SearchDocument document = new SearchDocument();
+        document.setId("a");
+        when(scyllaRepository.findByIds(anyCollection())).thenReturn(List.of(document));
+        when(tombstoneRepository.findTombstonedIds(anyCollection())).thenReturn(Set.of());
+        when(indexingQueue.upsert(document)).thenReturn(CompletableFuture.completedFuture(null));
+        when(checkpointRepository.saveIf(any(), any())).thenReturn(true);
+
+        // When
+        service.indexChanges();
+
+        // Then
+        verify(indexingQueue).upsert(document);
+        verify(indexingQueue, never()).delete(anyString());
+        verify(checkpointRepository).saveIf(argThat(checkpoint ->
+            checkpoint.getWatermark().equals(readable.getChangedAt()) && "a".equals(checkpoint.getLastId())), any());
+    }
+
+    @Test
+    void indexChanges_WithTombstonedUpsert_ShouldDeleteFromIndex() {
+        // Given
+        when(jobService.acquireLease(IncrementalIndexingService.CHECKPOINT_NAME)).thenReturn(true);
+        Instant start = Instant.now().minusSeconds(10);
+        DocumentChange change = new DocumentChange("b", start.plusSeconds(1), DocumentChange.Operation.UPSERT);
+        when(checkpointRepository.findByName(IncrementalIndexingService.CHECKPOINT_NAME))
+            .thenReturn(Optional.of(new IndexingCheckpoint(IncrementalIndexingService.CHECKPOINT_NAME, start, "")));
+        when(changeRepository.findChangesAfter(any(), any(), anyString(), anyInt()))
+            .thenReturn(List.of(change))
+            .thenReturn(List.of());
+        when(scyllaRepository.findByIds(anyCollection())).thenReturn(List.of());
+        when(tombstoneRepository.findTombstonedIds(anyCollection())).thenReturn(Set.of("b"));
+        when(indexingQueue.delete("b")).thenReturn(CompletableFuture.completedFuture(null));
+        when(checkpointRepository.saveIf(any(), any())).thenReturn(true);
+
+        // When
+        service.indexChanges();
+
+        // Then
+        verify(indexingQueue).delete("b");
+        verify(checkpointRepository, atLeastOnce()).saveIf(argThat(checkpoint -> "b".equals(checkpoint.getLastId())), any());
+    }
+
+    @Test
+    void indexChanges_WithoutLease_ShouldLeaveOutboxToOtherInstance() {
+        // Given
+        when(jobService.acquireLease(IncrementalIndexingService.CHECKPOINT_NAME)).thenReturn(false);
+
+        // When
+        service.indexChanges();
+
+        // Then
+        verifyNoInteractions(checkpointRepository, changeRepository, indexingQueue);
+    }
+
+    @Test
+    void switchIndex_ShouldRereadCheckpointWhenRelayMovedItConcurrently() {
+        // Given
+        Instant reindexStartedAt = Instant.now().minusSeconds(60);
+        IndexingCheckpoint before = new IndexingCheckpoint(IncrementalIndexingService.CHECKPOINT_NAME,
+            reindexStartedAt.plusSeconds(30), "x");
+        IndexingCheckpoint advanced = new IndexingCheckpoint(IncrementalIndexingService.CHECKPOINT_NAME,
+            reindexStartedAt.plusSeconds(40), "y");
+        when(checkpointRepository.findByName(IncrementalIndexingService.CHECKPOINT_NAME))
+            .thenReturn(Optional.of(before))
+            .thenReturn(Optional.of(advanced));
+        when(checkpointRepository.saveIf(any(), eq(before))).thenReturn(false);
+        when(checkpointRepository.saveIf(any(), eq(advanced))).thenReturn(true);
+        Runnable aliasSwap = mock(Runnable.class);
+
+        // When
+        service.switchIndex(aliasSwap, reindexStartedAt);
+
+        // Then
+        verify(aliasSwap).run();
+        verify(checkpointRepository).saveIf(argThat(checkpoint ->
+            checkpoint.getWatermark().equals(reindexStartedAt) && "".equals(checkpoint.getLastId())), eq(advanced));
+    }
+
+    @Test
+    void indexChanges_WhenCheckpointMovedByAnotherWriter_ShouldStopWithoutOverwriting() {
+        // Given
+        when(jobService.acquireLease(IncrementalIndexingService.CHECKPOINT_NAME)).thenReturn(true);
+        Instant start = Instant.now().minusSeconds(10);
+        DocumentChange change = new DocumentChange("a", start.plusSeconds(1), DocumentChange.Operation.DELETE);
+        when(checkpointRepository.findByName(IncrementalIndexingService.CHECKPOINT_NAME))
+            .thenReturn(Optional.of(new IndexingCheckpoint(IncrementalIndexingService.CHECKPOINT_NAME, start, "")));
+        when(changeRepository.findChangesAfter(any(), any(), anyString(), anyInt())).thenReturn(List.of(change));
+        when(indexingQueue.delete("a")).thenReturn(CompletableFuture.completedFuture(null));
+        when(checkpointRepository.saveIf(any(), any())).thenReturn(false);
+
+        // When
+        service.indexChanges();
+
+        // Then
+        verify(checkpointRepository, times(1)).saveIf(any(), any());
+        verify(checkpointRepository, never()).create(any());
+    }
+}
@@ -0,0 +1,86 @@
+package com.company.search.service;
+
+import com.company.search.exception.IndexingException;
+import com.company.search.model.SearchDocument;
+import com.company.search.model.dto.BulkIndexResult;
+import com.company.search.repository.SearchElasticsearchRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IndexingQueueTest {
+
+    @Mock
+    private SearchElasticsearchRepository repository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void upsert_ShouldCoalescePendingChangesToLatestState() {
+        // Given
+        when(repository.bulkIndex(eq("idx"), anyList(), anyList()))
+            .thenReturn(new BulkIndexResult(2, 0, 0, 1L, Collections.emptyList()));
+        IndexingQueue queue = new IndexingQueue(repository, objectMapper, "idx",
+            Long.MAX_VALUE, Long.MAX_VALUE, 1000, 60_000);
+        queue.start();
+
+        // When
+        CompletableFuture<Void> first = queue.upsert(document("doc-1", "v1"));
+        CompletableFuture<Void> second = queue.upsert(document("doc-1", "v2"));
+        CompletableFuture<Void> deletion = queue.delete("doc-2");
+        queue.close();
+
+        // Then
+        verify(repository, times(1)).bulkIndex(eq("idx"),
+            argThat(docs -> docs.size() == 1 && new String(docs.get(0).getJson(), StandardCharsets.UTF_8).contains("\"v2\"")),
+            eq(List.of("doc-2")));
+        assertTrue(first.isDone() && second.isDone() && deletion.isDone());
+        assertEquals(3, queue.getSubmitted());
+        assertEquals(1, queue.getCoalesced());
+        assertEquals(0, queue.getBufferedBytes());
+    }
+
+    @Test
+    void upsert_ShouldFailFutureWithRetryableErrorWhenRejected() {
+        // Given
+        BulkIndexResult result = new BulkIndexResult(1, 1, 1, 1L, List.of("doc-1"));
+        result.setRejectedIds(List.of("doc-1"));
+        when(repository.bulkIndex(eq("idx"), anyList(), anyList())).thenReturn(result);
+        IndexingQueue queue = new IndexingQueue(repository, objectMapper, "idx",
+            Long.MAX_VALUE, Long.MAX_VALUE, 2, 60_000);
+        queue.start();
+
+        // When
+        CompletableFuture<Void> rejected = queue.upsert(document("doc-1", "content"));
+        CompletableFuture<Void> accepted = queue.upsert(document("doc-2", "content"));
+
+        // Then
+        CompletionException error = assertThrows(CompletionException.class, rejected::join);
+        assertTrue(((IndexingException) error.getCause()).isRetryable());
+        assertDoesNotThrow(accepted::join);
+        queue.close();
+    }
+
+    private SearchDocument document(String id, String content) {
+        SearchDocument document = new SearchDocument();
+        document.setId(id);
+        document.setTitle("Title " + id);
+        document.setContent(content);
+        return document;
+    }
+}
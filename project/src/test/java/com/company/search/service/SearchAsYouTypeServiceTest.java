@@ -0,0 +1,70 @@
+package com.company.search.service;
+
+import com.company.search.model.SearchDocument;
+import com.company.search.model.dto.SearchResponse;
+import com.company.search.model.dto.SearchResult;
+import com.company.search.repository.IndexGeneration;
+import com.company.search.repository.SearchRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SearchAsYouTypeServiceTest {
+
+    @Mock
+    private SearchRepository searchRepository;
+
+    @Test
+    void search_ShouldRefineLongerPrefixesLocallyWithinSession() {
+        // Given
+        IndexGeneration indexGeneration = new IndexGeneration();
+        SearchAsYouTypeService service = new SearchAsYouTypeService(searchRepository, indexGeneration,
+            new SimpleMeterRegistry(), 200, 20, 30, 100);
+        List<SearchResult> candidates = List.of(
+            result("Kubernetes in Action", "Marko Luksa"),
+            result("Kubernetes Operators", "Jason Dobies"),
+            result("Kubernetized Builds", "Jane Doe"));
+        when(searchRepository.prefixSearch("kubern", 200))
+            .thenReturn(CompletableFuture.completedFuture(new SearchResponse<>(candidates, 3L, 0, 200)));
+
+        // When
+        service.search("s1", "kubern", 10).join();
+        service.search("s1", "kuberne", 10).join();
+        SearchResponse<SearchResult> refined = service.search("s1", "Kubernetes oper", 10).join();
+
+        // Then
+        assertEquals(1, refined.getResults().size());
+        assertEquals("Kubernetes Operators", refined.getResults().get(0).getDocument().getTitle());
+        assertEquals("eq", refined.getTotalHitsRelation());
+        verify(searchRepository, times(1)).prefixSearch(anyString(), anyInt());
+    }
+
+    @Test
+    void matches_ShouldRequireAllTermsInTheSameField() {
+        // Given
+        SearchDocument document = result("Kubernetes in Action", "Marko Luksa").getDocument();
+
+        // When / Then
+        assertTrue(SearchAsYouTypeService.matches(document, List.of("kubernetes", "act")));
+        assertTrue(SearchAsYouTypeService.matches(document, List.of("marko", "luk")));
+        assertFalse(SearchAsYouTypeService.matches(document, List.of("kubernetes", "luksa")));
+    }
+
+    private static SearchResult result(String title, String author) {
+        SearchDocument document = new SearchDocument();
+        document.setTitle(title);
+        document.setAuthor(author);
+        return new SearchResult(document, 1.0f);
+    }
+}
@@ -0,0 +1,77 @@
+package com.company.search.service;
+
+import com.company.search.model.SearchDocument;
+import com.company.search.model.dto.SearchRequest;
+import com.company.search.repository.SearchRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SearchExportServiceTest {
+
+    @Mock
+    private SearchRepository searchRepository;
+
+    @Test
+    void export_ShouldWriteOneJsonDocumentPerLineAndCloseStream() throws Exception {
+        // Given
+        AtomicBoolean closed = new AtomicBoolean(false);
+        when(searchRepository.streamMatches(any(SearchRequest.class), eq(2), eq(50)))
+            .thenReturn(Stream.of(document("doc-1"), document("doc-2")).onClose(() -> closed.set(true)));
+        SearchExportService exportService = new SearchExportService(searchRepository, new ObjectMapper(),
+            new SimpleMeterRegistry(), 2, 50, 4);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        long count = exportService.export(new SearchRequest("*"), out);
+
+        // Then
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, count);
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].contains("\"id\":\"doc-1\""));
+        assertTrue(lines[1].contains("\"id\":\"doc-2\""));
+        assertTrue(closed.get());
+    }
+
+    @Test
+    void open_ShouldRejectBeyondMaxConcurrentExportsUntilOneIsClosed() {
+        // Given
+        when(searchRepository.streamMatches(any(SearchRequest.class), eq(2), eq(50)))
+            .thenAnswer(invocation -> Stream.of(document("doc-1")));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        SearchExportService exportService = new SearchExportService(searchRepository, new ObjectMapper(),
+            meterRegistry, 2, 50, 1);
+
+        // When
+        Stream<SearchDocument> first = exportService.open(new SearchRequest("*"));
+
+        // Then
+        assertThrows(RejectedExecutionException.class, () -> exportService.open(new SearchRequest("*")));
+        assertEquals(1.0, meterRegistry.get("search.export.rejected").counter().count());
+        first.close();
+        exportService.open(new SearchRequest("*")).close();
+    }
+
+    private static SearchDocument document(String id) {
+        SearchDocument document = new SearchDocument();
+        document.setId(id);
+        document.setContent("content " + id);
+        return document;
+    }
+}
@@ -1,9 +1,16 @@
 package com.company.search.service;
 
+import com.company.search.model.dto.BatchSearchRequest;
+import com.company.search.model.dto.BatchSearchResponse;
+import com.company.search.model.dto.FacetBucket;
+import com.company.search.model.dto.FacetSpec;
 import com.company.search.model.dto.SearchRequest;
 import com.company.search.model.dto.SearchResponse;
 import com.company.search.model.dto.SearchResult;
+import com.company.search.repository.IndexGeneration;
 import com.company.search.repository.SearchRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -11,6 +18,9 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -23,11 +33,20 @@ class SearchServiceTest {
     @Mock
     private SearchRepository searchRepository;
 
+    private final IndexGeneration indexGeneration = new IndexGeneration();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     private SearchService searchService;
 
     @BeforeEach
     void setUp() {
-        searchService = new SearchService(searchRepository);
+        SearchResultCache resultCache = new SearchResultCache(new ObjectMapper(), indexGeneration, meterRegistry,
+            true, 1_000_000, 300, 0, "");
+        FacetCache facetCache = new FacetCache(new ObjectMapper(), indexGeneration, meterRegistry,
+            true, 1_000, 300, 3, 0);
+        searchService = new SearchService(searchRepository, resultCache, facetCache, meterRegistry,
+            20, 2000, "adaptive", 5);
     }
 
     @Test
@@ -38,9 +57,8 @@ class SearchServiceTest {
         SearchResult result2 = new SearchResult();
         
         when(searchRepository.search(any(SearchRequest.class)))
-            .thenReturn(CompletableFuture.completedFuture(Arrays.asList(result1, result2)));
-        when(searchRepository.count(anyString()))
-            .thenReturn(CompletableFuture.completedFuture(2L));
+            .thenReturn(CompletableFuture.completedFuture(
+                new SearchResponse<>(Arrays.asList(result1, result2), 2L, 0, 10)));
 
         // When
         CompletableFuture<SearchResponse<SearchResult>> result = searchService.search(request);
@@ -60,9 +78,8 @@ class SearchServiceTest {
         int size = 10;
         
         when(searchRepository.search(any(SearchRequest.class)))
-            .thenReturn(CompletableFuture.completedFuture(Arrays.asList()));
-        when(searchRepository.count(anyString()))
-            .thenReturn(CompletableFuture.completedFuture(0L));
+            .thenReturn(CompletableFuture.completedFuture(
+                new SearchResponse<>(Arrays.asList(), 0L, page, size)));
 
         // When
         searchService.searchSimple(query, page, size);
@@ -74,4 +91,129 @@ class SearchServiceTest {
             size == request.getSize()
         ));
     }
-}
\ No newline at end of file
+
+    @Test
+    void search_ShouldServeRepeatedQueryFromCacheUntilIndexChanges() {
+        // Given
+        when(searchRepository.search(any(SearchRequest.class)))
+            .thenAnswer(invocation -> CompletableFuture.completedFuture(
+                new SearchResponse<>(Arrays.asList(new SearchResult()), 1L, 0, 10)));
+
+        // When
+        searchService.searchSimple("cached  query", 0, 10).join();
+        SearchResponse<SearchResult> cached = searchService.searchSimple(" cached query", 0, 10).join();
+        indexGeneration.bump();
+        searchService.searchSimple("cached query", 0, 10).join();
+
+        // Then
+        verify(searchRepository, times(2)).search(any(SearchRequest.class));
+        assertEquals(1L, cached.getTotalHits());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "search.results").tag("result", "hit")
+            .functionCounter().count());
+    }
+
+    @Test
+    void search_ShouldReuseCachedFacetsForNextPage() {
+        // Given
+        Map<String, Object> facets = Map.of("category", List.of(new FacetBucket("news", 42)));
+        when(searchRepository.search(any(SearchRequest.class))).thenAnswer(invocation -> {
+            SearchRequest request = invocation.getArgument(0);
+            SearchResponse<SearchResult> response = new SearchResponse<>(List.of(), 42L, request.getPage(), 10);
+            if (request.getFacets() != null) {
+                response.setAggregations(facets);
+            }
+            return CompletableFuture.completedFuture(response);
+        });
+        SearchRequest firstPage = new SearchRequest("test query");
+        firstPage.setFacets(List.of(new FacetSpec(FacetSpec.TERMS, "category")));
+        SearchRequest secondPage = new SearchRequest(firstPage);
+        secondPage.setPage(1);
+
+        // When
+        searchService.search(firstPage).join();
+        SearchResponse<SearchResult> second = searchService.search(secondPage).join();
+
+        // Then
+        assertEquals(facets, second.getAggregations());
+        verify(searchRepository).search(argThat(request -> request.getPage() == 1 && request.getFacets() == null));
+    }
+
+    @Test
+    void fullTextSearch_ShouldFallBackToFuzzyOnlyWhenExactRecallIsLow() {
+        // Given
+        List<String> fields = List.of("title");
+        when(searchRepository.fullTextSearch(eq("kubernetes"), eq(fields), eq("match"), eq(0), eq(10), eq("0"), isNull()))
+            .thenReturn(CompletableFuture.completedFuture(new SearchResponse<>(List.of(new SearchResult()), 12L, 0, 10)));
+        when(searchRepository.fullTextSearch(eq("kubernets"), eq(fields), eq("match"), eq(0), eq(10), eq("0"), isNull()))
+            .thenReturn(CompletableFuture.completedFuture(new SearchResponse<>(List.of(), 0L, 0, 10)));
+        when(searchRepository.fullTextSearch(eq("kubernets"), eq(fields), eq("match"), eq(0), eq(10), eq("AUTO"), isNull()))
+            .thenReturn(CompletableFuture.completedFuture(new SearchResponse<>(List.of(new SearchResult()), 9L, 0, 10)));
+
+        // When
+        SearchResponse<SearchResult> exact = searchService
+            .fullTextSearch("kubernetes", fields, "match", 0, 10, null, null).join();
+        SearchResponse<SearchResult> fuzzy = searchService
+            .fullTextSearch("kubernets", fields, "match", 0, 10, null, null).join();
+
+        // Then
+        assertFalse(exact.getFuzzy());
+        assertTrue(fuzzy.getFuzzy());
+        assertEquals(9L, fuzzy.getTotalHits());
+        verify(searchRepository, never())
+            .fullTextSearch(eq("kubernetes"), any(), any(), anyInt(), anyInt(), eq("AUTO"), any());
+        assertEquals(1.0, meterRegistry.get("search.full-text.adaptive").tag("phase", "fuzzy").counter().count());
+    }
+
+    @Test
+    void batchSearch_ShouldRejectMoreSearchesThanTheMaximum() {
+        // Given
+        BatchSearchRequest batch = new BatchSearchRequest(
+            Collections.nCopies(21, new SearchRequest("kubernetes")));
+
+        // When / Then
+        assertThrows(IllegalArgumentException.class, () -> searchService.batchSearch(batch));
+        verifyNoInteractions(searchRepository);
+    }
+
+    @Test
+    void batchSearch_ShouldUseDefaultTimeoutAndReturnEachItem() {
+        // Given
+        List<SearchRequest> searches = List.of(new SearchRequest("kubernetes"), new SearchRequest("java"));
+        List<BatchSearchResponse.Item> items = List.of(
+            BatchSearchResponse.Item.success(new SearchResponse<>(List.of(new SearchResult()), 1L, 0, 10), false),
+            BatchSearchResponse.Item.timedOut("Délai du lot dépassé (2000ms)"));
+        when(searchRepository.multiSearch(searches, 2000L)).thenReturn(CompletableFuture.completedFuture(items));
+
+        // When
+        BatchSearchResponse response = searchService.batchSearch(new BatchSearchRequest(searches)).join();
+
+        // Then
+        assertEquals(2, response.getResponses().size());
+        assertEquals(200, response.getResponses().get(0).getStatus());
+        assertTrue(response.getResponses().get(1).isTimedOut());
+        assertEquals(504, response.getResponses().get(1).getStatus());
+    }
+
+    @Test
+    void fullTextSearch_WithStartCursor_ShouldCloseExactCursorBeforeFuzzyFallback() {
+        // Given
+        List<String> fields = List.of("title");
+        SearchResponse<SearchResult> exactPage = new SearchResponse<>(List.of(new SearchResult()), 1L, 0, 1);
+        exactPage.setNextCursor("exact-cursor");
+        SearchResponse<SearchResult> fuzzyPage = new SearchResponse<>(List.of(new SearchResult()), 8L, 0, 1);
+        fuzzyPage.setNextCursor("fuzzy-cursor");
+        when(searchRepository.fullTextSearch(eq("kubernets"), eq(fields), eq("match"), eq(0), eq(1), eq("0"), eq("*")))
+            .thenReturn(CompletableFuture.completedFuture(exactPage));
+        when(searchRepository.fullTextSearch(eq("kubernets"), eq(fields), eq("match"), eq(0), eq(1), eq("AUTO"), eq("*")))
+            .thenReturn(CompletableFuture.completedFuture(fuzzyPage));
+
+        // When
+        SearchResponse<SearchResult> response = searchService
+            .fullTextSearch("kubernets", fields, "match", 0, 1, null, "*").join();
+
+        // Then
+        verify(searchRepository).closeCursor("exact-cursor");
+        assertTrue(response.getFuzzy());
+        assertEquals("fuzzy:fuzzy-cursor", response.getNextCursor());
+    }
+}
@@ -0,0 +1,67 @@
+package com.company.search.service;
+
+import com.company.search.repository.IndexGeneration;
+import com.company.search.repository.SearchRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SuggestServiceTest {
+
+    @Mock
+    private SearchRepository searchRepository;
+
+    @Test
+    void suggest_ShouldServeLongerPrefixesFromExhaustiveList() {
+        // Given
+        IndexGeneration indexGeneration = new IndexGeneration();
+        SuggestService suggestService = new SuggestService(searchRepository, indexGeneration,
+            new SimpleMeterRegistry(), 10, true, 12, 1000, 0);
+        when(searchRepository.suggestTitles("ja", 10))
+            .thenReturn(CompletableFuture.completedFuture(List.of("Java Streams", "Jakarta EE", "Japan")));
+
+        // When
+        suggestService.suggest("Ja", 5).join();
+        List<String> derived = suggestService.suggest("jav", 5).join();
+        List<String> repeated = suggestService.suggest(" JA ", 2).join();
+
+        // Then
+        assertEquals(List.of("Java Streams"), derived);
+        assertEquals(List.of("Java Streams", "Jakarta EE"), repeated);
+        verify(searchRepository, times(1)).suggestTitles(anyString(), anyInt());
+    }
+
+    @Test
+    void suggest_WhenElasticsearchFails_ShouldFallBackToKnownPrefixes() {
+        // Given
+        IndexGeneration indexGeneration = new IndexGeneration();
+        SuggestService suggestService = new SuggestService(searchRepository, indexGeneration,
+            new SimpleMeterRegistry(), 2, true, 12, 1000, 0);
+        when(searchRepository.suggestTitles("ja", 2))
+            .thenReturn(CompletableFuture.completedFuture(List.of("Java Streams", "Jakarta EE")));
+        when(searchRepository.suggestTitles("jav", 2))
+            .thenReturn(CompletableFuture.failedFuture(new RuntimeException("Failed to suggest titles")));
+        when(searchRepository.suggestTitles("py", 2))
+            .thenReturn(CompletableFuture.failedFuture(new RuntimeException("Failed to suggest titles")));
+
+        // When
+        suggestService.suggest("ja", 2).join();
+        List<String> fromTrie = suggestService.suggest("jav", 2).join();
+        List<String> unknown = suggestService.suggest("py", 2).join();
+
+        // Then
+        assertEquals(List.of("Java Streams"), fromTrie);
+        assertTrue(unknown.isEmpty());
+    }
+}
@@ -0,0 +1,28 @@
+package com.company.search.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrefixTrieTest {
+
+    @Test
+    void longestPrefixOf_ShouldReturnDeepestStoredAncestor() {
+        // Given
+        PrefixTrie<String> trie = new PrefixTrie<>();
+        trie.put("ja", "ja");
+        trie.put("java", "java");
+        trie.put("jax", "jax");
+
+        // When / Then
+        assertEquals("java", trie.longestPrefixOf("javascript"));
+        assertEquals("ja", trie.longestPrefixOf("jak"));
+        assertNull(trie.longestPrefixOf("kotlin"));
+        assertNull(trie.get("jav"));
+        assertEquals(3, trie.size());
+
+        trie.clear();
+        assertNull(trie.longestPrefixOf("java"));
+        assertEquals(0, trie.size());
+    }
+}
@@ -0,0 +1,122 @@
+package com.company.search.util;
+
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import co.elastic.clients.elasticsearch._types.query_dsl.BoolQuery;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryRewriterTest {
+
+    private final QueryRewriter rewriter = QueryRewriter.withSubfields(
+            List.of("title", "author"), List.of("title", "author"));
+
+    @Test
+    void rewrite_ShouldMoveExactValueClausesToFilterAndRouteToKeyword() {
+        // Given
+        Query query = Query.of(q -> q.bool(b -> b
+                .must(m -> m.queryString(qs -> qs.query("elasticsearch AND java")))
+                .must(m -> m.term(t -> t.field("author").value("John Doe")))
+                .filter(f -> f.term(t -> t.field("category").value("tech")))));
+
+        // When
+        Query rewritten = rewriter.rewrite(query);
+
+        // Then
+        BoolQuery bool = rewritten.bool();
+        assertEquals(1, bool.must().size());
+        assertTrue(bool.must().get(0).isQueryString());
+        assertEquals(2, bool.filter().size());
+        assertEquals("category", bool.filter().get(0).term().field());
+        assertEquals("author.keyword", bool.filter().get(1).term().field());
+    }
+
+    @Test
+    void rewrite_ShouldCollapseShouldTermsIntoConstantScoreTerms() {
+        // Given
+        Query query = Query.of(q -> q.bool(b -> b
+                .should(s -> s.term(t -> t.field("title").value("a")))
+                .should(s -> s.term(t -> t.field("title").value("b")))));
+
+        // When
+        Query rewritten = rewriter.rewrite(query);
+
+        // Then
+        assertTrue(rewritten.isConstantScore());
+        Query filter = rewritten.constantScore().filter();
+        assertEquals("title.keyword", filter.terms().field());
+        assertEquals(List.of("a", "b"), filter.terms().terms().value().stream()
+                .map(FieldValue::stringValue)
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    void rewrite_ShouldDowngradeQueryStringOnlyWithoutOperators() {
+        // Given
+        Query plain = Query.of(q -> q.queryString(qs -> qs.query("spring boot")));
+        Query withOperators = Query.of(q -> q.queryString(qs -> qs.query("title:spring OR boot*")));
+
+        // When / Then
+        assertTrue(rewriter.rewrite(plain).isSimpleQueryString());
+        assertEquals("spring boot", rewriter.rewrite(plain).simpleQueryString().query());
+        assertTrue(rewriter.rewrite(withOperators).isQueryString());
+    }
+
+    @Test
+    void rewrite_ShouldRouteOnlySubstringWildcardsToSubstringField() {
+        // Given
+        Query substring = Query.of(q -> q.wildcard(w -> w.field("title").value("*java*")));
+        Query anchored = Query.of(q -> q.wildcard(w -> w.field("title").value("java*")));
+        Query singleCharacter = Query.of(q -> q.wildcard(w -> w.field("title").value("?ava*")));
+
+        // When
+        Query rewritten = rewriter.rewrite(substring).constantScore().filter();
+
+        // Then
+        assertEquals("title.substring", rewritten.wildcard().field());
+        assertEquals("*java*", rewritten.wildcard().value());
+        assertTrue(rewritten.wildcard().caseInsensitive());
+        assertEquals("title", rewriter.rewrite(anchored).constantScore().filter().wildcard().field());
+        assertEquals("title", rewriter.rewrite(singleCharacter).constantScore().filter().wildcard().field());
+    }
+
+    @Test
+    void rewrite_ShouldRouteTermsOnTextFieldToKeyword() {
+        // Given
+        Query query = Query.of(q -> q.terms(t -> t.field("author")
+                .terms(tf -> tf.value(List.of(FieldValue.of("Marko Luksa"), FieldValue.of("John Doe"))))));
+
+        // When
+        Query rewritten = rewriter.rewrite(query);
+
+        // Then
+        Query filter = rewritten.constantScore().filter();
+        assertEquals("author.keyword", filter.terms().field());
+        assertEquals(2, filter.terms().terms().value().size());
+    }
+
+    @Test
+    void rewrite_ShouldRewriteNestedBoolUnderMustNot() {
+        // Given
+        Query query = Query.of(q -> q.bool(b -> b
+                .must(m -> m.match(mt -> mt.field("content").query("kubernetes")))
+                .mustNot(n -> n.bool(nb -> nb
+                        .must(m -> m.term(t -> t.field("author").value("John Doe")))
+                        .must(m -> m.queryString(qs -> qs.query("draft")))))));
+
+        // When
+        Query rewritten = rewriter.rewrite(query);
+
+        // Then
+        assertEquals(1, rewritten.bool().mustNot().size());
+        BoolQuery excluded = rewritten.bool().mustNot().get(0).bool();
+        assertEquals(1, excluded.must().size());
+        assertTrue(excluded.must().get(0).isSimpleQueryString());
+        assertEquals(1, excluded.filter().size());
+        assertEquals("author.keyword", excluded.filter().get(0).term().field());
+    }
+}
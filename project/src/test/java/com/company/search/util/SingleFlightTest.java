@@ -0,0 +1,51 @@
+package com.company.search.util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void execute_ShouldShareInFlightCallForSameKey() {
+        // Given
+        SingleFlight<String, String> singleFlight = new SingleFlight<>("test", meterRegistry);
+        CompletableFuture<String> backend = new CompletableFuture<>();
+        AtomicInteger calls = new AtomicInteger();
+
+        // When
+        CompletableFuture<String> first = singleFlight.execute("q", () -> { calls.incrementAndGet(); return backend; });
+        CompletableFuture<String> second = singleFlight.execute("q", () -> { calls.incrementAndGet(); return backend; });
+        backend.complete("result");
+        CompletableFuture<String> third = singleFlight.execute("q",
+            () -> { calls.incrementAndGet(); return CompletableFuture.completedFuture("fresh"); });
+
+        // Then
+        assertSame(first, second);
+        assertEquals("result", second.join());
+        assertEquals("fresh", third.join());
+        assertEquals(2, calls.get());
+        assertEquals(0, singleFlight.inFlightCount());
+        assertEquals(1.0, meterRegistry.get("test.calls").tag("result", "coalesced").counter().count());
+    }
+
+    @Test
+    void execute_ShouldReleaseKeyWhenCallFails() {
+        // Given
+        SingleFlight<String, String> singleFlight = new SingleFlight<>("test", meterRegistry);
+
+        // When
+        CompletableFuture<String> failed = singleFlight.execute("q", () -> { throw new IllegalStateException("down"); });
+        CompletableFuture<String> retried = singleFlight.execute("q", () -> CompletableFuture.completedFuture("ok"));
+
+        // Then
+        assertTrue(failed.isCompletedExceptionally());
+        assertEquals("ok", retried.join());
+    }
+}